@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.logging.HttpLogSettings;
+import ru.yandex.practicum.filmorate.repository.EntityType;
+import ru.yandex.practicum.filmorate.repository.cache.ExistenceCacheRegistry;
+import ru.yandex.practicum.filmorate.repository.cache.FilmCache;
+import ru.yandex.practicum.filmorate.repository.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.repository.stats.QueryStats;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.service.PopularFilmsLeaderboard;
+
+import java.util.Map;
+
+/**
+ * Служебные операции, не входящие в публичный API
+ */
+@RestController
+@Slf4j
+@RequestMapping("/admin")
+public class AdminController {
+    private final PopularFilmsLeaderboard leaderboard;
+    private final PopularFilmsCache popularCache;
+    private final ExistenceCacheRegistry existenceCache;
+    private final ReferenceDataCache referenceData;
+    private final FilmCache filmCache;
+    private final QueryStats queryStats;
+    private final HttpLogSettings httpLogSettings;
+
+    public AdminController(PopularFilmsLeaderboard leaderboard,
+                           PopularFilmsCache popularCache,
+                           ExistenceCacheRegistry existenceCache,
+                           ReferenceDataCache referenceData,
+                           FilmCache filmCache,
+                           QueryStats queryStats,
+                           HttpLogSettings httpLogSettings) {
+        this.leaderboard = leaderboard;
+        this.popularCache = popularCache;
+        this.existenceCache = existenceCache;
+        this.referenceData = referenceData;
+        this.filmCache = filmCache;
+        this.queryStats = queryStats;
+        this.httpLogSettings = httpLogSettings;
+    }
+
+
+    @PostMapping("/leaderboard/rebuild")
+    public void rebuildLeaderboard() {
+        log.info("Popular films leaderboard rebuild requested");
+        leaderboard.rebuild();
+        popularCache.invalidate();
+    }
+
+    @GetMapping("/existence-cache")
+    public Map<EntityType, ExistenceCacheRegistry.Stats> getExistenceCacheStats() {
+        return existenceCache.getStats();
+    }
+
+    @PostMapping("/existence-cache/clear")
+    public void clearExistenceCache() {
+        log.info("Existence cache clear requested");
+        existenceCache.clear();
+    }
+
+    @PostMapping("/reference-data/refresh")
+    public void refreshReferenceData() {
+        log.info("Reference data refresh requested");
+        referenceData.refresh();
+        // фильмы в кэше ссылаются на старые жанры и рейтинги
+        filmCache.clear();
+    }
+
+    @PostMapping("/film-cache/clear")
+    public void clearFilmCache() {
+        log.info("Film cache clear requested");
+        filmCache.clear();
+    }
+
+    /**
+     * Статистика запросов к БД по HTTP-запросам и методам хранилищ
+     */
+    @GetMapping("/query-stats")
+    public Map<String, QueryStats.Stats> getQueryStats() {
+        return queryStats.getStats();
+    }
+
+    @PostMapping("/query-stats/reset")
+    public void resetQueryStats() {
+        log.info("Query stats reset requested");
+        queryStats.reset();
+    }
+
+    @GetMapping("/http-log")
+    public HttpLogSettings.Config getHttpLogSettings() {
+        return httpLogSettings.getConfig();
+    }
+
+    /**
+     * Включает и выключает журнал HTTP-обмена, меняет долю выборки и пути без тел без перезапуска
+     */
+    @PutMapping("/http-log")
+    public HttpLogSettings.Config updateHttpLogSettings(@RequestBody HttpLogSettings.Config config) {
+        httpLogSettings.setConfig(config);
+        return httpLogSettings.getConfig();
+    }
+}
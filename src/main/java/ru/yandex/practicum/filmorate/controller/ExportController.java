@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Полная выгрузка каталога фильмов и пользователей в формате NDJSON (один JSON-объект на строку).
+ *
+ * <p>Сущности читаются из хранилища порциями и записываются в ответ по мере чтения,
+ * поэтому потребление памяти не зависит от размера каталога</p>
+ */
+@RestController
+public class ExportController {
+    public static final String NDJSON = "application/x-ndjson";
+
+    private final FilmService filmService;
+    private final UserService userService;
+    private final ObjectWriter writer;
+
+    public ExportController(FilmService filmService, UserService userService, ObjectMapper objectMapper) {
+        this.filmService = filmService;
+        this.userService = userService;
+        this.writer = objectMapper.writer();
+    }
+
+
+    @GetMapping(value = "/films/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        return ndjson(outputStream -> write(outputStream, filmService::exportAll));
+    }
+
+    @GetMapping(value = "/users/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return ndjson(outputStream -> write(outputStream, userService::exportAll));
+    }
+
+    private ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    private <T> void write(OutputStream outputStream, Consumer<Consumer<T>> export) throws IOException {
+        try {
+            export.accept(entity -> {
+                try {
+                    outputStream.write(writer.writeValueAsBytes(entity));
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        outputStream.flush();
+    }
+}
@@ -2,17 +2,30 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import java.util.Collection;
 
+/**
+ * Фильмы.
+ *
+ * <p>Запросы чтения фильмов принимают параметр {@code view=summary}: тогда вместо списка лайков
+ * возвращается только их количество ({@link FilmSummary}), а сами лайки отдаются постранично
+ * через {@code GET /films/{id}/likes}</p>
+ */
 @RestController
 @Slf4j
 @RequestMapping("/films")
 public class FilmController {
+    private static final String SUMMARY_VIEW = "view=summary";
+    private static final String DEFAULT_LIKES_PAGE_SIZE = "100";
+
     private final FilmService filmService;
 
     public FilmController(FilmService filmService) {
@@ -40,11 +53,47 @@ public class FilmController {
                 .orElseThrow(() -> new NotFoundException("Film not found"));
     }
 
+    @GetMapping(value = "/{id}", params = SUMMARY_VIEW)
+    public FilmSummary getSummaryById(@PathVariable Long id) {
+        return filmService.getFilmSummary(id)
+                .orElseThrow(() -> new NotFoundException("Film not found"));
+    }
+
+    @GetMapping("/{id}/likes")
+    public ResponseEntity<Collection<Long>> getLikes(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = DEFAULT_LIKES_PAGE_SIZE) int limit,
+            @RequestParam(required = false) Long after
+    ) {
+        return toResponse(filmService.findLikesPage(id, after, limit));
+    }
+
     @GetMapping
     public Collection<Film> findAll() {
         return filmService.findAll();
     }
 
+    @GetMapping(params = SUMMARY_VIEW)
+    public Collection<FilmSummary> findAllSummaries() {
+        return filmService.findAllSummaries();
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<Collection<Film>> findPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) Long after
+    ) {
+        return toResponse(filmService.findPage(after, limit));
+    }
+
+    @GetMapping(params = {"limit", SUMMARY_VIEW})
+    public ResponseEntity<Collection<FilmSummary>> findSummaryPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) Long after
+    ) {
+        return toResponse(filmService.findSummaryPage(after, limit));
+    }
+
     @GetMapping("/popular")
     public Collection<Film> getPopularFilms(
             @RequestParam(defaultValue = "10") Integer count
@@ -52,6 +101,13 @@ public class FilmController {
         return filmService.getPopularFilms(count);
     }
 
+    @GetMapping(value = "/popular", params = SUMMARY_VIEW)
+    public Collection<FilmSummary> getPopularFilmSummaries(
+            @RequestParam(defaultValue = "10") Integer count
+    ) {
+        return filmService.getPopularFilmSummaries(count);
+    }
+
     @PutMapping
     public Film update(@RequestBody Film newFilm) {
         Film filmUpdated = filmService.update(newFilm);
@@ -67,4 +123,10 @@ public class FilmController {
     ) {
         filmService.removeLike(id, userId);
     }
+
+    private static <T> ResponseEntity<Collection<T>> toResponse(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) response.header(CursorPage.NEXT_CURSOR_HEADER, page.nextCursor().toString());
+        return response.body(page.items());
+    }
 }
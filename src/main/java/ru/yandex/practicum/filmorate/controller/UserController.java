@@ -2,7 +2,9 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 
@@ -35,6 +37,17 @@ public class UserController {
         return userService.findAll();
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<Collection<User>> findPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) Long after
+    ) {
+        CursorPage<User> page = userService.findPage(after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) response.header(CursorPage.NEXT_CURSOR_HEADER, page.nextCursor().toString());
+        return response.body(page.items());
+    }
+
     @PutMapping
     public User update(@RequestBody User newUser) {
         return userService.update(newUser);
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.controller.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.yandex.practicum.filmorate.repository.stats.QueryStats;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Собирает статистику запросов к БД на каждый HTTP-запрос под именем {@code <метод> <шаблон пути>},
+ * например {@code GET /films/{id}}.
+ *
+ * <p>При {@code filmorate.query-stats.response-header=true} ответ получает заголовок
+ * {@value #HEADER} вида {@code statements=3; rows=42; time=1.250ms}. Заголовок выставляется перед
+ * записью тела, поэтому запросы, выполненные во время сериализации ответа и в асинхронной выгрузке,
+ * в него не попадают</p>
+ */
+@Component
+public class QueryStatsFilter extends OncePerRequestFilter {
+    public static final String HEADER = "X-Query-Stats";
+
+    private final QueryStats queryStats;
+    private final boolean responseHeader;
+
+    public QueryStatsFilter(QueryStats queryStats,
+                            @Value("${filmorate.query-stats.response-header:false}") boolean responseHeader) {
+        this.queryStats = queryStats;
+        this.responseHeader = responseHeader;
+    }
+
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !queryStats.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryStats.Scope scope = queryStats.open(request.getMethod() + " " + request.getRequestURI());
+        HeaderWritingResponse wrapped = responseHeader ? new HeaderWritingResponse(response, scope) : null;
+        try {
+            chain.doFilter(request, wrapped != null ? wrapped : response);
+            if (wrapped != null) wrapped.writeHeader();
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            scope.setName(request.getMethod() + " " + (pattern != null ? pattern : "unmapped"));
+            scope.close();
+        }
+    }
+
+    //--- Заголовок ответа ---------------------------------------------------------------------------------------------
+    private static final class HeaderWritingResponse extends HttpServletResponseWrapper {
+        private final QueryStats.Scope scope;
+        private boolean headerWritten;
+
+        private HeaderWritingResponse(HttpServletResponse response, QueryStats.Scope scope) {
+            super(response);
+            this.scope = scope;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        private void writeHeader() {
+            if (headerWritten || isCommitted()) return;
+
+            headerWritten = true;
+            setHeader(HEADER, String.format(Locale.ROOT, "statements=%d; rows=%d; time=%.3fms",
+                    scope.getStatements(), scope.getRows(), scope.getNanos() / 1_000_000.0));
+        }
+    }
+}
@@ -1,24 +0,0 @@
-package ru.yandex.practicum.filmorate.dto;
-
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-import java.time.LocalDate;
-import java.util.Set;
-
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
-public class FilmDto {
-    private Long id;
-    private String name;
-    private String description;
-    private LocalDate releaseDate;
-    private Long duration;
-    private MpaRatingDto mpa;
-    private Set<GenreDto> genres;
-    private Set<Long> likes;
-}
@@ -1,15 +0,0 @@
-package ru.yandex.practicum.filmorate.dto;
-
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
-public class GenreDto {
-    private Long id;
-    private String name;
-}
@@ -1,16 +0,0 @@
-package ru.yandex.practicum.filmorate.dto;
-
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
-public class MpaRatingDto {
-    private Long id;
-    private String name;
-    private String description;
-}
@@ -1,22 +0,0 @@
-package ru.yandex.practicum.filmorate.dto;
-
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-import java.time.LocalDate;
-import java.util.Set;
-
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
-public class UserDto {
-    private Long id;
-    private String email;
-    private String login;
-    private String name;
-    private LocalDate birthday;
-    private Set<Long> friends;
-}
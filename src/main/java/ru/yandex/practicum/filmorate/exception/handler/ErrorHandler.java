@@ -4,10 +4,13 @@ package ru.yandex.practicum.filmorate.exception.handler;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import ru.yandex.practicum.filmorate.exception.*;
 
 @RestControllerAdvice
@@ -19,7 +22,11 @@ public class ErrorHandler {
             Exception type: {}
             """;
 
-    @ExceptionHandler({FriendshipException.class, LikeException.class, ConflictException.class})
+    @ExceptionHandler({
+            FriendshipException.class,
+            LikeException.class,
+            ConflictException.class
+    })
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleBadRequest(Exception e) {
         return new ErrorResponse("Bad Request", e.getMessage());
@@ -37,12 +44,44 @@ public class ErrorHandler {
         return new ErrorResponse("Validation exception", e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleValidation(ValidationException e) {
+        return new ErrorResponse("Validation exception", e.getMessage());
+    }
+
+    // параметр запроса не приводится к своему типу, например нечисловой курсор after
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleValidation(MethodArgumentTypeMismatchException e) {
+        return new ErrorResponse("Validation exception",
+                String.format("Invalid value '%s' for parameter %s", e.getValue(), e.getName()));
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handleNotFound(final NotFoundException e) {
         return new ErrorResponse("Not Found", e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleServiceUnavailable(final ServiceUnavailableException e) {
+        log.warn("Service unavailable: {}", e.getMessage());
+        return new ErrorResponse("Service Unavailable", e.getMessage());
+    }
+
+    // соединение с БД не получено: занят ограничитель обращений к БД или пул
+    @ExceptionHandler({
+            CannotGetJdbcConnectionException.class,
+            CannotCreateTransactionException.class
+    })
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleDatabaseUnavailable(Exception e) {
+        log.warn("Database unavailable: {}", e.getMessage());
+        return new ErrorResponse("Service Unavailable", "Database is busy, retry later");
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleAll(Exception e) {
@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Precorrelation;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пишет журнал HTTP-обмена в отдельном потоке: поток запроса только кладёт готовую строку в ограниченную
+ * очередь и не ждёт вывода. Если очередь заполнена, запись отбрасывается и учитывается в {@link #getDropped()},
+ * чтобы медленный вывод журнала не тормозил обработку запросов.
+ *
+ * <p>Форматирование остаётся в потоке запроса: объекты запроса и ответа сервлет-контейнер переиспользует
+ * после завершения обмена, поэтому передавать их в другой поток нельзя</p>
+ */
+@Slf4j
+public class AsyncHttpLogWriter implements HttpLogWriter, AutoCloseable {
+    private static final long POLL_TIMEOUT_MS = 100;
+    private static final long CLOSE_TIMEOUT_MS = 5_000;
+
+    private final HttpLogWriter delegate;
+    private final HttpLogSettings settings;
+    private final BlockingQueue<Entry> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread worker;
+
+    private volatile boolean closed;
+
+    public AsyncHttpLogWriter(HttpLogWriter delegate, HttpLogSettings settings, int capacity) {
+        this.delegate = delegate;
+        this.settings = settings;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = Thread.ofPlatform()
+                .name("http-log-writer")
+                .daemon()
+                .start(this::drain);
+    }
+
+
+    /**
+     * Выключенный журнал или выключенный уровень логгера Logbook отключает и буферизацию тел в Logbook
+     */
+    @Override
+    public boolean isActive() {
+        return !closed && settings.getConfig().enabled() && delegate.isActive();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, String request) {
+        enqueue(new Entry(precorrelation, null, request));
+    }
+
+    @Override
+    public void write(Correlation correlation, String response) {
+        enqueue(new Entry(null, correlation, response));
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Дописывает накопленные записи и останавливает поток вывода
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        worker.join(CLOSE_TIMEOUT_MS);
+    }
+
+    private void enqueue(Entry entry) {
+        if (closed || !queue.offer(entry)) dropped.increment();
+    }
+
+    private void drain() {
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Entry entry = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (entry != null) entry.writeTo(delegate);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to write HTTP log entry: {}", e.getMessage());
+            }
+        }
+    }
+
+    private record Entry(Precorrelation precorrelation, Correlation correlation, String message) {
+        private void writeTo(HttpLogWriter writer) throws IOException {
+            if (correlation != null) {
+                writer.write(correlation, message);
+            } else {
+                writer.write(precorrelation, message);
+            }
+        }
+    }
+}
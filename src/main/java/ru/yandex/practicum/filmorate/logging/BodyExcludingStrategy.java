@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+
+/**
+ * Стратегия Logbook, отключающая буферизацию тел для путей из {@link HttpLogSettings#isBodyExcluded(String)}.
+ *
+ * <p>Logbook вызывает оба метода до передачи запроса в обработчик, поэтому тело ответа таких запросов
+ * не копируется в память, а не только не попадает в журнал</p>
+ */
+public class BodyExcludingStrategy implements Strategy {
+    private final HttpLogSettings settings;
+
+    public BodyExcludingStrategy(HttpLogSettings settings) {
+        this.settings = settings;
+    }
+
+
+    @Override
+    public HttpRequest process(HttpRequest request) throws IOException {
+        return settings.isBodyExcluded(request.getPath()) ? request.withoutBody() : request.withBody();
+    }
+
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        return settings.isBodyExcluded(request.getPath()) ? response.withoutBody() : response.withBody();
+    }
+}
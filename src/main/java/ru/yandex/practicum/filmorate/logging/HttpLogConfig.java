@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.Strategy;
+import org.zalando.logbook.core.DefaultHttpLogWriter;
+
+import java.util.function.Predicate;
+
+/**
+ * Подменяет компоненты Logbook: выборку запросов, стратегию буферизации тел и асинхронную запись журнала.
+ * Исключения {@code logbook.predicate.exclude} продолжают действовать поверх выборки
+ */
+@Configuration
+public class HttpLogConfig {
+
+    /**
+     * Имя бина задано автоконфигурацией Logbook
+     */
+    @Bean
+    public Predicate<HttpRequest> requestCondition(HttpLogSettings settings) {
+        return request -> settings.sample();
+    }
+
+    @Bean
+    public Strategy strategy(HttpLogSettings settings) {
+        return new BodyExcludingStrategy(settings);
+    }
+
+    @Bean(destroyMethod = "close")
+    public AsyncHttpLogWriter writer(HttpLogSettings settings,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${filmorate.http-log.queue-capacity:10000}") int queueCapacity) {
+        HttpLogWriter delegate = new DefaultHttpLogWriter();
+        AsyncHttpLogWriter writer = new AsyncHttpLogWriter(delegate, settings, queueCapacity);
+
+        FunctionCounter.builder("filmorate.http_log.dropped", writer, AsyncHttpLogWriter::getDropped)
+                .description("Записи журнала HTTP-обмена, отброшенные из-за переполнения очереди")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.http_log.queue", writer, AsyncHttpLogWriter::getQueueSize)
+                .description("Записи журнала HTTP-обмена, ожидающие вывода")
+                .register(meterRegistry);
+        return writer;
+    }
+}
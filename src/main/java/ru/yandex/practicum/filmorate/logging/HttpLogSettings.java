@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Настройки журнала HTTP-обмена (Logbook), изменяемые без перезапуска через {@code /admin/http-log}.
+ *
+ * <ul>
+ *     <li>{@code enabled} - писать ли журнал вообще;</li>
+ *     <li>{@code sampleRate} - доля запросов от 0 до 1, попадающих в журнал;</li>
+ *     <li>{@code bodyExclude} - шаблоны путей ({@code /films/popular}, {@code /films/**}), для которых
+ *     тела не буферизуются и не пишутся, пишутся только строка запроса, заголовки и статус.</li>
+ * </ul>
+ *
+ * <p>Длина записываемого тела ограничивается свойством Logbook {@code logbook.write.max-body-size}.
+ * Настройки хранятся неизменяемым снимком и подменяются одной записью</p>
+ */
+@Component
+@Slf4j
+public class HttpLogSettings {
+    private static final PathPatternParser PATH_PATTERN_PARSER = PathPatternParser.defaultInstance;
+
+    private volatile Snapshot snapshot;
+
+    public HttpLogSettings(@Value("${filmorate.http-log.enabled:true}") boolean enabled,
+                           @Value("${filmorate.http-log.sample-rate:1.0}") double sampleRate,
+                           @Value("${filmorate.http-log.body-exclude:}") List<String> bodyExclude) {
+        this.snapshot = new Snapshot(new Config(enabled, sampleRate, bodyExclude));
+    }
+
+
+    public Config getConfig() {
+        return snapshot.config();
+    }
+
+    public void setConfig(Config config) {
+        snapshot = new Snapshot(config);
+        log.info("HTTP log settings changed: {}", config);
+    }
+
+    /**
+     * Попадает ли очередной запрос в журнал с учётом выключателя и доли выборки
+     */
+    public boolean sample() {
+        Config config = snapshot.config();
+        if (!config.enabled() || config.sampleRate() <= 0) return false;
+        return config.sampleRate() >= 1 || ThreadLocalRandom.current().nextDouble() < config.sampleRate();
+    }
+
+    public boolean isBodyExcluded(String path) {
+        List<PathPattern> patterns = snapshot.bodyExclude();
+        if (patterns.isEmpty()) return false;
+
+        PathContainer container = PathContainer.parsePath(path);
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(container)) return true;
+        }
+        return false;
+    }
+
+    public record Config(boolean enabled, double sampleRate, List<String> bodyExclude) {
+        public Config {
+            if (sampleRate < 0 || sampleRate > 1) {
+                throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + sampleRate);
+            }
+            bodyExclude = bodyExclude == null ? List.of() : List.copyOf(bodyExclude);
+        }
+    }
+
+    private record Snapshot(Config config, List<PathPattern> bodyExclude) {
+        private Snapshot(Config config) {
+            this(config, config.bodyExclude().stream().map(PATH_PATTERN_PARSER::parse).toList());
+        }
+    }
+}
@@ -1,13 +0,0 @@
-package ru.yandex.practicum.filmorate.mapper.dto;
-
-import ru.yandex.practicum.filmorate.dto.GenreDto;
-import ru.yandex.practicum.filmorate.model.Genre;
-
-public class GenreDtoMapper {
-    public static GenreDto toGenreDto(Genre genre) {
-        return GenreDto.builder()
-                .id(genre.getId())
-                .name(genre.getName())
-                .build();
-    }
-}
@@ -1,17 +0,0 @@
-package ru.yandex.practicum.filmorate.mapper.dto;
-
-import ru.yandex.practicum.filmorate.dto.UserDto;
-import ru.yandex.practicum.filmorate.model.User;
-
-public class UserDtoMapper {
-    public static UserDto toUserDto(User user) {
-        return UserDto.builder()
-                .id(user.getId())
-                .email(user.getEmail())
-                .login(user.getLogin())
-                .name(user.getName())
-                .birthday(user.getBirthday())
-                .friends(user.getFriends())
-                .build();
-    }
-}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.mapper.entity;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+
+public class FilmSummaryMapper {
+    public static FilmSummary toFilmSummary(Film film) {
+        FilmSummary summary = new FilmSummary();
+
+        summary.setId(film.getId());
+        summary.setName(film.getName());
+        summary.setDescription(film.getDescription());
+        summary.setReleaseDate(film.getReleaseDate());
+        summary.setDuration(film.getDuration());
+        summary.setMpa(film.getMpa());
+        summary.setGenres(film.getGenres());
+        summary.setLikesCount(film.getLikes().size());
+
+        return summary;
+    }
+}
@@ -1,15 +0,0 @@
-package ru.yandex.practicum.filmorate.mapper.entity;
-
-import ru.yandex.practicum.filmorate.dto.GenreDto;
-import ru.yandex.practicum.filmorate.model.Genre;
-
-public class GenreMapper {
-    public static Genre toGenre(GenreDto genreDto) {
-        Genre genre = new Genre();
-
-        genre.setId(genreDto.getId());
-        genre.setName(genreDto.getName());
-
-        return genre;
-    }
-}
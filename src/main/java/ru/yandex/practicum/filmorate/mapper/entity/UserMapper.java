@@ -1,19 +0,0 @@
-package ru.yandex.practicum.filmorate.mapper.entity;
-
-import ru.yandex.practicum.filmorate.dto.UserDto;
-import ru.yandex.practicum.filmorate.model.User;
-
-public class UserMapper {
-    public static User toUser(UserDto userDto) {
-        User user = new User();
-
-        user.setId(userDto.getId());
-        user.setEmail(userDto.getEmail());
-        user.setLogin(userDto.getLogin());
-        user.setName(userDto.getName());
-        user.setBirthday(userDto.getBirthday());
-        user.setFriends(userDto.getFriends());
-
-        return user;
-    }
-}
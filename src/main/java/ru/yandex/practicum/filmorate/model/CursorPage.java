@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.model;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница результатов при курсорной (keyset) пагинации
+ *
+ * @param items      элементы страницы в порядке возрастания идентификатора
+ * @param nextCursor идентификатор, который нужно передать в {@code after} для получения следующей страницы,
+ *                   или {@code null}, если страница последняя
+ */
+public record CursorPage<T>(Collection<T> items, Long nextCursor) {
+    public static final int MAX_LIMIT = 1000;
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+
+    /**
+     * Проверяет курсор и размер запрошенной страницы
+     *
+     * @throws ValidationException если курсор отрицательный или размер вне {@code 1..MAX_LIMIT}
+     */
+    public static void check(Long after, int limit) {
+        if (after != null && after < 0) {
+            throw new ValidationException("Cursor must not be negative");
+        }
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new ValidationException(String.format("Limit must be between 1 and %d", MAX_LIMIT));
+        }
+    }
+
+    /**
+     * Собирает страницу из выборки, запрошенной с запасом в один элемент ({@code limit + 1}):
+     * наличие лишнего элемента означает, что следующая страница существует
+     */
+    public static <T> CursorPage<T> of(List<T> fetched, int limit, Function<T, Long> idExtractor) {
+        if (fetched.size() <= limit) return new CursorPage<>(fetched, null);
+
+        List<T> items = fetched.subList(0, limit);
+        return new CursorPage<>(items, idExtractor.apply(items.getLast()));
+    }
+}
@@ -8,11 +8,13 @@ import jakarta.validation.groups.Default;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 import ru.yandex.practicum.filmorate.validation.UpdateValidationGroup;
 import ru.yandex.practicum.filmorate.validation.film.ReleaseDate;
 
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -67,5 +69,19 @@ public class Film {
 
     private Set<Genre> genres = new HashSet<>();
 
-    private Set<Long> likes = new HashSet<>();
+    private Set<Long> likes = new LongHashSet();
+
+
+    /**
+     * Возвращает независимую копию фильма: рейтинг, жанры и лайки копируются, порядок жанров сохраняется
+     */
+    public Film copy() {
+        Set<Genre> genresCopy = null;
+        if (genres != null) {
+            genresCopy = new LinkedHashSet<>();
+            for (Genre genre : genres) genresCopy.add(genre == null ? null : genre.copy());
+        }
+        return new Film(id, name, description, releaseDate, duration, mpa == null ? null : mpa.copy(),
+                genresCopy, likes == null ? null : new LongHashSet(likes));
+    }
 }
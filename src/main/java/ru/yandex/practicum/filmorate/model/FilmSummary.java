@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Класс {@code FilmSummary} - сокращённое представление фильма ({@code ?view=summary})
+ *
+ * <p>Содержит те же поля, что и {@link Film}, но вместо множества идентификаторов пользователей,
+ * поставивших лайк, - только их количество. Список лайков фильма отдаётся постранично
+ * отдельным запросом {@code GET /films/{id}/likes}</p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilmSummary {
+    private Long id;
+    private String name;
+    private String description;
+    private LocalDate releaseDate;
+    private Long duration;
+    private MpaRating mpa;
+    private Set<Genre> genres = new HashSet<>();
+    private long likesCount;
+}
@@ -8,4 +8,15 @@ import lombok.NoArgsConstructor;
 public class Genre {
     private Long id;
     private String name;
+
+
+    /**
+     * Возвращает независимую копию жанра
+     */
+    public Genre copy() {
+        Genre copy = new Genre();
+        copy.setId(id);
+        copy.setName(name);
+        return copy;
+    }
 }
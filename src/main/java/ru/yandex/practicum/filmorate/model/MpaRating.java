@@ -11,4 +11,12 @@ public class MpaRating {
     private Long id;
     private String name;
     private String description;
+
+
+    /**
+     * Возвращает независимую копию рейтинга
+     */
+    public MpaRating copy() {
+        return new MpaRating(id, name, description);
+    }
 }
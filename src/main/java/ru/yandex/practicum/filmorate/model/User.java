@@ -5,10 +5,10 @@ import jakarta.validation.groups.Default;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 import ru.yandex.practicum.filmorate.validation.UpdateValidationGroup;
 
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -58,10 +58,17 @@ public class User {
     )
     private LocalDate birthday;
 
-    private Set<Long> friends = new HashSet<>();
+    private Set<Long> friends = new LongHashSet();
 
 
     public String getName() {
         return name == null || name.isBlank() ? login : name;
     }
+
+    /**
+     * Возвращает копию пользователя с собственным множеством друзей
+     */
+    public User copy() {
+        return new User(id, email, login, name, birthday, friends == null ? null : new LongHashSet(friends));
+    }
 }
@@ -1,22 +1,97 @@
 package ru.yandex.practicum.filmorate.repository;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
     Film createFilm(Film film);
 
-    Optional<Boolean> addLike(Long filmId, Long userId);
+    /**
+     * Добавляет лайк. Пустой результат означает, что фильма нет
+     */
+    Optional<LikeResult> addLike(Long filmId, Long userId);
 
     Optional<Film> getFilm(Long id);
 
+    /**
+     * Проверяет существование фильма без загрузки его жанров и лайков
+     */
+    boolean filmExists(Long id);
+
     Collection<Film> getAllFilms();
 
+    /**
+     * Возвращает не более {@code limit} фильмов с идентификатором больше {@code afterId}
+     * в порядке возрастания идентификатора. {@code afterId == null} означает первую страницу
+     */
+    Collection<Film> getFilms(Long afterId, int limit);
+
+    /**
+     * Последовательно передаёт все фильмы в {@code consumer} в порядке возрастания идентификатора,
+     * не накапливая весь каталог в памяти
+     */
+    void exportFilms(Consumer<Film> consumer);
+
     Collection<Film> getPopularFilms(int count);
 
+    /**
+     * Возвращает фильмы с указанными идентификаторами в порядке следования идентификаторов.
+     * Несуществующие идентификаторы пропускаются
+     */
+    Collection<Film> getFilmsByIds(List<Long> ids);
+
+    /**
+     * Возвращает число лайков для каждого фильма, включая фильмы без лайков
+     */
+    Map<Long, Long> getLikesCounts();
+
+    /**
+     * Возвращает фильм в сокращённом представлении: с числом лайков вместо их списка
+     */
+    Optional<FilmSummary> getFilmSummary(Long id);
+
+    Collection<FilmSummary> getAllFilmSummaries();
+
+    /**
+     * Аналог {@link #getFilms(Long, int)} для сокращённого представления
+     */
+    Collection<FilmSummary> getFilmSummaries(Long afterId, int limit);
+
+    /**
+     * Аналог {@link #getFilmsByIds(List)} для сокращённого представления
+     */
+    Collection<FilmSummary> getFilmSummariesByIds(List<Long> ids);
+
+    /**
+     * Возвращает не более {@code limit} идентификаторов пользователей, поставивших лайк фильму,
+     * больших {@code afterUserId}, в порядке возрастания. {@code afterUserId == null} означает первую страницу
+     */
+    Collection<Long> getLikes(Long filmId, Long afterUserId, int limit);
+
     Film updateFilm(Film film);
 
-    Optional<Boolean> removeLike(Long filmId, Long userId);
+    /**
+     * Удаляет лайк. Пустой результат означает, что фильма нет
+     */
+    Optional<LikeResult> removeLike(Long filmId, Long userId);
+
+    /**
+     * Результат добавления или удаления лайка
+     *
+     * @param changed    лайк добавлен или удалён; {@code false} - лайк уже был (или его не было)
+     * @param likesCount число лайков фильма сразу после изменения; имеет смысл только при {@code changed}
+     */
+    record LikeResult(boolean changed, long likesCount) {
+        public static final LikeResult UNCHANGED = new LikeResult(false, 0);
+
+        public static LikeResult changed(long likesCount) {
+            return new LikeResult(true, likesCount);
+        }
+    }
 }
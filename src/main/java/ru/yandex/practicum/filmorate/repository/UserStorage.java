@@ -4,14 +4,32 @@ import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserStorage {
     User createUser(User user);
 
     Optional<User> getUser(Long id);
 
+    /**
+     * Проверяет существование пользователя без загрузки списка друзей
+     */
+    boolean userExists(Long id);
+
     Collection<User> getAllUsers();
 
+    /**
+     * Возвращает не более {@code limit} пользователей с идентификатором больше {@code afterId}
+     * в порядке возрастания идентификатора. {@code afterId == null} означает первую страницу
+     */
+    Collection<User> getUsers(Long afterId, int limit);
+
+    /**
+     * Последовательно передаёт всех пользователей в {@code consumer} в порядке возрастания идентификатора,
+     * не накапливая весь список в памяти
+     */
+    void exportUsers(Consumer<User> consumer);
+
     Optional<User> updateUser(User user);
 
     Optional<Boolean> addFriend(Long user1, Long user2);
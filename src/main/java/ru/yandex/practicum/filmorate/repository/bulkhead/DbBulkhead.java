@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.repository.bulkhead;
+
+import io.micrometer.core.instrument.Timer;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограничитель одновременных обращений к БД: одно разрешение на каждое выданное соединение.
+ *
+ * <p>Число разрешений равно размеру пула соединений, поэтому запросы сверх него ждут в честной (FIFO) очереди
+ * семафора, а не внутри пула. Ожидание ограничено {@code maxWait}: при перегрузке запрос быстро получает
+ * отказ (HTTP 503) вместо ожидания таймаута пула, а тысячи виртуальных потоков не выстраиваются к БД.</p>
+ *
+ * <p>Время ожидания разрешения (и полученного, и не дождавшегося) пишется в таймер {@value #WAIT_TIMER},
+ * если он задан через {@link #setWaitTimer(Timer)}</p>
+ */
+public class DbBulkhead {
+    public static final String WAIT_TIMER = "filmorate.db.bulkhead.wait";
+
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final long maxWaitNanos;
+    private final LongAdder rejected = new LongAdder();
+    private volatile Timer waitTimer;
+
+    public DbBulkhead(int maxPermits, Duration maxWait) {
+        if (maxPermits < 1) throw new IllegalArgumentException("Permits must be positive: " + maxPermits);
+
+        this.permits = new Semaphore(maxPermits, true);
+        this.maxPermits = maxPermits;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+
+    public void acquire() throws SQLTransientConnectionException {
+        boolean acquired;
+        long startedAt = System.nanoTime();
+        try {
+            acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database permit", e);
+        } finally {
+            Timer timer = waitTimer;
+            if (timer != null) timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+
+        if (!acquired) {
+            rejected.increment();
+            throw new SQLTransientConnectionException("Database is busy: no permit within %d ms, %d requests waiting"
+                    .formatted(TimeUnit.NANOSECONDS.toMillis(maxWaitNanos), permits.getQueueLength()));
+        }
+    }
+
+    public void setWaitTimer(Timer waitTimer) {
+        this.waitTimer = waitTimer;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getMaxPermits() {
+        return maxPermits;
+    }
+
+    public int getActive() {
+        return maxPermits - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.repository.bulkhead;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Метрики {@link DbBulkhead}: занятые разрешения, ожидающие запросы, отказы и время ожидания разрешения
+ */
+@Component
+public class DbBulkheadMetrics implements MeterBinder {
+    private final DataSource dataSource;
+
+    public DbBulkheadMetrics(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        DbBulkhead bulkhead;
+        try {
+            if (!dataSource.isWrapperFor(BulkheadDataSource.class)) return;
+            bulkhead = dataSource.unwrap(BulkheadDataSource.class).getBulkhead();
+        } catch (SQLException e) {
+            return;
+        }
+
+        Gauge.builder("filmorate.db.bulkhead.permits", bulkhead, DbBulkhead::getMaxPermits)
+                .description("Разрешения на обращение к БД")
+                .register(registry);
+        Gauge.builder("filmorate.db.bulkhead.active", bulkhead, DbBulkhead::getActive)
+                .description("Занятые разрешения")
+                .register(registry);
+        Gauge.builder("filmorate.db.bulkhead.waiting", bulkhead, DbBulkhead::getWaiting)
+                .description("Запросы, ожидающие разрешения")
+                .register(registry);
+        FunctionCounter.builder("filmorate.db.bulkhead.rejected", bulkhead, DbBulkhead::getRejected)
+                .description("Запросы, не дождавшиеся разрешения")
+                .register(registry);
+        bulkhead.setWaitTimer(Timer.builder(DbBulkhead.WAIT_TIMER)
+                .description("Ожидание разрешения на обращение к БД")
+                .register(registry));
+    }
+}
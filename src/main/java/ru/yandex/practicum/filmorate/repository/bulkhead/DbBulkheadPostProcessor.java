@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.repository.bulkhead;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Оборачивает бин {@link DataSource} в {@link BulkheadDataSource}, если ограничитель не отключён
+ * свойством {@code filmorate.db-bulkhead.enabled=false}. Число разрешений по умолчанию равно
+ * размеру пула Hikari. Обёртка ставится первой, ближе всего к пулу
+ */
+@Component
+public class DbBulkheadPostProcessor implements BeanPostProcessor, Ordered {
+    private final boolean enabled;
+    private final int permits;
+    private final Duration maxWait;
+
+    public DbBulkheadPostProcessor(
+            @Value("${filmorate.db-bulkhead.enabled:true}") boolean enabled,
+            @Value("${filmorate.db-bulkhead.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+            @Value("${filmorate.db-bulkhead.max-wait:2s}") Duration maxWait) {
+        this.enabled = enabled;
+        this.permits = permits;
+        this.maxWait = maxWait;
+    }
+
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)) {
+            return new BulkheadDataSource(dataSource, new DbBulkhead(permits, maxWait));
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.repository.cache;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Кэш существования сущностей одного типа.
+ *
+ * <p>Отвечает на вопрос "есть ли сущность с таким id" без обращения к БД. Если кэш не может
+ * ответить уверенно, он возвращает {@link Presence#UNKNOWN} и проверка выполняется запросом к БД</p>
+ */
+public interface EntityExistenceCache {
+
+    enum Presence {
+        PRESENT,
+        ABSENT,
+        UNKNOWN
+    }
+
+    /**
+     * Источник полного набора существующих идентификаторов для заполнения кэша
+     */
+    @FunctionalInterface
+    interface IdSource {
+        void forEachId(LongConsumer consumer);
+    }
+
+
+    /**
+     * Заменяет содержимое кэша идентификаторами из {@code source}
+     */
+    void load(IdSource source);
+
+    boolean isLoaded();
+
+    Presence lookup(long id);
+
+    /**
+     * Отмечает сущность как существующую (после создания или успешной проверки в БД)
+     */
+    void markPresent(long id);
+
+    /**
+     * Сбрасывает содержимое кэша. Следующее обращение заново заполнит его
+     */
+    void clear();
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.repository.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.EntityType;
+
+import java.util.Locale;
+
+/**
+ * Публикует счётчики {@link ExistenceCacheRegistry} в формате метрик кэшей Micrometer:
+ * {@code cache.gets{cache="existence.film", result="hit|miss"}} и признак загрузки {@code cache.loaded}.
+ * Доля попаданий считается на стороне системы мониторинга
+ */
+@Component
+public class ExistenceCacheMetrics implements MeterBinder {
+    private final ExistenceCacheRegistry existenceCache;
+
+    public ExistenceCacheMetrics(ExistenceCacheRegistry existenceCache) {
+        this.existenceCache = existenceCache;
+    }
+
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (EntityType type : EntityType.values()) {
+            String cache = "existence." + type.name().toLowerCase(Locale.ROOT);
+
+            FunctionCounter.builder("cache.gets", existenceCache, c -> c.getStats().get(type).hits())
+                    .tag("cache", cache)
+                    .tag("result", "hit")
+                    .description("Проверки существования, ответ на которые дал кэш")
+                    .register(registry);
+            FunctionCounter.builder("cache.gets", existenceCache, c -> c.getStats().get(type).misses())
+                    .tag("cache", cache)
+                    .tag("result", "miss")
+                    .description("Проверки существования, ушедшие в БД")
+                    .register(registry);
+            Gauge.builder("cache.loaded", existenceCache, c -> c.getStats().get(type).loaded() ? 1 : 0)
+                    .tag("cache", cache)
+                    .register(registry);
+        }
+    }
+}
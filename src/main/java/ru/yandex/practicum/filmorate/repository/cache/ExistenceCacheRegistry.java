@@ -0,0 +1,231 @@
+package ru.yandex.practicum.filmorate.repository.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.repository.EntityType;
+import ru.yandex.practicum.filmorate.repository.cache.EntityExistenceCache.Presence;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Кэши существования сущностей для всех {@link EntityType}.
+ *
+ * <p>Кэши заполняются полным списком идентификаторов из БД при старте приложения
+ * ({@link ApplicationReadyEvent}). Если кэш не загружен (старт не завершён, загрузка не удалась
+ * или кэш сброшен), обращение к нему запускает загрузку в фоне и сразу возвращает
+ * {@link Presence#UNKNOWN}: поток запроса не ждёт загрузку и не берёт для неё второе соединение,
+ * пока держит своё. Для каждого типа одновременно выполняется не больше одной загрузки,
+ * после неудачной следующая попытка делается не раньше чем через {@code RETRY_DELAY}.</p>
+ *
+ * <p>Загрузка идёт через отдельное соединение вне текущей транзакции, чтобы в кэш не попали
+ * незафиксированные строки. По той же причине созданные сущности отмечаются в кэше только после
+ * фиксации транзакции.</p>
+ *
+ * <p>Кэш отключается свойством {@code filmorate.existence-cache.enabled=false}, тогда все проверки
+ * выполняются запросами к БД</p>
+ */
+@Component
+@Slf4j
+public class ExistenceCacheRegistry {
+    private static final String FIND_ALL_IDS_QUERY = "SELECT id FROM %s";
+    private static final int LOAD_FETCH_SIZE = 10_000;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final Executor loadExecutor;
+    private final Map<EntityType, EntityExistenceCache> caches = new EnumMap<>(EntityType.class);
+    private final Map<EntityType, LongAdder> hits = new EnumMap<>(EntityType.class);
+    private final Map<EntityType, LongAdder> misses = new EnumMap<>(EntityType.class);
+
+    // выполняющиеся загрузки и время, раньше которого нельзя повторить неудачную; меняются под loadLock
+    private final Lock loadLock = new ReentrantLock();
+    private final Map<EntityType, CompletableFuture<Void>> loads = new EnumMap<>(EntityType.class);
+    private final Map<EntityType, Long> retryAt = new EnumMap<>(EntityType.class);
+
+    @Autowired
+    public ExistenceCacheRegistry(DataSource dataSource,
+                                  @Value("${filmorate.existence-cache.enabled:true}") boolean enabled) {
+        this(dataSource, enabled,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("existence-cache-load-", 0).factory()));
+    }
+
+    public ExistenceCacheRegistry(DataSource dataSource, boolean enabled, Executor loadExecutor) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.loadExecutor = loadExecutor;
+
+        for (EntityType type : EntityType.values()) {
+            caches.put(type, new IdBitmapExistenceCache());
+            hits.put(type, new LongAdder());
+            misses.put(type, new LongAdder());
+        }
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        loadAll();
+    }
+
+    /**
+     * Загружает все незагруженные кэши и ждёт окончания загрузки. Ошибки загрузки пишутся в лог,
+     * такие кэши отвечают {@link Presence#UNKNOWN} до следующей попытки
+     */
+    public void loadAll() {
+        if (!enabled) return;
+
+        List<CompletableFuture<Void>> started = caches.keySet().stream()
+                .map(type -> startLoad(type, true))
+                .toList();
+        CompletableFuture.allOf(started.toArray(CompletableFuture[]::new)).join();
+    }
+
+    /**
+     * Проверяет наличие сущности по кэшу. {@link Presence#UNKNOWN} означает, что нужна проверка в БД
+     */
+    public Presence lookup(EntityType type, long id) {
+        if (!enabled) return Presence.UNKNOWN;
+
+        EntityExistenceCache cache = caches.get(type);
+        if (!cache.isLoaded()) startLoad(type, false);
+
+        Presence presence = cache.lookup(id);
+        (presence == Presence.UNKNOWN ? misses : hits).get(type).increment();
+        return presence;
+    }
+
+    /**
+     * Отмечает сущность как существующую. Внутри транзакции отметка откладывается до её фиксации
+     */
+    public void registerPresent(EntityType type, long id) {
+        if (!enabled) return;
+
+        EntityExistenceCache cache = caches.get(type);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.markPresent(id);
+                }
+            });
+        } else {
+            cache.markPresent(id);
+        }
+    }
+
+    /**
+     * Сбрасывает все кэши. Они будут заново загружены в фоне при следующем обращении
+     */
+    public void clear() {
+        caches.values().forEach(EntityExistenceCache::clear);
+        log.info("Existence caches cleared");
+    }
+
+    public Map<EntityType, Stats> getStats() {
+        Map<EntityType, Stats> stats = new EnumMap<>(EntityType.class);
+        caches.forEach((type, cache) -> stats.put(type, new Stats(
+                hits.get(type).sum(),
+                misses.get(type).sum(),
+                cache.isLoaded()
+        )));
+        return stats;
+    }
+
+    /**
+     * Запускает загрузку кэша, если он не загружен и загрузка ещё не идёт.
+     * Возвращает выполняющуюся загрузку; она завершается без исключения и при ошибке
+     *
+     * @param force не учитывать задержку после неудачной попытки
+     */
+    private CompletableFuture<Void> startLoad(EntityType type, boolean force) {
+        EntityExistenceCache cache = caches.get(type);
+
+        loadLock.lock();
+        try {
+            CompletableFuture<Void> inProgress = loads.get(type);
+            if (inProgress != null) return inProgress;
+            if (cache.isLoaded()) return CompletableFuture.completedFuture(null);
+
+            Long notBefore = retryAt.get(type);
+            if (!force && notBefore != null && System.nanoTime() - notBefore < 0) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            CompletableFuture<Void> load = new CompletableFuture<>();
+            loads.put(type, load);
+            try {
+                loadExecutor.execute(() -> load(type, cache, load));
+            } catch (RuntimeException e) {
+                loads.remove(type);
+                log.warn("Failed to schedule existence cache load for {}: {}", type, e.getMessage());
+                return CompletableFuture.completedFuture(null);
+            }
+            return load;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void load(EntityType type, EntityExistenceCache cache, CompletableFuture<Void> load) {
+        boolean loaded = false;
+        try (Connection connection = dataSource.getConnection()) {
+            JdbcTemplate template = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            template.setFetchSize(LOAD_FETCH_SIZE);
+
+            cache.load(consumer -> template.query(FIND_ALL_IDS_QUERY.formatted(getTable(type)), rs -> {
+                consumer.accept(rs.getLong(1));
+            }));
+            loaded = true;
+            log.info("Existence cache for {} loaded", type);
+        } catch (SQLException | RuntimeException e) {
+            // кэш остаётся незагруженным, проверки идут в БД до следующей попытки
+            log.warn("Failed to load existence cache for {}: {}", type, e.getMessage());
+        } finally {
+            loadLock.lock();
+            try {
+                loads.remove(type);
+                if (loaded) {
+                    retryAt.remove(type);
+                } else {
+                    retryAt.put(type, System.nanoTime() + RETRY_DELAY.toNanos());
+                }
+            } finally {
+                loadLock.unlock();
+            }
+            load.complete(null);
+        }
+    }
+
+    private String getTable(EntityType type) {
+        return switch (type) {
+            case USER -> "users";
+            case FILM -> "films";
+            case MPA_RATING -> "mpa_ratings";
+            case GENRE -> "genres";
+        };
+    }
+
+    public record Stats(long hits, long misses, boolean loaded) {
+    }
+}
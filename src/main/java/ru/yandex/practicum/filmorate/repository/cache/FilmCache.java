@@ -0,0 +1,152 @@
+package ru.yandex.practicum.filmorate.repository.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Кэш фильмов по id перед {@code FilmStorage.getFilm}: ограничен по числу записей (вытеснение W-TinyLFU)
+ * и по времени жизни записи.
+ *
+ * <p>Фильм в кэше не изменяется: лайк добавляется и удаляется заменой записи на копию фильма, а каждое
+ * чтение получает свою полную копию ({@link Film#copy()}) с собственными рейтингом MPA, жанрами и лайками,
+ * поэтому изменение полученного фильма не затрагивает кэш. Изменение фильма удаляет запись. Внутри
+ * транзакции правки применяются после её фиксации, а чтение идёт мимо кэша, чтобы в него не попали
+ * незафиксированные данные. Обе правки лайков идемпотентны, поэтому загрузка, выполнявшаяся одновременно
+ * с фиксацией, не теряет изменение.</p>
+ *
+ * <p>Записи кэша - незавершённые или завершённые {@link CompletableFuture}: загрузка идёт в потоке первого
+ * промахнувшегося запроса вне блокировок кэша (виртуальный поток не закрепляется за потоком-носителем на
+ * время запроса к БД), остальные запросы того же id ждут её результат. Удаление записи во время загрузки
+ * убирает и её результат</p>
+ *
+ * <p>Кэш отключается свойством {@code filmorate.film-cache.enabled=false}, тогда каждое чтение идёт в БД</p>
+ */
+@Component
+@Slf4j
+public class FilmCache {
+    private final boolean enabled;
+    private final AsyncCache<Long, Film> films;
+
+    public FilmCache(@Value("${filmorate.film-cache.enabled:true}") boolean enabled,
+                     @Value("${filmorate.film-cache.maximum-size:10000}") long maximumSize,
+                     @Value("${filmorate.film-cache.expire-after-write:5m}") Duration expireAfterWrite) {
+        this.enabled = enabled;
+        this.films = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+    }
+
+
+    /**
+     * Выключенный кэш: все чтения идут в {@code loader}
+     */
+    public static FilmCache disabled() {
+        return new FilmCache(false, 0, Duration.ZERO);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Возвращает фильм из кэша или загружает его через {@code loader}. Одновременные промахи по одному id
+     * ждут одну загрузку. Отсутствующие фильмы не кэшируются. Возвращается копия фильма из кэша
+     */
+    public Optional<Film> get(Long id, Function<Long, Optional<Film>> loader) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) return loader.apply(id);
+
+        CompletableFuture<Film> loading = new CompletableFuture<>();
+        CompletableFuture<Film> cached = films.get(id, (filmId, executor) -> loading);
+        if (cached != loading) return Optional.ofNullable(await(cached)).map(Film::copy);
+
+        try {
+            // запись с пустым результатом или ошибкой Caffeine удаляет сам
+            Film film = loader.apply(id).orElse(null);
+            loading.complete(film);
+            return Optional.ofNullable(film).map(Film::copy);
+        } catch (RuntimeException | Error e) {
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void invalidate(Long id) {
+        afterCommit(() -> films.synchronous().invalidate(id));
+    }
+
+    public void onLikeAdded(Long filmId, Long userId) {
+        afterCommit(() -> patchLikes(filmId, likes -> likes.add(userId)));
+    }
+
+    public void onLikeRemoved(Long filmId, Long userId) {
+        afterCommit(() -> patchLikes(filmId, likes -> likes.remove(userId)));
+    }
+
+    /**
+     * Сбрасывает кэш, например после обновления справочников, на которые ссылаются фильмы
+     */
+    public void clear() {
+        films.synchronous().invalidateAll();
+        log.info("Film cache cleared");
+    }
+
+    /**
+     * Кэш Caffeine для публикации метрик
+     */
+    AsyncCache<Long, Film> nativeCache() {
+        return films;
+    }
+
+    private void patchLikes(Long filmId, Consumer<LongHashSet> patch) {
+        // незавершённая загрузка получает правку после завершения
+        films.asMap().computeIfPresent(filmId, (id, future) -> future.thenApply(film -> {
+            if (film == null) return null;
+
+            LongHashSet likes = new LongHashSet(film.getLikes());
+            patch.accept(likes);
+            return new Film(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                    film.getDuration(), film.getMpa(), film.getGenres(), likes);
+        }));
+    }
+
+    private static Film await(CompletableFuture<Film> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!enabled) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.repository.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Публикует статистику {@link FilmCache} стандартными метриками кэшей Micrometer с тегом {@code cache="films"}:
+ * {@code cache.gets{result="hit|miss"}}, {@code cache.evictions}, {@code cache.size} и другие.
+ * Ожидание чужой незавершённой загрузки считается попаданием
+ */
+@Component
+public class FilmCacheMetrics implements MeterBinder {
+    private final FilmCache filmCache;
+
+    public FilmCacheMetrics(FilmCache filmCache) {
+        this.filmCache = filmCache;
+    }
+
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (filmCache.isEnabled()) CaffeineCacheMetrics.monitor(registry, filmCache.nativeCache(), "films");
+    }
+}
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.repository.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.repository.GenreStorage;
+import ru.yandex.practicum.filmorate.repository.MpaRatingStorage;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Справочники жанров и рейтингов MPA, загруженные в память приложения.
+ *
+ * <p>Таблицы {@code genres} и {@code mpa_ratings} маленькие и меняются только миграциями, поэтому
+ * они читаются из хранилищ один раз при старте приложения и раскладываются в неизменяемые массивы,
+ * индексированные идентификатором. Поиск по id и получение полного списка не обращаются к БД.</p>
+ *
+ * <p>После изменения справочников в обход приложения кэш обновляется методом {@link #refresh()}:
+ * новый снимок собирается целиком и подменяет старый одной записью, читатели видят либо старый,
+ * либо новый снимок. Обновления выполняются по очереди под {@link ReentrantLock}, а не {@code synchronized}:
+ * виртуальный поток, ждущий БД внутри {@code synchronized}, закрепляется за потоком-носителем.
+ * Каждый вызов получает свои копии жанров и рейтингов, поэтому их изменение не затрагивает снимок</p>
+ */
+@Component
+@Slf4j
+public class ReferenceDataCache {
+    private final GenreStorage genreStorage;
+    private final MpaRatingStorage mpaRatingStorage;
+
+    private final Lock refreshLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    public ReferenceDataCache(GenreStorage genreStorage, MpaRatingStorage mpaRatingStorage) {
+        this.genreStorage = genreStorage;
+        this.mpaRatingStorage = mpaRatingStorage;
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        refresh();
+    }
+
+    /**
+     * Заново загружает справочники из хранилищ
+     */
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            Collection<Genre> genres = genreStorage.getAllGenres();
+            Collection<MpaRating> mpaRatings = mpaRatingStorage.getAllMpaRatings();
+
+            snapshot = new Snapshot(
+                    index(genres, Genre::getId, Genre[]::new),
+                    index(mpaRatings, MpaRating::getId, MpaRating[]::new),
+                    sorted(genres, Genre::getId),
+                    sorted(mpaRatings, MpaRating::getId)
+            );
+            log.info("Reference data loaded: {} genres, {} MPA ratings", genres.size(), mpaRatings.size());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public Optional<Genre> getGenre(Long id) {
+        return Optional.ofNullable(get(getSnapshot().genresById(), id)).map(Genre::copy);
+    }
+
+    public Collection<Genre> getAllGenres() {
+        return getSnapshot().genres().stream().map(Genre::copy).toList();
+    }
+
+    public boolean genreExists(Long id) {
+        return get(getSnapshot().genresById(), id) != null;
+    }
+
+    public Optional<MpaRating> getMpaRating(Long id) {
+        return Optional.ofNullable(get(getSnapshot().mpaRatingsById(), id)).map(MpaRating::copy);
+    }
+
+    public Collection<MpaRating> getAllMpaRatings() {
+        return getSnapshot().mpaRatings().stream().map(MpaRating::copy).toList();
+    }
+
+    public boolean mpaRatingExists(Long id) {
+        return get(getSnapshot().mpaRatingsById(), id) != null;
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null) return current;
+
+        // запрос пришёл раньше ApplicationReadyEvent (например, в тестах без полного контекста)
+        refreshLock.lock();
+        try {
+            if (snapshot == null) refresh();
+            return snapshot;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private static <T> T get(T[] byId, Long id) {
+        if (id == null || id < 0 || id >= byId.length) return null;
+        return byId[id.intValue()];
+    }
+
+    private static <T> T[] index(Collection<T> items, Function<T, Long> idGetter, IntFunction<T[]> arrayFactory) {
+        int size = items.stream()
+                .mapToInt(item -> Math.toIntExact(idGetter.apply(item)) + 1)
+                .max()
+                .orElse(0);
+
+        T[] byId = arrayFactory.apply(size);
+        items.forEach(item -> byId[idGetter.apply(item).intValue()] = item);
+        return byId;
+    }
+
+    private static <T> List<T> sorted(Collection<T> items, Function<T, Long> idGetter) {
+        return items.stream()
+                .sorted(Comparator.comparing(idGetter))
+                .toList();
+    }
+
+    private record Snapshot(Genre[] genresById, MpaRating[] mpaRatingsById,
+                            List<Genre> genres, List<MpaRating> mpaRatings) {
+    }
+}
@@ -4,14 +4,26 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.repository.EntityType;
+import ru.yandex.practicum.filmorate.repository.cache.EntityExistenceCache.Presence;
+import ru.yandex.practicum.filmorate.repository.cache.ExistenceCacheRegistry;
+import ru.yandex.practicum.filmorate.repository.parallel.ParallelLoader;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Базовый класс для работы с хранилищем данных в БД.
  * Предоставляет общие методы для проверки существования сущностей (пользователей, фильмов,
  * рейтингов MPA и жанров) в базе данных по их идентификаторам.
  * При отсутствии сущности бросает NotFoundException.
+ * Перед запросом к БД проверка выполняется по кэшу существования {@link ExistenceCacheRegistry}.
+ * Независимые порции пакетной загрузки могут выполняться одновременно через {@link ParallelLoader}.
  */
 
 @Slf4j
@@ -40,23 +52,94 @@ public class BaseDbStorage {
             WHERE id = ?;
             """;
 
+    // максимальное число идентификаторов в одном IN-списке при пакетной загрузке связанных данных
+    protected static final int IN_CLAUSE_CHUNK_SIZE = 500;
+
+    // размер страницы, которую выгрузка читает за один запрос
+    protected static final int EXPORT_PAGE_SIZE = 500;
+
     protected final JdbcTemplate jdbc;
+    protected final ExistenceCacheRegistry existenceCache;
+    protected final ParallelLoader parallelLoader;
 
-    public BaseDbStorage(final JdbcTemplate jdbc) {
+    public BaseDbStorage(final JdbcTemplate jdbc, final ExistenceCacheRegistry existenceCache) {
+        this(jdbc, existenceCache, ParallelLoader.sequential());
+    }
+
+    public BaseDbStorage(final JdbcTemplate jdbc,
+                         final ExistenceCacheRegistry existenceCache,
+                         final ParallelLoader parallelLoader) {
         this.jdbc = jdbc;
+        this.existenceCache = existenceCache;
+        this.parallelLoader = parallelLoader;
     }
 
 
-    protected void checkEntityExists(Long id, EntityType type) {
+    protected boolean entityExists(Long id, EntityType type) {
+        Presence presence = existenceCache.lookup(type, id);
+        if (presence != Presence.UNKNOWN) return presence == Presence.PRESENT;
+
+        // кэш не знает об id: проверяем в БД и запоминаем найденную сущность
         String query = getQuery(type);
 
         int count = Optional.ofNullable(jdbc.queryForObject(query, Integer.class, id)).orElse(0);
 
-        if (count == 0) {
-            String errorMessage = String.format("%s with id=%d not found", type, id);
-            log.warn(errorMessage);
-            throw new NotFoundException(errorMessage);
+        if (count > 0) existenceCache.registerPresent(type, id);
+        return count > 0;
+    }
+
+    protected void checkEntityExists(Long id, EntityType type) {
+        if (!entityExists(id, type)) throwNotFound(type, id);
+    }
+
+    protected void throwNotFound(EntityType type, Long id) {
+        String errorMessage = String.format("%s with id=%d not found", type, id);
+        log.warn(errorMessage);
+        throw new NotFoundException(errorMessage);
+    }
+
+    /**
+     * Читает сущности страницами по {@code EXPORT_PAGE_SIZE} через {@code pageLoader} (keyset-пагинация
+     * по возрастанию id) и передаёт их в {@code consumer}. Соединение берётся на время чтения одной страницы
+     * и возвращается до передачи её клиенту, поэтому медленный получатель не держит соединение с БД
+     * на всё время выгрузки. Выгрузка не является снимком: изменения между страницами могут в неё попасть
+     */
+    protected <T> void exportInPages(BiFunction<Long, Integer, Collection<T>> pageLoader,
+                                     Function<T, Long> idGetter,
+                                     Consumer<T> consumer) {
+        Long afterId = null;
+        Collection<T> page;
+        do {
+            page = pageLoader.apply(afterId, EXPORT_PAGE_SIZE);
+            for (T entity : page) {
+                consumer.accept(entity);
+                afterId = idGetter.apply(entity);
+            }
+        } while (page.size() == EXPORT_PAGE_SIZE);
+    }
+
+    /**
+     * Разбивает список идентификаторов на порции не длиннее {@code IN_CLAUSE_CHUNK_SIZE}
+     * и передаёт каждую порцию в {@code action}. Порции могут читаться одновременно
+     * (см. {@link ParallelLoader}), поэтому {@code action} должен быть потокобезопасным
+     */
+    protected void forEachChunk(List<Long> ids, Consumer<List<Long>> action) {
+        parallelLoader.forEach(chunks(ids), action);
+    }
+
+    /**
+     * Возвращает строку плейсхолдеров вида {@code ?, ?, ?} для подстановки в IN-список
+     */
+    protected static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>((ids.size() + IN_CLAUSE_CHUNK_SIZE - 1) / IN_CLAUSE_CHUNK_SIZE);
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, ids.size())));
         }
+        return chunks;
     }
 
     private String getQuery(EntityType type) {
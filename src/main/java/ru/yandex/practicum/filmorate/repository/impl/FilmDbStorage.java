@@ -2,24 +2,34 @@ package ru.yandex.practicum.filmorate.repository.impl;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
-import ru.yandex.practicum.filmorate.dto.FilmDto;
-import ru.yandex.practicum.filmorate.dto.GenreDto;
-import ru.yandex.practicum.filmorate.mapper.entity.FilmMapper;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.repository.EntityType;
 import ru.yandex.practicum.filmorate.repository.FilmStorage;
+import ru.yandex.practicum.filmorate.repository.cache.ExistenceCacheRegistry;
+import ru.yandex.practicum.filmorate.repository.cache.FilmCache;
+import ru.yandex.practicum.filmorate.repository.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.repository.parallel.ParallelLoader;
 import ru.yandex.practicum.filmorate.rowmapper.FilmRowMapper;
-import ru.yandex.practicum.filmorate.rowmapper.GenreDtoRowMapper;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Реализация хранилища фильмов в БД.
@@ -42,66 +52,119 @@ public class FilmDbStorage extends BaseDbStorage implements FilmStorage {
             INSERT INTO films (name, description, release_date, duration, mpa_rating_id) VALUES (?, ?, ?, ?, ?);
             """;
 
+    // повторный лайк не вставляется и не считается ошибкой
     private static final String INSERT_LIKE_QUERY = """
-            INSERT INTO film_likes (film_id, user_id) VALUES (?, ?);
+            INSERT INTO film_likes (film_id, user_id)
+            SELECT ?, ?
+            WHERE NOT EXISTS (
+                SELECT 1
+                FROM film_likes
+                WHERE film_id = ?
+                AND user_id = ?
+            );
             """;
 
     private static final String INSERT_FILM_GENRE_QUERY = """
             INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?);
             """;
 
-    private static final String FIND_FILM_BY_ID_QUERY = """
+    // жанры и лайки агрегируются коррелированными подзапросами, а не JOIN, чтобы строки жанров и лайков
+    // не перемножались; каждый подзапрос читает только индекс своей таблицы по film_id
+    private static final String SELECT_FILMS_WITH_GENRES_AND_LIKES = """
             SELECT f.*,
-                   m.id mpa_id,
-                   m.name mpa_name,
-                   m.description mpa_description
+                   (SELECT ARRAY_AGG(fg.genre_id ORDER BY fg.genre_id)
+                    FROM film_genres fg
+                    WHERE fg.film_id = f.id) AS genre_ids,
+                   (SELECT ARRAY_AGG(fl.user_id ORDER BY fl.user_id)
+                    FROM film_likes fl
+                    WHERE fl.film_id = f.id) AS like_ids
             FROM films f
-            JOIN mpa_ratings m
-            ON f.mpa_rating_id = m.id
-            WHERE f.id = ?;
             """;
 
-    private static final String FIND_FILMS_QUERY = """
+    // сокращённое представление: число лайков берётся из films.likes_count, сами лайки не читаются
+    private static final String SELECT_FILMS_WITH_GENRES = """
             SELECT f.*,
-                   m.id mpa_id,
-                   m.name mpa_name,
-                   m.description mpa_description
+                   (SELECT ARRAY_AGG(fg.genre_id ORDER BY fg.genre_id)
+                    FROM film_genres fg
+                    WHERE fg.film_id = f.id) AS genre_ids
             FROM films f
-            JOIN mpa_ratings m
-            ON f.mpa_rating_id = m.id;
             """;
 
-    private static final String FIND_POPULAR_FILMS_QUERY = """
-            SELECT f.*,
-                   mr.id mpa_id,
-                   mr.name mpa_name,
-                   mr.description mpa_description,
-                   fl.likes_count
-            FROM films f
-            JOIN mpa_ratings mr ON f.mpa_rating_id = mr.id
-            LEFT JOIN (
-                SELECT film_id, COUNT(*) AS likes_count
-                FROM film_likes
-                GROUP BY film_id
-            ) fl ON f.id = fl.film_id
-            ORDER BY likes_count DESC,
+    private static final String BY_ID_CONDITION = """
+            WHERE f.id = ?;
+            """;
+
+    private static final String PAGE_CONDITION = """
+            WHERE f.id > ?
+            ORDER BY f.id
+            LIMIT ?;
+            """;
+
+    private static final String ORDER_BY_ID = """
+            ORDER BY f.id;
+            """;
+
+    // likes_count поддерживается при добавлении/удалении лайка, сортировка идёт по индексу idx_films_likes_count
+    private static final String POPULAR_CONDITION = """
+            ORDER BY f.likes_count DESC,
                      f.id DESC
             LIMIT ?;
             """;
 
+    private static final String BY_IDS_CONDITION = """
+            WHERE f.id IN (%s);
+            """;
+
+    private static final String FIND_FILM_BY_ID_QUERY = SELECT_FILMS_WITH_GENRES_AND_LIKES + BY_ID_CONDITION;
+    private static final String FIND_FILMS_QUERY = SELECT_FILMS_WITH_GENRES_AND_LIKES + ORDER_BY_ID;
+    private static final String FIND_FILMS_PAGE_QUERY = SELECT_FILMS_WITH_GENRES_AND_LIKES + PAGE_CONDITION;
+    private static final String FIND_POPULAR_FILMS_QUERY = SELECT_FILMS_WITH_GENRES_AND_LIKES + POPULAR_CONDITION;
+    private static final String FIND_FILMS_BY_IDS_QUERY = SELECT_FILMS_WITH_GENRES_AND_LIKES + BY_IDS_CONDITION;
+
+    private static final String FIND_FILM_SUMMARY_BY_ID_QUERY = SELECT_FILMS_WITH_GENRES + BY_ID_CONDITION;
+    private static final String FIND_FILM_SUMMARIES_QUERY = SELECT_FILMS_WITH_GENRES + ORDER_BY_ID;
+    private static final String FIND_FILM_SUMMARIES_PAGE_QUERY = SELECT_FILMS_WITH_GENRES + PAGE_CONDITION;
+    private static final String FIND_FILM_SUMMARIES_BY_IDS_QUERY = SELECT_FILMS_WITH_GENRES + BY_IDS_CONDITION;
+
+    private static final String FIND_LIKES_COUNTS_QUERY = """
+            SELECT id,
+                   likes_count
+            FROM films;
+            """;
+
     private static final String FIND_GENRES_ID_BY_FILM_ID_QUERY = """
-            SELECT g.id,
-                   g.name
-            FROM genres g
-            JOIN film_genres fg
-            ON g.id = fg.genre_id
-            WHERE fg.film_id = ?;
+            SELECT genre_id
+            FROM film_genres
+            WHERE film_id = ?;
             """;
 
-    private static final String FIND_LIKES_BY_FILM_ID_QUERY = """
+    // страница лайков фильма читается по первичному ключу (film_id, user_id)
+    private static final String FIND_LIKES_PAGE_QUERY = """
             SELECT user_id
             FROM film_likes
-            WHERE film_id = ?;
+            WHERE film_id = ?
+            AND user_id > ?
+            ORDER BY user_id
+            LIMIT ?;
+            """;
+
+    private static final String INCREMENT_LIKES_COUNT_QUERY = """
+            UPDATE films
+            SET likes_count = likes_count + 1
+            WHERE id = ?;
+            """;
+
+    private static final String DECREMENT_LIKES_COUNT_QUERY = """
+            UPDATE films
+            SET likes_count = likes_count - 1
+            WHERE id = ?;
+            """;
+
+    // читается в транзакции изменения: строка фильма заблокирована обновлением счётчика
+    private static final String FIND_LIKES_COUNT_QUERY = """
+            SELECT likes_count
+            FROM films
+            WHERE id = ?;
             """;
 
     private static final String UPDATE_FILM_BY_ID = """
@@ -110,8 +173,10 @@ public class FilmDbStorage extends BaseDbStorage implements FilmStorage {
             WHERE id = ?;
             """;
 
-    private static final String DELETE_FILM_GENRES_BY_ID = """
-            DELETE FROM film_genres WHERE film_id = ?;
+    private static final String DELETE_FILM_GENRE_QUERY = """
+            DELETE FROM film_genres
+            WHERE film_id = ?
+            AND genre_id = ?;
             """;
 
     private static final String DELETE_FILM_LIKES_BY_FILM_AND_USER_ID = """
@@ -121,15 +186,29 @@ public class FilmDbStorage extends BaseDbStorage implements FilmStorage {
             """;
 
 
-    public FilmDbStorage(final JdbcTemplate jdbc) {
-        super(jdbc);
+    private final ReferenceDataCache referenceData;
+    private final FilmRowMapper filmRowMapper;
+    private final FilmCache filmCache;
+
+    public FilmDbStorage(final JdbcTemplate jdbc,
+                         final ExistenceCacheRegistry existenceCache,
+                         final ReferenceDataCache referenceData,
+                         final FilmRowMapper filmRowMapper,
+                         final ParallelLoader parallelLoader,
+                         final FilmCache filmCache) {
+        super(jdbc, existenceCache, parallelLoader);
+        this.referenceData = referenceData;
+        this.filmRowMapper = filmRowMapper;
+        this.filmCache = filmCache;
     }
 
 
     //--- Создание фильма ----------------------------------------------------------------------------------------------
     @Override
+    @Transactional
     public Film createFilm(Film film) {
         checkMpaRatingExists(film);
+        Set<Long> genreIds = getGenreIds(film);
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
         jdbc.update(connection -> {
@@ -146,9 +225,10 @@ public class FilmDbStorage extends BaseDbStorage implements FilmStorage {
 
         Long filmId = keyHolder.getKeyAs(Long.class);
         film.setId(filmId);
+        existenceCache.registerPresent(EntityType.FILM, filmId);
 
         // Сохранение жанров фильма
-        saveFilmGenres(filmId, film.getGenres());
+        insertFilmGenres(filmId, genreIds);
 
         log.info("Created new film with id: {}", filmId);
         return film;
@@ -156,55 +236,123 @@ public class FilmDbStorage extends BaseDbStorage implements FilmStorage {
 
     //--- Добавление лайка ---------------------------------------------------------------------------------------------
     @Override
-    public Optional<Boolean> addLike(Long filmId, Long userId) {
-        int rowsAffected = jdbc.update(INSERT_LIKE_QUERY, filmId, userId);
-        return Optional.of(rowsAffected > 0);
+    @Transactional
+    public Optional<LikeResult> addLike(Long filmId, Long userId) {
+        int rowsAffected;
+        try {
+            rowsAffected = jdbc.update(INSERT_LIKE_QUERY, filmId, userId, filmId, userId);
+        } catch (DuplicateKeyException e) {
+            // одновременная вставка того же лайка другим запросом
+            log.debug("Like of film {} by user {} already exists", filmId, userId);
+            return Optional.of(LikeResult.UNCHANGED);
+        } catch (DataIntegrityViolationException e) {
+            // нарушение внешнего ключа film_likes: фильма или пользователя нет
+            throw new NotFoundException(
+                    String.format("Film with id=%d or user with id=%d not found", filmId, userId));
+        }
+
+        if (rowsAffected == 0) return Optional.of(LikeResult.UNCHANGED);
+
+        // счётчик лайков обновляется в той же транзакции, что и film_likes
+        long likesCount = updateLikesCount(INCREMENT_LIKES_COUNT_QUERY, filmId);
+        filmCache.onLikeAdded(filmId, userId);
+        return Optional.of(LikeResult.changed(likesCount));
     }
 
     //--- Получение фильма по id ---------------------------------------------------------------------------------------
     @Override
     public Optional<Film> getFilm(Long id) {
-        FilmDto filmDto = jdbc.queryForObject(FIND_FILM_BY_ID_QUERY, new FilmRowMapper(), id);
-
-        if (filmDto != null) {
-            // загрузить жанры и лайки
-            enrichFilmWithGenresAndLikes(filmDto);
-            return Optional.of(FilmMapper.toFilm(filmDto));
-        }
+        return filmCache.get(id, this::loadFilm);
+    }
 
-        return Optional.empty();
+    //--- Проверка существования фильма --------------------------------------------------------------------------------
+    @Override
+    public boolean filmExists(Long id) {
+        return entityExists(id, EntityType.FILM);
     }
 
     //--- Получение списка всех фильмов --------------------------------------------------------------------------------
     @Override
     public Collection<Film> getAllFilms() {
-        List<FilmDto> allFilms = jdbc.query(FIND_FILMS_QUERY, new FilmRowMapper());
+        return jdbc.query(FIND_FILMS_QUERY, filmRowMapper.films());
+    }
 
-        // загрузить жанры и лайки для всех фильмов
-        allFilms.forEach(this::enrichFilmWithGenresAndLikes);
+    //--- Получение страницы фильмов -----------------------------------------------------------------------------------
+    @Override
+    public Collection<Film> getFilms(Long afterId, int limit) {
+        long after = afterId != null ? afterId : 0L;
+        return jdbc.query(FIND_FILMS_PAGE_QUERY, filmRowMapper.films(), after, limit);
+    }
 
-        return allFilms.stream()
-                .map(FilmMapper::toFilm)
-                .toList();
+    //--- Потоковая выгрузка всех фильмов ------------------------------------------------------------------------------
+    @Override
+    public void exportFilms(Consumer<Film> consumer) {
+        // без транзакции: каждая страница читается на своём соединении, которое освобождается до записи клиенту
+        exportInPages(this::getFilms, Film::getId, consumer);
     }
 
     //--- Получение списка популярных фильмов --------------------------------------------------------------------------
     @Override
     public Collection<Film> getPopularFilms(int count) {
-        List<FilmDto> popularFilms = jdbc.query(FIND_POPULAR_FILMS_QUERY, new FilmRowMapper(), count);
+        return jdbc.query(FIND_POPULAR_FILMS_QUERY, filmRowMapper.films(), count);
+    }
 
-        // загрузить жанры и лайки для выбранных фильмов
-        popularFilms.forEach(this::enrichFilmWithGenresAndLikes);
+    //--- Получение фильмов по списку id -------------------------------------------------------------------------------
+    @Override
+    public Collection<Film> getFilmsByIds(List<Long> ids) {
+        return findByIds(FIND_FILMS_BY_IDS_QUERY, filmRowMapper::films, Film::getId, ids);
+    }
 
-        return popularFilms.stream()
-                .map(FilmMapper::toFilm)
-                .toList();
+    //--- Получение числа лайков всех фильмов --------------------------------------------------------------------------
+    @Override
+    public Map<Long, Long> getLikesCounts() {
+        Map<Long, Long> likesCounts = new HashMap<>();
+        jdbc.query(FIND_LIKES_COUNTS_QUERY, rs -> {
+            likesCounts.put(rs.getLong("id"), rs.getLong("likes_count"));
+        });
+        return likesCounts;
+    }
+
+    //--- Получение фильма в сокращённом представлении -----------------------------------------------------------------
+    @Override
+    public Optional<FilmSummary> getFilmSummary(Long id) {
+        return jdbc.query(FIND_FILM_SUMMARY_BY_ID_QUERY, filmRowMapper.summaries(), id).stream()
+                .findFirst();
+    }
+
+    //--- Получение всех фильмов в сокращённом представлении -----------------------------------------------------------
+    @Override
+    public Collection<FilmSummary> getAllFilmSummaries() {
+        return jdbc.query(FIND_FILM_SUMMARIES_QUERY, filmRowMapper.summaries());
+    }
+
+    //--- Получение страницы фильмов в сокращённом представлении -------------------------------------------------------
+    @Override
+    public Collection<FilmSummary> getFilmSummaries(Long afterId, int limit) {
+        long after = afterId != null ? afterId : 0L;
+        return jdbc.query(FIND_FILM_SUMMARIES_PAGE_QUERY, filmRowMapper.summaries(), after, limit);
+    }
+
+    //--- Получение фильмов по списку id в сокращённом представлении ---------------------------------------------------
+    @Override
+    public Collection<FilmSummary> getFilmSummariesByIds(List<Long> ids) {
+        return findByIds(FIND_FILM_SUMMARIES_BY_IDS_QUERY, filmRowMapper::summaries, FilmSummary::getId, ids);
+    }
+
+    //--- Получение страницы лайков фильма -----------------------------------------------------------------------------
+    @Override
+    public Collection<Long> getLikes(Long filmId, Long afterUserId, int limit) {
+        long after = afterUserId != null ? afterUserId : 0L;
+        return jdbc.queryForList(FIND_LIKES_PAGE_QUERY, Long.class, filmId, after, limit);
     }
 
     //--- Обновление фильма --------------------------------------------------------------------------------------------
     @Override
+    @Transactional
     public Film updateFilm(Film film) {
         checkFilmExists(film);
+        checkMpaRatingExists(film);
+        Set<Long> genreIds = getGenreIds(film);
 
         jdbc.update(
                 UPDATE_FILM_BY_ID,
@@ -216,9 +364,9 @@ public class FilmDbStorage extends BaseDbStorage implements FilmStorage {
                 film.getId()
         );
 
-        // обновить жанры фильма
-        jdbc.update(DELETE_FILM_GENRES_BY_ID, film.getId());
-        saveFilmGenres(film.getId(), film.getGenres());
+        // обновить только изменившиеся жанры фильма
+        updateFilmGenres(film.getId(), genreIds);
+        filmCache.invalidate(film.getId());
 
         log.info("Updated film with id: {}", film.getId());
         return film;
@@ -226,15 +374,33 @@ public class FilmDbStorage extends BaseDbStorage implements FilmStorage {
 
     //--- Удаление лайка -----------------------------------------------------------------------------------------------
     @Override
-    public Optional<Boolean> removeLike(Long filmId, Long userId) {
+    @Transactional
+    public Optional<LikeResult> removeLike(Long filmId, Long userId) {
         int rowsAffected = jdbc.update(DELETE_FILM_LIKES_BY_FILM_AND_USER_ID, filmId, userId);
-        return Optional.of(rowsAffected > 0);
+        if (rowsAffected == 0) return Optional.of(LikeResult.UNCHANGED);
+
+        // счётчик лайков обновляется в той же транзакции, что и film_likes
+        long likesCount = updateLikesCount(DECREMENT_LIKES_COUNT_QUERY, filmId);
+        filmCache.onLikeRemoved(filmId, userId);
+        return Optional.of(LikeResult.changed(likesCount));
     }
 
 
     //--- Вспомогательные методы ---------------------------------------------------------------------------------------
+    private long updateLikesCount(String query, Long filmId) {
+        jdbc.update(query, filmId);
+        return Optional.ofNullable(jdbc.queryForObject(FIND_LIKES_COUNT_QUERY, Long.class, filmId)).orElse(0L);
+    }
+
+    private Optional<Film> loadFilm(Long id) {
+        // фильм, жанры и лайки читаются одной строкой
+        return jdbc.query(FIND_FILM_BY_ID_QUERY, filmRowMapper.films(), id).stream()
+                .findFirst();
+    }
+
+    // жанры и рейтинги проверяются по справочнику в памяти без запросов к БД
     private void checkGenreExists(Genre genre) {
-        checkEntityExists(genre.getId(), EntityType.GENRE);
+        if (!referenceData.genreExists(genre.getId())) throwNotFound(EntityType.GENRE, genre.getId());
     }
 
     private void checkFilmExists(Film film) {
@@ -242,27 +408,75 @@ public class FilmDbStorage extends BaseDbStorage implements FilmStorage {
     }
 
     private void checkMpaRatingExists(Film film) {
-        checkEntityExists(film.getMpa().getId(), EntityType.MPA_RATING);
+        Long mpaId = film.getMpa().getId();
+        if (!referenceData.mpaRatingExists(mpaId)) throwNotFound(EntityType.MPA_RATING, mpaId);
     }
 
-    private void saveFilmGenres(Long filmId, Set<Genre> genres) {
-        if (genres != null && !genres.isEmpty()) {
-            genres.forEach(this::checkGenreExists);
-            genres.forEach(genre -> jdbc.update(INSERT_FILM_GENRE_QUERY, filmId, genre.getId()));
-        }
+    /**
+     * Проверяет жанры фильма и возвращает их идентификаторы без повторов.
+     * Проверка выполняется до записи фильма, чтобы несуществующий жанр не оставлял фильм без жанров
+     */
+    private Set<Long> getGenreIds(Film film) {
+        Set<Long> genreIds = new LinkedHashSet<>();
+        if (film.getGenres() == null) return genreIds;
+
+        film.getGenres().forEach(genre -> {
+            checkGenreExists(genre);
+            genreIds.add(genre.getId());
+        });
+        return genreIds;
     }
 
-    private Set<GenreDto> loadGenresForFilm(Long filmId) {
-        return new HashSet<>(jdbc.query(FIND_GENRES_ID_BY_FILM_ID_QUERY, new GenreDtoRowMapper(), filmId));
+    private void insertFilmGenres(Long filmId, Collection<Long> genreIds) {
+        if (genreIds.isEmpty()) return;
+        jdbc.batchUpdate(INSERT_FILM_GENRE_QUERY, toFilmGenreParams(filmId, genreIds));
     }
 
-    private Set<Long> loadLikesForFilm(Long filmId) {
-        return new HashSet<>(jdbc.queryForList(FIND_LIKES_BY_FILM_ID_QUERY, Long.class, filmId));
+    private void deleteFilmGenres(Long filmId, Collection<Long> genreIds) {
+        if (genreIds.isEmpty()) return;
+        jdbc.batchUpdate(DELETE_FILM_GENRE_QUERY, toFilmGenreParams(filmId, genreIds));
     }
 
-    private void enrichFilmWithGenresAndLikes(FilmDto filmDto) {
-        long filmId = filmDto.getId();
-        filmDto.setGenres(loadGenresForFilm(filmId));
-        filmDto.setLikes(loadLikesForFilm(filmId));
+    /**
+     * Приводит жанры фильма к {@code genreIds}: сравнивает их с сохранёнными и удаляет/добавляет
+     * только отличающиеся строки. Если жанры не изменились, выполняется единственный запрос на чтение
+     */
+    private void updateFilmGenres(Long filmId, Set<Long> genreIds) {
+        Set<Long> storedGenreIds = new HashSet<>(
+                jdbc.queryForList(FIND_GENRES_ID_BY_FILM_ID_QUERY, Long.class, filmId));
+
+        List<Long> removed = storedGenreIds.stream()
+                .filter(genreId -> !genreIds.contains(genreId))
+                .toList();
+        List<Long> added = genreIds.stream()
+                .filter(genreId -> !storedGenreIds.contains(genreId))
+                .toList();
+
+        deleteFilmGenres(filmId, removed);
+        insertFilmGenres(filmId, added);
+    }
+
+    private static List<Object[]> toFilmGenreParams(Long filmId, Collection<Long> genreIds) {
+        return genreIds.stream()
+                .map(genreId -> new Object[]{filmId, genreId})
+                .toList();
+    }
+
+    /**
+     * Загружает фильмы по списку идентификаторов порциями по {@code IN_CLAUSE_CHUNK_SIZE}
+     * (один запрос на порцию) и возвращает их в порядке запрошенных идентификаторов.
+     * Порции могут читаться одновременно, маппер колонок у каждой порции свой
+     */
+    private <T> List<T> findByIds(String query, Supplier<RowMapper<T>> rowMapper, Function<T, Long> idGetter,
+                                  List<Long> ids) {
+        Map<Long, T> filmsById = new ConcurrentHashMap<>();
+        forEachChunk(ids, chunk -> jdbc.query(
+                        query.formatted(placeholders(chunk.size())), rowMapper.get(), chunk.toArray())
+                .forEach(film -> filmsById.put(idGetter.apply(film), film)));
+
+        return ids.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 }
@@ -5,6 +5,7 @@ import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.repository.EntityType;
 import ru.yandex.practicum.filmorate.repository.GenreStorage;
+import ru.yandex.practicum.filmorate.repository.cache.ExistenceCacheRegistry;
 import ru.yandex.practicum.filmorate.rowmapper.GenreRowMapper;
 
 import java.util.Collection;
@@ -35,8 +36,8 @@ public class GenreDbStorage extends BaseDbStorage implements GenreStorage {
             SELECT * FROM genres;
             """;
 
-    public GenreDbStorage(final JdbcTemplate jdbc) {
-        super(jdbc);
+    public GenreDbStorage(final JdbcTemplate jdbc, final ExistenceCacheRegistry existenceCache) {
+        super(jdbc, existenceCache);
     }
 
 
@@ -2,86 +2,219 @@ package ru.yandex.practicum.filmorate.repository.impl;
 
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.mapper.entity.FilmSummaryMapper;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
 import ru.yandex.practicum.filmorate.repository.FilmStorage;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import static java.util.Objects.nonNull;
 
+/**
+ * Потокобезопасное хранилище фильмов в памяти.
+ *
+ * <p>Фильмы хранятся в {@link ConcurrentSkipListMap} (упорядочены по id для постраничной выдачи),
+ * идентификаторы выдаются {@link AtomicLong}. Лайки хранятся отдельно от фильмов в {@link LongHashSet}
+ * на каждый фильм и меняются под блокировкой этого множества, поэтому лайки разных фильмов не блокируют
+ * друг друга, а обновление фильма атомарно заменяет запись в карте и не затрагивает лайки.</p>
+ *
+ * <p>Наружу отдаются копии фильмов со снимком лайков, снятым под той же блокировкой: вызывающий код
+ * может обходить и сериализовать их, пока другие потоки меняют хранилище</p>
+ */
 @Component
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Long, Film> films = new HashMap<>();
-    private long id = 1L;
+    private final ConcurrentNavigableMap<Long, Film> films = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Long, LongHashSet> likesByFilm = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong(1L);
 
 
     @Override
     public Film createFilm(Film film) {
-        film.setId(id);
-        films.put(id++, film);
-        return film;
+        long filmId = ids.getAndIncrement();
+        film.setId(filmId);
+        // лайки появляются раньше фильма, чтобы найденный фильм всегда имел множество лайков
+        likesByFilm.put(filmId, film.getLikes() != null ? new LongHashSet(film.getLikes()) : new LongHashSet());
+        films.put(filmId, film);
+        return snapshot(film);
     }
 
     @Override
-    public Optional<Boolean> addLike(Long filmId, Long userId) {
-        Film film = films.get(filmId);
-        if (film == null) return Optional.empty();
-
-        boolean added = film.getLikes().add(userId);
-        return Optional.of(added);
+    public Optional<LikeResult> addLike(Long filmId, Long userId) {
+        LongHashSet likes = likesByFilm.get(filmId);
+        if (likes == null) return Optional.empty();
+
+        synchronized (likes) {
+            if (!likes.add(userId.longValue())) return Optional.of(LikeResult.UNCHANGED);
+            return Optional.of(LikeResult.changed(likes.size()));
+        }
     }
 
     @Override
     public Collection<Film> getPopularFilms(int count) {
         if (films.isEmpty()) return Collections.emptyList();
 
+        // число лайков фиксируется до сортировки: конкурентные изменения не должны нарушать порядок сравнения
         return films.values().stream()
-                .filter(film -> !film.getLikes().isEmpty())
-                .sorted((f1, f2) -> Integer.compare(
-                        f2.getLikes().size(),
-                        f1.getLikes().size()
-                ))
+                .map(film -> Map.entry(film, likesCount(film.getId())))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted((e1, e2) -> Integer.compare(e2.getValue(), e1.getValue()))
                 .limit(count)
+                .map(entry -> snapshot(entry.getKey()))
+                .toList();
+    }
+
+    @Override
+    public Collection<Film> getFilmsByIds(List<Long> ids) {
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(this::snapshot)
+                .toList();
+    }
+
+    @Override
+    public Map<Long, Long> getLikesCounts() {
+        Map<Long, Long> likesCounts = new HashMap<>();
+        films.keySet().forEach(filmId -> likesCounts.put(filmId, (long) likesCount(filmId)));
+        return likesCounts;
+    }
+
+    @Override
+    public Optional<FilmSummary> getFilmSummary(Long filmId) {
+        return getFilm(filmId).map(FilmSummaryMapper::toFilmSummary);
+    }
+
+    @Override
+    public Collection<FilmSummary> getAllFilmSummaries() {
+        return toFilmSummaries(getAllFilms());
+    }
+
+    @Override
+    public Collection<FilmSummary> getFilmSummaries(Long afterId, int limit) {
+        return toFilmSummaries(getFilms(afterId, limit));
+    }
+
+    @Override
+    public Collection<FilmSummary> getFilmSummariesByIds(List<Long> ids) {
+        return toFilmSummaries(getFilmsByIds(ids));
+    }
+
+    @Override
+    public Collection<Long> getLikes(Long filmId, Long afterUserId, int limit) {
+        LongHashSet likes = likesByFilm.get(filmId);
+        if (likes == null) return Collections.emptyList();
+
+        long[] userIds;
+        synchronized (likes) {
+            userIds = likes.toLongArray();
+        }
+
+        long after = afterUserId != null ? afterUserId : 0L;
+        return Arrays.stream(userIds)
+                .filter(userId -> userId > after)
+                .sorted()
+                .limit(limit)
+                .boxed()
                 .toList();
     }
 
     @Override
     public Optional<Film> getFilm(Long filmId) {
-        return Optional.ofNullable(films.get(filmId));
+        return Optional.ofNullable(films.get(filmId)).map(this::snapshot);
+    }
+
+    @Override
+    public boolean filmExists(Long filmId) {
+        return films.containsKey(filmId);
     }
 
     @Override
     public Collection<Film> getAllFilms() {
-        return films.values();
+        return films.values().stream()
+                .map(this::snapshot)
+                .toList();
+    }
+
+    @Override
+    public Collection<Film> getFilms(Long afterId, int limit) {
+        NavigableMap<Long, Film> tail = afterId != null ? films.tailMap(afterId, false) : films;
+        return tail.values().stream()
+                .limit(limit)
+                .map(this::snapshot)
+                .toList();
+    }
+
+    @Override
+    public void exportFilms(Consumer<Film> consumer) {
+        films.values().forEach(film -> consumer.accept(snapshot(film)));
     }
 
     @Override
     public Film updateFilm(Film film) {
         long filmId = film.getId();
-        Film existFilm = films.get(filmId);
 
-        if (existFilm == null) throw new NotFoundException(String.format("Film with id=%s not found", filmId));
+        // запись заменяется атомарно, лайки хранятся отдельно и не теряются
+        Film updatedFilm = films.computeIfPresent(filmId, (id, existFilm) -> {
+            Film newFilm = new Film();
 
-        Film updatedFilm = new Film();
+            newFilm.setId(filmId);
+            newFilm.setName(getOrDefault(film.getName(), existFilm.getName()));
+            newFilm.setDescription(getOrDefault(film.getDescription(), existFilm.getDescription()));
+            newFilm.setReleaseDate(getOrDefault(film.getReleaseDate(), existFilm.getReleaseDate()));
+            newFilm.setDuration(getOrDefault(film.getDuration(), existFilm.getDuration()));
 
-        updatedFilm.setId(filmId);
-        updatedFilm.setName(getOrDefault(film.getName(), existFilm.getName()));
-        updatedFilm.setDescription(getOrDefault(film.getDescription(), existFilm.getDescription()));
-        updatedFilm.setReleaseDate(getOrDefault(film.getReleaseDate(), existFilm.getReleaseDate()));
-        updatedFilm.setDuration(getOrDefault(film.getDuration(), existFilm.getDuration()));
+            return newFilm;
+        });
 
-        films.put(filmId, updatedFilm);
+        if (updatedFilm == null) throw new NotFoundException(String.format("Film with id=%s not found", filmId));
 
-        return updatedFilm;
+        return snapshot(updatedFilm);
     }
 
     @Override
-    public Optional<Boolean> removeLike(Long filmId, Long userId) {
-        Film film = films.get(filmId);
-        if (film == null) return Optional.empty();
+    public Optional<LikeResult> removeLike(Long filmId, Long userId) {
+        LongHashSet likes = likesByFilm.get(filmId);
+        if (likes == null) return Optional.empty();
+
+        synchronized (likes) {
+            if (!likes.remove(userId.longValue())) return Optional.of(LikeResult.UNCHANGED);
+            return Optional.of(LikeResult.changed(likes.size()));
+        }
+    }
+
+    private static Collection<FilmSummary> toFilmSummaries(Collection<Film> films) {
+        return films.stream()
+                .map(FilmSummaryMapper::toFilmSummary)
+                .toList();
+    }
+
+    private int likesCount(Long filmId) {
+        LongHashSet likes = likesByFilm.get(filmId);
+        synchronized (likes) {
+            return likes.size();
+        }
+    }
 
-        boolean removed = film.getLikes().remove(userId);
-        return Optional.of(removed);
+    /**
+     * Копия фильма со снимком текущих лайков
+     */
+    private Film snapshot(Film film) {
+        LongHashSet likes = likesByFilm.get(film.getId());
+        LongHashSet likesCopy;
+        synchronized (likes) {
+            likesCopy = new LongHashSet(likes);
+        }
+
+        return new Film(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                film.getDuration(), film.getMpa(), film.getGenres(), likesCopy);
     }
 
     private <T> T getOrDefault(T value, T defaultValue) {
@@ -5,32 +5,82 @@ import ru.yandex.practicum.filmorate.exception.ConflictException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.repository.UserStorage;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import static java.util.Objects.nonNull;
 
+/**
+ * Потокобезопасное хранилище пользователей в памяти.
+ *
+ * <p>Пользователи хранятся в {@link ConcurrentSkipListMap}, идентификаторы выдаются {@link AtomicLong},
+ * друзья хранятся отдельно от пользователей в {@link LongHashSet} на каждого пользователя. Дружба меняется
+ * сразу у обоих пользователей под блокировками их полос ({@code FRIENDSHIP_LOCK_STRIPES} штук), которые
+ * берутся в порядке номера полосы, поэтому изменения дружбы разных пар не блокируют друг друга
+ * и не приводят к взаимоблокировке.</p>
+ *
+ * <p>Наружу отдаются копии пользователей со снимком друзей, снятым под блокировкой полосы пользователя</p>
+ */
 @Component
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Long, User> users = new HashMap<>();
-    private long id = 1L;
+    private static final int FRIENDSHIP_LOCK_STRIPES = 64;
+
+    private final ConcurrentNavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Long, LongHashSet> friendsByUser = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong(1L);
+    private final Object[] friendshipLocks = new Object[FRIENDSHIP_LOCK_STRIPES];
+
+    public InMemoryUserStorage() {
+        Arrays.setAll(friendshipLocks, i -> new Object());
+    }
 
 
     @Override
     public User createUser(User user) {
-        user.setId(id);
-        users.put(id++, user);
-        return user;
+        long userId = ids.getAndIncrement();
+        user.setId(userId);
+        // друзья появляются раньше пользователя, чтобы найденный пользователь всегда имел множество друзей
+        friendsByUser.put(userId, user.getFriends() != null ? new LongHashSet(user.getFriends()) : new LongHashSet());
+        users.put(userId, user);
+        return snapshot(user);
     }
 
     @Override
     public Optional<User> getUser(Long userId) {
-        return Optional.ofNullable(users.get(userId));
+        return Optional.ofNullable(users.get(userId)).map(this::snapshot);
+    }
+
+    @Override
+    public boolean userExists(Long userId) {
+        return users.containsKey(userId);
     }
 
     @Override
     public Collection<User> getAllUsers() {
-        return users.values();
+        return users.values().stream()
+                .map(this::snapshot)
+                .toList();
+    }
+
+    @Override
+    public Collection<User> getUsers(Long afterId, int limit) {
+        NavigableMap<Long, User> tail = afterId != null ? users.tailMap(afterId, false) : users;
+        return tail.values().stream()
+                .limit(limit)
+                .map(this::snapshot)
+                .toList();
+    }
+
+    @Override
+    public void exportUsers(Consumer<User> consumer) {
+        users.values().forEach(user -> consumer.accept(snapshot(user)));
     }
 
     @Override
@@ -51,13 +101,10 @@ public class InMemoryUserStorage implements UserStorage {
 
         validateUsersExist(user, friend, userId, friendId);
 
-        Set<Long> commonIds = new HashSet<>(user.getFriends());
-        commonIds.retainAll(friend.getFriends());
+        LongHashSet commonIds = copyFriends(userId);
+        commonIds.retainAll(copyFriends(friendId));
 
-        List<User> commonFriends = commonIds.stream()
-                .map(users::get)
-                .filter(Objects::nonNull)
-                .toList();
+        List<User> commonFriends = toUsers(commonIds);
 
         return Optional.of(commonFriends);
     }
@@ -67,10 +114,7 @@ public class InMemoryUserStorage implements UserStorage {
         User user = users.get(userId);
         if (user == null) throw new NotFoundException(String.format("User with id=%s not found", userId));
 
-        List<User> friends = user.getFriends().stream()
-                .map(users::get)
-                .filter(Objects::nonNull)
-                .toList();
+        List<User> friends = toUsers(copyFriends(userId));
 
         return Optional.of(friends);
     }
@@ -78,22 +122,24 @@ public class InMemoryUserStorage implements UserStorage {
     @Override
     public Optional<User> updateUser(User user) {
         long userId = user.getId();
-        User existUser = users.get(userId);
 
-        if (existUser == null) throw new NotFoundException(String.format("User with id=%s not found", userId));
+        // запись заменяется атомарно, друзья хранятся отдельно и не теряются
+        User updatedUser = users.computeIfPresent(userId, (id, existUser) -> {
+            User newUser = new User();
 
-        User updatedUser = new User();
+            newUser.setId(userId);
+            newUser.setEmail(getOrDefault(user.getEmail(), existUser.getEmail()));
+            newUser.setLogin(getOrDefault(user.getLogin(), existUser.getLogin()));
+            newUser.setName(user.getName() == null || user.getName().equals(user.getLogin())
+                    ? existUser.getName()
+                    : user.getName());
+            newUser.setBirthday(getOrDefault(user.getBirthday(), existUser.getBirthday()));
 
-        updatedUser.setId(userId);
-        updatedUser.setEmail(getOrDefault(user.getEmail(), existUser.getEmail()));
-        updatedUser.setLogin(getOrDefault(user.getLogin(), existUser.getLogin()));
-        updatedUser.setName(user.getName() == null || user.getName().equals(user.getLogin())
-                ? existUser.getName()
-                : user.getName());
-        updatedUser.setBirthday(getOrDefault(user.getBirthday(), existUser.getBirthday()));
+            return newUser;
+        });
 
-        users.put(userId, updatedUser);
-        return Optional.of(updatedUser);
+        if (updatedUser == null) throw new NotFoundException(String.format("User with id=%s not found", userId));
+        return Optional.of(snapshot(updatedUser));
     }
 
     private boolean updateFriendship(Long userId, Long friendId, boolean add) {
@@ -102,22 +148,59 @@ public class InMemoryUserStorage implements UserStorage {
 
         validateUsersExist(user, friend, userId, friendId);
 
-        Set<Long> userFriends = user.getFriends();
-        Set<Long> friendFriends = friend.getFriends();
-
-        if (add) {
-            if (userFriends.contains(friendId)) throw new ConflictException("Friendship already exists");
-            userFriends.add(friendId);
-            friendFriends.add(userId);
-        } else {
-            if (!userFriends.contains(friendId)) return false;
-            userFriends.remove(friendId);
-            friendFriends.remove(userId);
+        LongHashSet userFriends = friendsByUser.get(userId);
+        LongHashSet friendFriends = friendsByUser.get(friendId);
+
+        int firstStripe = lockStripe(userId);
+        int secondStripe = lockStripe(friendId);
+
+        synchronized (friendshipLocks[Math.min(firstStripe, secondStripe)]) {
+            synchronized (friendshipLocks[Math.max(firstStripe, secondStripe)]) {
+                if (add) {
+                    if (userFriends.contains(friendId.longValue())) {
+                        throw new ConflictException("Friendship already exists");
+                    }
+                    userFriends.add(friendId.longValue());
+                    friendFriends.add(userId.longValue());
+                } else {
+                    if (!userFriends.contains(friendId.longValue())) return false;
+                    userFriends.remove(friendId.longValue());
+                    friendFriends.remove(userId.longValue());
+                }
+            }
         }
 
         return true;
     }
 
+    private static int lockStripe(Long userId) {
+        return Math.floorMod(Long.hashCode(userId), FRIENDSHIP_LOCK_STRIPES);
+    }
+
+    private LongHashSet copyFriends(Long userId) {
+        LongHashSet friends = friendsByUser.get(userId);
+        synchronized (friendshipLocks[lockStripe(userId)]) {
+            return new LongHashSet(friends);
+        }
+    }
+
+    private List<User> toUsers(LongHashSet ids) {
+        List<User> result = new ArrayList<>(ids.size());
+        ids.forEachLong(id -> {
+            User user = users.get(id);
+            if (user != null) result.add(snapshot(user));
+        });
+        return result;
+    }
+
+    /**
+     * Копия пользователя со снимком текущих друзей
+     */
+    private User snapshot(User user) {
+        return new User(user.getId(), user.getEmail(), user.getLogin(), user.getName(), user.getBirthday(),
+                copyFriends(user.getId()));
+    }
+
     private void validateUsersExist(User user, User friend, Long userId, Long friendId) {
         if (user == null) {
             throw new NotFoundException(String.format("User with id=%s not found", userId));
@@ -5,6 +5,7 @@ import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.MpaRating;
 import ru.yandex.practicum.filmorate.repository.EntityType;
 import ru.yandex.practicum.filmorate.repository.MpaRatingStorage;
+import ru.yandex.practicum.filmorate.repository.cache.ExistenceCacheRegistry;
 import ru.yandex.practicum.filmorate.rowmapper.MpaRatingRowMapper;
 
 import java.util.Collection;
@@ -34,8 +35,8 @@ public class MpaRatingDbStorage extends BaseDbStorage implements MpaRatingStorag
             SELECT * FROM mpa_ratings;
             """;
 
-    public MpaRatingDbStorage(final JdbcTemplate jdbc) {
-        super(jdbc);
+    public MpaRatingDbStorage(final JdbcTemplate jdbc, final ExistenceCacheRegistry existenceCache) {
+        super(jdbc, existenceCache);
     }
 
 
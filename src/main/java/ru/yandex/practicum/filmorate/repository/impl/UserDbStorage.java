@@ -6,16 +6,18 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
-import ru.yandex.practicum.filmorate.dto.UserDto;
-import ru.yandex.practicum.filmorate.mapper.entity.UserMapper;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.repository.EntityType;
 import ru.yandex.practicum.filmorate.repository.UserStorage;
+import ru.yandex.practicum.filmorate.repository.cache.ExistenceCacheRegistry;
+import ru.yandex.practicum.filmorate.repository.parallel.ParallelLoader;
 import ru.yandex.practicum.filmorate.rowmapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Реализация хранилища пользователей в БД.
@@ -67,6 +69,13 @@ public class UserDbStorage extends BaseDbStorage implements UserStorage {
             WHERE user_id = ?;
             """;
 
+    private static final String FIND_FRIEND_IDS_BY_USER_IDS = """
+            SELECT user_id,
+                   friend_id
+            FROM user_friends
+            WHERE user_id IN (%s);
+            """;
+
     public static final String FIND_COMMON_FRIEND_LIST_BU_USERS_ID = """
             SELECT u.*
             FROM users u
@@ -82,6 +91,14 @@ public class UserDbStorage extends BaseDbStorage implements UserStorage {
             SELECT * FROM users;
             """;
 
+    private static final String FIND_USERS_PAGE_QUERY = """
+            SELECT *
+            FROM users
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?;
+            """;
+
     public static final String FIND_USER_BY_ID = """
             SELECT *
             FROM users
@@ -99,8 +116,14 @@ public class UserDbStorage extends BaseDbStorage implements UserStorage {
             WHERE (user_id = ? AND friend_id = ?);
             """;
 
-    public UserDbStorage(JdbcTemplate jdbc) {
-        super(jdbc);
+    private final UserRowMapper userRowMapper;
+
+    public UserDbStorage(JdbcTemplate jdbc,
+                         ExistenceCacheRegistry existenceCache,
+                         UserRowMapper userRowMapper,
+                         ParallelLoader parallelLoader) {
+        super(jdbc, existenceCache, parallelLoader);
+        this.userRowMapper = userRowMapper;
     }
 
 
@@ -122,6 +145,7 @@ public class UserDbStorage extends BaseDbStorage implements UserStorage {
 
         Long userId = keyHolder.getKeyAs(Long.class);
         user.setId(userId);
+        existenceCache.registerPresent(EntityType.USER, userId);
         log.info("Successfully created user with id: {}", userId);
 
         return user;
@@ -132,29 +156,53 @@ public class UserDbStorage extends BaseDbStorage implements UserStorage {
     public Optional<User> getUser(Long id) {
         Objects.requireNonNull(id, "User id cannot be null");
 
-        UserDto userDto = jdbc.queryForObject(FIND_USER_BY_ID, new UserRowMapper(), id);
+        Optional<User> user = jdbc.query(FIND_USER_BY_ID, userRowMapper.users(), id).stream()
+                .findFirst();
 
-        if (userDto != null) {
+        if (user.isPresent()) {
             // загрузить друзей пользователя
-            loadFriends(userDto.getId());
-            return Optional.of(UserMapper.toUser(userDto));
+            user.get().setFriends(loadFriends(id));
+            return user;
         }
 
         log.warn("User with id {} not found", id);
         return Optional.empty();
     }
 
+    //--- Проверить существование пользователя -------------------------------------------------------------------------
+    @Override
+    public boolean userExists(Long id) {
+        return entityExists(id, EntityType.USER);
+    }
+
     //--- Получить список всех пользователей ---------------------------------------------------------------------------
     @Override
     public Collection<User> getAllUsers() {
-        List<UserDto> allUsers = jdbc.query(FIND_ALL_USERS_QUERY, new UserRowMapper());
+        List<User> allUsers = jdbc.query(FIND_ALL_USERS_QUERY, userRowMapper.users());
 
         // загрузить друзей для всех пользователей
-        allUsers.forEach(this::enrichUserWithFriends);
+        enrichUsersWithFriends(allUsers);
+
+        return allUsers;
+    }
+
+    //--- Получить страницу пользователей ------------------------------------------------------------------------------
+    @Override
+    public Collection<User> getUsers(Long afterId, int limit) {
+        long after = afterId != null ? afterId : 0L;
+        List<User> users = jdbc.query(FIND_USERS_PAGE_QUERY, userRowMapper.users(), after, limit);
 
-        return allUsers.stream()
-                .map(UserMapper::toUser)
-                .toList();
+        // загрузить друзей для пользователей страницы
+        enrichUsersWithFriends(users);
+
+        return users;
+    }
+
+    //--- Потоковая выгрузка всех пользователей ------------------------------------------------------------------------
+    @Override
+    public void exportUsers(Consumer<User> consumer) {
+        // друзья загружаются пакетно для каждой страницы; соединение не держится, пока страница пишется клиенту
+        exportInPages(this::getUsers, User::getId, consumer);
     }
 
     //--- Обновить пользователя ----------------------------------------------------------------------------------------
@@ -219,17 +267,15 @@ public class UserDbStorage extends BaseDbStorage implements UserStorage {
     //--- Получить список общих друзей пользователя --------------------------------------------------------------------
     @Override
     public Optional<Collection<User>> getCommonFriends(Long userId, Long friendId) {
-        List<UserDto> commonFriends = jdbc.query(
-                FIND_COMMON_FRIEND_LIST_BU_USERS_ID, new UserRowMapper(),
+        List<User> commonFriends = jdbc.query(
+                FIND_COMMON_FRIEND_LIST_BU_USERS_ID, userRowMapper.users(),
                 userId, friendId
         );
 
         // загрузить друзей для выбранных пользователей
-        commonFriends.forEach(this::enrichUserWithFriends);
+        enrichUsersWithFriends(commonFriends);
 
-        return Optional.of(commonFriends.stream()
-                .map(UserMapper::toUser)
-                .toList());
+        return Optional.of(commonFriends);
     }
 
     //--- Получить список друзей пользователя --------------------------------------------------------------------------
@@ -239,14 +285,12 @@ public class UserDbStorage extends BaseDbStorage implements UserStorage {
         checkUserExists(userId);
 
         // получить список друзей
-        List<UserDto> friends = jdbc.query(FIND_FRIEND_LIST_OF_USER_BY_USER_ID, new UserRowMapper(), userId);
+        List<User> friends = jdbc.query(FIND_FRIEND_LIST_OF_USER_BY_USER_ID, userRowMapper.users(), userId);
 
         // загрузить друзей для выбранных пользователей
-        friends.forEach(this::enrichUserWithFriends);
+        enrichUsersWithFriends(friends);
 
-        return Optional.of(friends.stream()
-                .map(UserMapper::toUser)
-                .toList());
+        return Optional.of(friends);
     }
 
 
@@ -256,11 +300,31 @@ public class UserDbStorage extends BaseDbStorage implements UserStorage {
     }
 
     private Set<Long> loadFriends(Long userId) {
-        return new HashSet<>(jdbc.queryForList(FIND_FRIEND_IDS_LIST_OF_USER_BY_USER_ID, Long.class, userId));
+        return new LongHashSet(jdbc.queryForList(FIND_FRIEND_IDS_LIST_OF_USER_BY_USER_ID, Long.class, userId));
     }
 
-    private void enrichUserWithFriends(UserDto userDto) {
-        long userId = userDto.getId();
-        userDto.setFriends(loadFriends(userId));
+    /**
+     * Загружает друзей сразу для списка пользователей: по одному запросу на порцию
+     * из {@code IN_CLAUSE_CHUNK_SIZE} идентификаторов вместо запроса на каждого пользователя.
+     * Порции могут читаться одновременно: каждая пишет только в множества своих пользователей,
+     * а сама карта после заполнения не меняется
+     */
+    private void enrichUsersWithFriends(List<User> users) {
+        if (users.isEmpty()) return;
+
+        Map<Long, LongHashSet> friendsByUser = new LinkedHashMap<>();
+        users.forEach(user -> {
+            LongHashSet friends = new LongHashSet();
+            user.setFriends(friends);
+            friendsByUser.put(user.getId(), friends);
+        });
+
+        forEachChunk(new ArrayList<>(friendsByUser.keySet()), chunk -> jdbc.query(
+                FIND_FRIEND_IDS_BY_USER_IDS.formatted(placeholders(chunk.size())),
+                rs -> {
+                    friendsByUser.get(rs.getLong("user_id")).add(rs.getLong("friend_id"));
+                },
+                chunk.toArray()
+        ));
     }
 }
@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.repository.parallel;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+
+/**
+ * Выполняет независимые запросы чтения (например, порции IN-списка) одновременно, каждый в своём
+ * виртуальном потоке. Включается свойством {@code filmorate.parallel-load.enabled=true}, по умолчанию
+ * запросы выполняются по очереди в вызывающем потоке.
+ *
+ * <p>Выполнение структурное: задачи живут не дольше вызова {@link #forEach(List, Consumer)}. Первая ошибка
+ * отменяет (прерывает) остальные задачи и после их завершения пробрасывается вызывающему как есть;
+ * прерывание вызывающего потока тоже отменяет все задачи. Одновременно выполняется не больше
+ * {@code max-parallelism} задач, чтобы один запрос не занял все соединения пула.</p>
+ *
+ * <p>Внутри транзакции задачи выполняются последовательно: соединение транзакции привязано к вызывающему
+ * потоку, и запросы из других потоков его не увидят. Запросы из дочерних потоков не попадают в области
+ * {@code QueryStats} вызывающего потока</p>
+ */
+@Component
+public class ParallelLoader {
+    private final boolean enabled;
+    private final int maxParallelism;
+    private final ThreadFactory threadFactory = Thread.ofVirtual().name("parallel-load-", 0).factory();
+
+    public ParallelLoader(@Value("${filmorate.parallel-load.enabled:false}") boolean enabled,
+                          @Value("${filmorate.parallel-load.max-parallelism:4}") int maxParallelism) {
+        if (maxParallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + maxParallelism);
+        }
+
+        this.enabled = enabled;
+        this.maxParallelism = maxParallelism;
+    }
+
+
+    /**
+     * Загрузчик, выполняющий все задачи последовательно в вызывающем потоке
+     */
+    public static ParallelLoader sequential() {
+        return new ParallelLoader(false, 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Передаёт каждый элемент {@code items} в {@code action}. Если элементов больше одного, загрузка включена
+     * и транзакции нет, вызовы выполняются одновременно, поэтому {@code action} должен быть потокобезопасным
+     */
+    public <T> void forEach(List<T> items, Consumer<T> action) {
+        if (!enabled || maxParallelism == 1 || items.size() < 2
+                || TransactionSynchronizationManager.isActualTransactionActive()) {
+            items.forEach(action);
+            return;
+        }
+
+        List<Future<Void>> tasks = new ArrayList<>(items.size());
+        // close() дожидается завершения всех задач, в том числе отменённых
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(threadFactory)) {
+            CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+            try {
+                int running = 0;
+                for (T item : items) {
+                    if (running == maxParallelism) {
+                        awaitNext(completion);
+                        running--;
+                    }
+                    tasks.add(completion.submit(() -> action.accept(item), null));
+                    running++;
+                }
+                for (; running > 0; running--) awaitNext(completion);
+            } catch (RuntimeException | Error e) {
+                tasks.forEach(task -> task.cancel(true));
+                throw e;
+            }
+        }
+    }
+
+    private static void awaitNext(CompletionService<Void> completion) {
+        try {
+            completion.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for parallel queries", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) return runtimeException;
+        if (cause instanceof Error error) throw error;
+        return new IllegalStateException("Parallel query failed", cause);
+    }
+}
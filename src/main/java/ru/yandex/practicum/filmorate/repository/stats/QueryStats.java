@@ -0,0 +1,256 @@
+package ru.yandex.practicum.filmorate.repository.stats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики SQL-запросов, прочитанных и изменённых строк и времени выполнения запросов в БД по областям:
+ * HTTP-запросам ({@code GET /films/{id}}) и методам хранилищ ({@code FilmDbStorage.getFilm}).
+ *
+ * <p>Область открывается {@link #open(String)} в текущем потоке и может быть вложенной: запрос к БД
+ * засчитывается всем открытым областям потока. Запросы из других потоков (асинхронная выгрузка)
+ * в область не попадают. При закрытии область добавляется в накопленную статистику своего имени.</p>
+ *
+ * <p>Детектор N+1: если в одной области один и тот же SQL выполняется {@code repeated-query-threshold}
+ * и более раз, это отмечается в статистике и один раз на область пишется в лог.</p>
+ *
+ * <p>Время каждого запроса также пишется в таймер {@value #STATEMENT_TIMER} с тегами {@code storage}
+ * (ближайший метод хранилища, открывший область через {@link #openStorageMethod(String)}) и {@code operation}
+ * ({@code SELECT}, {@code INSERT}, ...).</p>
+ *
+ * <p>Сбор отключается свойством {@code filmorate.query-stats.enabled=false}, тогда {@code DataSource}
+ * не оборачивается, а области не открываются</p>
+ *
+ * @see QueryStatsDataSource
+ */
+@Component
+@Slf4j
+public class QueryStats {
+    public static final String STATEMENT_TIMER = "filmorate.db.statement";
+    private static final String NO_STORAGE = "none";
+    private static final List<String> OPERATIONS = List.of("SELECT", "INSERT", "UPDATE", "DELETE", "MERGE");
+    private static final String OTHER_OPERATION = "OTHER";
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final int repeatedQueryThreshold;
+    private final Map<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+    private final Set<String> reportedRepeats = ConcurrentHashMap.newKeySet();
+    private final MeterRegistry meterRegistry;
+    // storage -> operation -> таймер; набор ключей ограничен методами хранилищ
+    private final Map<String, Map<String, Timer>> statementTimers = new ConcurrentHashMap<>();
+
+    public QueryStats(@Value("${filmorate.query-stats.enabled:true}") boolean enabled,
+                      @Value("${filmorate.query-stats.repeated-query-threshold:10}") int repeatedQueryThreshold,
+                      MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.repeatedQueryThreshold = repeatedQueryThreshold;
+        this.meterRegistry = meterRegistry;
+    }
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Открывает область в текущем потоке. Область нужно закрыть в том же потоке
+     */
+    public Scope open(String name) {
+        return open(name, false);
+    }
+
+    /**
+     * Открывает область вызова метода хранилища: её имя становится тегом {@code storage}
+     * таймера {@value #STATEMENT_TIMER} для запросов внутри
+     */
+    public Scope openStorageMethod(String name) {
+        return open(name, true);
+    }
+
+    private Scope open(String name, boolean storageMethod) {
+        Scope scope = new Scope(name, CURRENT.get(), storageMethod);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public Map<String, Stats> getStats() {
+        Map<String, Stats> stats = new TreeMap<>();
+        aggregates.forEach((name, aggregate) -> stats.put(name, aggregate.toStats()));
+        return stats;
+    }
+
+    public void reset() {
+        aggregates.clear();
+        reportedRepeats.clear();
+    }
+
+    //--- Вызовы из QueryStatsDataSource -------------------------------------------------------------------------------
+    static void onExecuted(String sql, long nanos, long rows) {
+        Scope current = CURRENT.get();
+        if (current == null) return;
+
+        String storage = null;
+        for (Scope scope = current; scope != null; scope = scope.parent) {
+            scope.statements++;
+            scope.nanos += nanos;
+            scope.rows += rows;
+            if (sql != null) scope.statementCounts.merge(sql, 1, Integer::sum);
+            if (scope.storageMethod && storage == null) storage = scope.name;
+        }
+        current.owner().statementTimer(storage != null ? storage : NO_STORAGE, sql).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    static void onRowsRead(long rows) {
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.rows += rows;
+        }
+    }
+
+    static boolean isTracking() {
+        return CURRENT.get() != null;
+    }
+
+    private Timer statementTimer(String storage, String sql) {
+        String operation = operation(sql);
+        return statementTimers
+                .computeIfAbsent(storage, ignored -> new ConcurrentHashMap<>())
+                .computeIfAbsent(operation, ignored -> Timer.builder(STATEMENT_TIMER)
+                        .description("Время выполнения SQL-запросов")
+                        .tag("storage", storage)
+                        .tag("operation", operation)
+                        .register(meterRegistry));
+    }
+
+    private static String operation(String sql) {
+        if (sql == null) return OTHER_OPERATION;
+
+        int start = 0;
+        while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) start++;
+        for (String operation : OPERATIONS) {
+            if (sql.regionMatches(true, start, operation, 0, operation.length())) return operation;
+        }
+        return OTHER_OPERATION;
+    }
+
+    private void record(Scope scope) {
+        int repeated = 0;
+        for (Map.Entry<String, Integer> statement : scope.statementCounts.entrySet()) {
+            if (statement.getValue() < repeatedQueryThreshold) continue;
+
+            repeated++;
+            if (reportedRepeats.add(scope.name + '\n' + statement.getKey())) {
+                log.warn("Possible N+1 in {}: statement executed {} times: {}",
+                        scope.name, statement.getValue(), statement.getKey().strip());
+            }
+        }
+
+        aggregates.computeIfAbsent(scope.name, name -> new Aggregate()).add(scope, repeated);
+    }
+
+    //--- Область ------------------------------------------------------------------------------------------------------
+    public final class Scope implements AutoCloseable {
+        private final Scope parent;
+        private final Map<String, Integer> statementCounts = new HashMap<>();
+        private final boolean storageMethod;
+        private String name;
+        private int statements;
+        private long rows;
+        private long nanos;
+
+        private Scope(String name, Scope parent, boolean storageMethod) {
+            this.name = name;
+            this.parent = parent;
+            this.storageMethod = storageMethod;
+        }
+
+        /**
+         * Имя, под которым область попадёт в статистику. Для HTTP-запроса шаблон пути известен только
+         * после выбора обработчика, поэтому имя можно задать перед закрытием
+         */
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        private QueryStats owner() {
+            return QueryStats.this;
+        }
+
+        @Override
+        public void close() {
+            CURRENT.set(parent);
+            record(this);
+        }
+    }
+
+    //--- Накопленная статистика ---------------------------------------------------------------------------------------
+    private static final class Aggregate {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder repeatedStatements = new LongAdder();
+
+        private void add(Scope scope, int repeated) {
+            calls.increment();
+            statements.add(scope.statements);
+            maxStatements.accumulate(scope.statements);
+            rows.add(scope.rows);
+            nanos.add(scope.nanos);
+            repeatedStatements.add(repeated);
+        }
+
+        private Stats toStats() {
+            long callCount = calls.sum();
+            long statementCount = statements.sum();
+            return new Stats(
+                    callCount,
+                    statementCount,
+                    callCount == 0 ? 0 : (double) statementCount / callCount,
+                    maxStatements.get(),
+                    rows.sum(),
+                    nanos.sum() / 1_000_000.0,
+                    repeatedStatements.sum()
+            );
+        }
+    }
+
+    /**
+     * @param repeatedStatements сколько раз в областях этого имени срабатывал детектор N+1
+     */
+    public record Stats(long calls,
+                        long statements,
+                        double statementsPerCall,
+                        long maxStatementsPerCall,
+                        long rows,
+                        double dbTimeMs,
+                        long repeatedStatements) {
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.repository.stats;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * {@link DataSource}, передающий в {@link QueryStats} каждый выполненный запрос: текст SQL, время выполнения
+ * и число строк (прочитанных из {@link ResultSet} или изменённых).
+ *
+ * <p>Один вызов {@code execute*} считается одним запросом, пакет {@code executeBatch} тоже. Запросы и строки
+ * отслеживаются только если в потоке открыта область {@link QueryStats.Scope}: вне областей
+ * (асинхронная выгрузка, загрузка кэшей при старте) оборачивается лишь соединение, а выражения
+ * и результаты отдаются драйвером без посредников</p>
+ */
+public class QueryStatsDataSource extends DelegatingDataSource {
+    private static final ClassLoader CLASS_LOADER = QueryStatsDataSource.class.getClassLoader();
+
+    public QueryStatsDataSource(DataSource target) {
+        super(target);
+    }
+
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    //--- Обёртки ------------------------------------------------------------------------------------------------------
+    private static Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(CLASS_LOADER, new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement && QueryStats.isTracking()) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                        return wrapStatement(statement, sql);
+                    }
+                    return result;
+                });
+    }
+
+    private static Statement wrapStatement(Statement statement, String preparedSql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+
+        return (Statement) Proxy.newProxyInstance(CLASS_LOADER, new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute")) {
+                        Object result = invoke(statement, method, args);
+                        return result instanceof ResultSet resultSet ? wrapResultSet(resultSet) : result;
+                    }
+
+                    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+                    long start = System.nanoTime();
+                    Object result = invoke(statement, method, args);
+                    long nanos = System.nanoTime() - start;
+
+                    QueryStats.onExecuted(sql, nanos, updatedRows(result));
+                    return result instanceof ResultSet resultSet ? wrapResultSet(resultSet) : result;
+                });
+    }
+
+    private static ResultSet wrapResultSet(ResultSet resultSet) {
+        if (!QueryStats.isTracking()) return resultSet;
+
+        return (ResultSet) Proxy.newProxyInstance(CLASS_LOADER, new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(resultSet, method, args);
+                    if (Boolean.TRUE.equals(result) && "next".equals(method.getName())) QueryStats.onRowsRead(1);
+                    return result;
+                });
+    }
+
+    private static long updatedRows(Object result) {
+        return switch (result) {
+            case Integer count -> Math.max(count, 0);
+            case Long count -> Math.max(count, 0);
+            case int[] counts -> Arrays.stream(counts).filter(count -> count > 0).asLongStream().sum();
+            case long[] counts -> Arrays.stream(counts).filter(count -> count > 0).sum();
+            case null, default -> 0;
+        };
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.repository.stats;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Оборачивает бин {@link DataSource} в {@link QueryStatsDataSource}, если сбор статистики запросов не отключён
+ */
+@Component
+public class QueryStatsDataSourcePostProcessor implements BeanPostProcessor {
+    private final boolean enabled;
+
+    public QueryStatsDataSourcePostProcessor(@Value("${filmorate.query-stats.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof DataSource dataSource && !(bean instanceof QueryStatsDataSource)) {
+            return new QueryStatsDataSource(dataSource);
+        }
+        return bean;
+    }
+}
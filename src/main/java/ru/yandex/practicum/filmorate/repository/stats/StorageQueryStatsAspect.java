@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.repository.stats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Открывает область {@link QueryStats} на каждый вызов метода хранилища ({@code @Repository}),
+ * статистика копится под именем {@code <класс>.<метод>}, например {@code FilmDbStorage.getPopularFilms}.
+ * Время вызова пишется в таймер {@value #STORAGE_TIMER} с тегом {@code method}
+ */
+@Aspect
+@Component
+public class StorageQueryStatsAspect {
+    public static final String STORAGE_TIMER = "filmorate.storage";
+
+    private final QueryStats queryStats;
+    private final MeterRegistry meterRegistry;
+    // методы BaseDbStorage общие для нескольких хранилищ, поэтому ключ включает класс
+    private final Map<ScopeKey, StorageMethod> storageMethods = new ConcurrentHashMap<>();
+
+    public StorageQueryStatsAspect(QueryStats queryStats, MeterRegistry meterRegistry) {
+        this.queryStats = queryStats;
+        this.meterRegistry = meterRegistry;
+    }
+
+
+    @Around("@within(org.springframework.stereotype.Repository)")
+    public Object collect(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!queryStats.isEnabled()) return joinPoint.proceed();
+
+        ScopeKey key = new ScopeKey(AopUtils.getTargetClass(joinPoint.getTarget()),
+                ((MethodSignature) joinPoint.getSignature()).getMethod());
+        StorageMethod storageMethod = storageMethods.computeIfAbsent(key, this::createStorageMethod);
+
+        long start = System.nanoTime();
+        try (QueryStats.Scope ignored = queryStats.openStorageMethod(storageMethod.name())) {
+            return joinPoint.proceed();
+        } finally {
+            storageMethod.timer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private StorageMethod createStorageMethod(ScopeKey key) {
+        String name = key.type().getSimpleName() + '.' + key.method().getName();
+        Timer timer = Timer.builder(STORAGE_TIMER)
+                .description("Время выполнения методов хранилищ")
+                .tag("method", name)
+                .register(meterRegistry);
+        return new StorageMethod(name, timer);
+    }
+
+    private record ScopeKey(Class<?> type, Method method) {
+    }
+
+    private record StorageMethod(String name, Timer timer) {
+    }
+}
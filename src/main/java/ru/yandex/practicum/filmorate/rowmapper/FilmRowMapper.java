@@ -2,37 +2,182 @@ package ru.yandex.practicum.filmorate.rowmapper;
 
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
-import ru.yandex.practicum.filmorate.dto.FilmDto;
-import ru.yandex.practicum.filmorate.dto.GenreDto;
-import ru.yandex.practicum.filmorate.dto.MpaRatingDto;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.repository.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
+import java.sql.Array;
+import java.sql.Date;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.HashSet;
+import java.time.LocalDate;
+import java.util.Locale;
 import java.util.Set;
 
+/**
+ * Собирает {@link Film} и {@link FilmSummary} прямо из строки запроса фильмов, без промежуточного DTO.
+ *
+ * <p>Запросы фильмов возвращают идентификаторы жанров и лайков массивами в колонках
+ * {@code genre_ids} и {@code like_ids} ({@code ARRAY_AGG}), поэтому фильм собирается из одной строки
+ * без дополнительных запросов. Жанры и рейтинги MPA берутся из справочника в памяти.</p>
+ *
+ * <p>Номера колонок определяются по метаданным один раз на запрос, а не поиском по имени на каждое поле
+ * каждой строки, поэтому {@link #films()} и {@link #summaries()} возвращают новый маппер на каждый запрос.
+ * Колонки, которых нет в запросе (например, {@code like_ids} в сокращённом представлении), пропускаются</p>
+ */
 @Component
-public class FilmRowMapper implements RowMapper<FilmDto> {
-
-    @Override
-    public FilmDto mapRow(ResultSet rs, int rowNum) throws SQLException {
-        Set<GenreDto> genres = new HashSet<>();
-        Set<Long> likes = new HashSet<>();
-
-        // жанры и лайки будут загружены и добавлены в filmDto отдельным запросом
-        return FilmDto.builder()
-                .id(rs.getLong("id"))
-                .name(rs.getString("name"))
-                .description(rs.getString("description"))
-                .releaseDate(rs.getDate("release_date").toLocalDate())
-                .duration(rs.getLong("duration"))
-                .mpa(MpaRatingDto.builder()
-                        .id(rs.getLong("mpa_id"))
-                        .name(rs.getString("mpa_name"))
-                        .description(rs.getString("mpa_description"))
-                        .build())
-                .genres(genres)
-                .likes(likes)
-                .build();
+public class FilmRowMapper {
+    private static final Object[] NO_IDS = new Object[0];
+
+    private final ReferenceDataCache referenceData;
+
+    public FilmRowMapper(ReferenceDataCache referenceData) {
+        this.referenceData = referenceData;
+    }
+
+
+    /**
+     * Маппер фильмов для одного запроса
+     */
+    public RowMapper<Film> films() {
+        FilmColumns columns = new FilmColumns();
+        return (rs, rowNum) -> mapFilm(rs, columns.resolve(rs));
+    }
+
+    /**
+     * Маппер сокращённого представления фильмов для одного запроса: число лайков берётся из {@code likes_count}
+     */
+    public RowMapper<FilmSummary> summaries() {
+        FilmColumns columns = new FilmColumns();
+        return (rs, rowNum) -> mapFilmSummary(rs, columns.resolve(rs));
+    }
+
+    // модели заполняются сеттерами: пустые множества жанров и лайков, созданные конструктором, используются
+    // как есть, а не заменяются новыми
+    private Film mapFilm(ResultSet rs, FilmColumns columns) throws SQLException {
+        Film film = new Film();
+
+        film.setId(rs.getLong(columns.id));
+        film.setName(rs.getString(columns.name));
+        film.setDescription(rs.getString(columns.description));
+        film.setReleaseDate(toLocalDate(rs.getDate(columns.releaseDate)));
+        film.setDuration(rs.getLong(columns.duration));
+        film.setMpa(toMpaRating(rs.getLong(columns.mpaRatingId)));
+        readGenres(rs, columns.genreIds, film.getGenres());
+        readLikes(rs, columns.likeIds, film);
+
+        return film;
+    }
+
+    private FilmSummary mapFilmSummary(ResultSet rs, FilmColumns columns) throws SQLException {
+        FilmSummary summary = new FilmSummary();
+
+        summary.setId(rs.getLong(columns.id));
+        summary.setName(rs.getString(columns.name));
+        summary.setDescription(rs.getString(columns.description));
+        summary.setReleaseDate(toLocalDate(rs.getDate(columns.releaseDate)));
+        summary.setDuration(rs.getLong(columns.duration));
+        summary.setMpa(toMpaRating(rs.getLong(columns.mpaRatingId)));
+        readGenres(rs, columns.genreIds, summary.getGenres());
+        summary.setLikesCount(rs.getLong(columns.likesCount));
+
+        return summary;
+    }
+
+    private void readGenres(ResultSet rs, int column, Set<Genre> genres) throws SQLException {
+        for (Object genreId : readArray(rs, column)) genres.add(toGenre(((Number) genreId).longValue()));
+    }
+
+    private static void readLikes(ResultSet rs, int column, Film film) throws SQLException {
+        Object[] userIds = readArray(rs, column);
+        if (userIds.length == 0) return;
+
+        // множество сразу нужного размера, без перехеширования при росте
+        LongHashSet likes = new LongHashSet(userIds.length);
+        for (Object userId : userIds) likes.add(((Number) userId).longValue());
+        film.setLikes(likes);
+    }
+
+    // ARRAY_AGG по пустой выборке возвращает NULL
+    private static Object[] readArray(ResultSet rs, int column) throws SQLException {
+        if (column == FilmColumns.ABSENT) return NO_IDS;
+
+        Array array = rs.getArray(column);
+        if (array == null) return NO_IDS;
+
+        try {
+            return (Object[]) array.getArray();
+        } finally {
+            array.free();
+        }
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+
+    // рейтинг берётся из справочника в памяти, поэтому запросам фильмов не нужен JOIN с mpa_ratings
+    private MpaRating toMpaRating(long mpaId) {
+        return referenceData.getMpaRating(mpaId).orElseGet(() -> {
+            MpaRating mpa = new MpaRating();
+            mpa.setId(mpaId);
+            return mpa;
+        });
+    }
+
+    // жанр берётся из справочника в памяти, поэтому агрегату жанров не нужен JOIN с genres
+    private Genre toGenre(long genreId) {
+        return referenceData.getGenre(genreId).orElseGet(() -> {
+            Genre genre = new Genre();
+            genre.setId(genreId);
+            return genre;
+        });
+    }
+
+    /**
+     * Номера колонок запроса фильмов, определяемые по первой строке
+     */
+    private static final class FilmColumns {
+        private static final int ABSENT = 0;
+
+        private boolean resolved;
+        private int id;
+        private int name;
+        private int description;
+        private int releaseDate;
+        private int duration;
+        private int mpaRatingId;
+        private int likesCount;
+        private int genreIds;
+        private int likeIds;
+
+        FilmColumns resolve(ResultSet rs) throws SQLException {
+            if (resolved) return this;
+
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                switch (metaData.getColumnLabel(column).toLowerCase(Locale.ROOT)) {
+                    case "id" -> id = column;
+                    case "name" -> name = column;
+                    case "description" -> description = column;
+                    case "release_date" -> releaseDate = column;
+                    case "duration" -> duration = column;
+                    case "mpa_rating_id" -> mpaRatingId = column;
+                    case "likes_count" -> likesCount = column;
+                    case "genre_ids" -> genreIds = column;
+                    case "like_ids" -> likeIds = column;
+                    default -> {
+                        // колонка не участвует в сборке фильма
+                    }
+                }
+            }
+
+            resolved = true;
+            return this;
+        }
     }
 }
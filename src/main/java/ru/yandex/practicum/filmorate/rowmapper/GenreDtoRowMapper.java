@@ -1,18 +0,0 @@
-package ru.yandex.practicum.filmorate.rowmapper;
-
-import org.springframework.jdbc.core.RowMapper;
-import ru.yandex.practicum.filmorate.dto.GenreDto;
-
-import java.sql.ResultSet;
-import java.sql.SQLException;
-
-public class GenreDtoRowMapper implements RowMapper<GenreDto> {
-
-    @Override
-    public GenreDto mapRow(ResultSet rs, int rowNum) throws SQLException {
-        return GenreDto.builder()
-                .id(rs.getLong("id"))
-                .name(rs.getString("name"))
-                .build();
-    }
-}
@@ -1,27 +1,76 @@
 package ru.yandex.practicum.filmorate.rowmapper;
 
 import org.springframework.jdbc.core.RowMapper;
-import ru.yandex.practicum.filmorate.dto.UserDto;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.User;
 
+import java.sql.Date;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.HashSet;
-import java.util.Set;
-
-public class UserRowMapper implements RowMapper<UserDto> {
-
-    @Override
-    public UserDto mapRow(ResultSet rs, int rowNum) throws SQLException {
-        Set<Long> friends = new HashSet<>();
-
-        // друзья будут загружены и добавлены в userDto отдельно
-        return UserDto.builder()
-                .id(rs.getLong("id"))
-                .email(rs.getString("email"))
-                .login(rs.getString("login"))
-                .name(rs.getString("name"))
-                .birthday(rs.getDate("birthday") != null ? rs.getDate("birthday").toLocalDate() : null)
-                .friends(friends)
-                .build();
+import java.util.Locale;
+
+/**
+ * Собирает {@link User} прямо из строки запроса пользователей, без промежуточного DTO.
+ *
+ * <p>Как и в {@link FilmRowMapper}, номера колонок определяются по метаданным один раз на запрос,
+ * поэтому {@link #users()} возвращает новый маппер на каждый запрос</p>
+ */
+@Component
+public class UserRowMapper {
+
+    /**
+     * Маппер пользователей для одного запроса
+     */
+    public RowMapper<User> users() {
+        UserColumns columns = new UserColumns();
+        return (rs, rowNum) -> mapUser(rs, columns.resolve(rs));
+    }
+
+    // друзья будут загружены и добавлены в пустое множество пользователя отдельно
+    private static User mapUser(ResultSet rs, UserColumns columns) throws SQLException {
+        User user = new User();
+        Date birthday = rs.getDate(columns.birthday);
+
+        user.setId(rs.getLong(columns.id));
+        user.setEmail(rs.getString(columns.email));
+        user.setLogin(rs.getString(columns.login));
+        user.setName(rs.getString(columns.name));
+        user.setBirthday(birthday != null ? birthday.toLocalDate() : null);
+
+        return user;
+    }
+
+    /**
+     * Номера колонок запроса пользователей, определяемые по первой строке
+     */
+    private static final class UserColumns {
+        private boolean resolved;
+        private int id;
+        private int email;
+        private int login;
+        private int name;
+        private int birthday;
+
+        UserColumns resolve(ResultSet rs) throws SQLException {
+            if (resolved) return this;
+
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                switch (metaData.getColumnLabel(column).toLowerCase(Locale.ROOT)) {
+                    case "id" -> id = column;
+                    case "email" -> email = column;
+                    case "login" -> login = column;
+                    case "name" -> name = column;
+                    case "birthday" -> birthday = column;
+                    default -> {
+                        // колонка не участвует в сборке пользователя
+                    }
+                }
+            }
+
+            resolved = true;
+            return this;
+        }
     }
 }
@@ -7,69 +7,152 @@ import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 import ru.yandex.practicum.filmorate.exception.LikeException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
 import ru.yandex.practicum.filmorate.repository.FilmStorage;
+import ru.yandex.practicum.filmorate.repository.FilmStorage.LikeResult;
 import ru.yandex.practicum.filmorate.repository.UserStorage;
 import ru.yandex.practicum.filmorate.validation.UpdateValidationGroup;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 @Service
 @Slf4j
 @Validated
 public class FilmService {
+    // изменения лайков одного фильма упорядочены: запись в хранилище и обновление рейтинга выполняются
+    // под одной блокировкой, иначе рейтинг может получить устаревшее число лайков после более нового
+    private static final int LIKE_LOCK_STRIPES = 64;
+
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
+    private final PopularFilmsLeaderboard leaderboard;
+    private final SingleFlight singleFlight;
+    private final PopularFilmsCache popularCache;
+    // не synchronized: под блокировкой выполняется запрос к БД, а монитор закрепил бы виртуальный поток
+    private final Lock[] likeLocks = IntStream.range(0, LIKE_LOCK_STRIPES)
+            .mapToObj(i -> new ReentrantLock())
+            .toArray(Lock[]::new);
 
     @Autowired
-    public FilmService(FilmStorage filmStorage, UserStorage userStorage) {
+    public FilmService(FilmStorage filmStorage,
+                       UserStorage userStorage,
+                       PopularFilmsLeaderboard leaderboard,
+                       SingleFlight singleFlight,
+                       PopularFilmsCache popularCache) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
+        this.leaderboard = leaderboard;
+        this.singleFlight = singleFlight;
+        this.popularCache = popularCache;
     }
 
 
     public Film create(@Valid Film film) {
         Film createdFilm = filmStorage.createFilm(film);
+        leaderboard.set(createdFilm.getId(), 0);
+        popularCache.markStale();
         log.info("Film created: {}", createdFilm);
         return createdFilm;
     }
 
     public void addLike(Long filmId, Long userId) {
         validateFilmAndUserExist(filmId, userId);
-        filmStorage.addLike(filmId, userId)
-                .orElseThrow(() -> new LikeException("Failed to add like"));
+        updateLikes(filmId, () -> filmStorage.addLike(filmId, userId)
+                .orElseThrow(() -> new LikeException("Failed to add like")));
         log.info("Like added to film {} by user {}", filmId, userId);
     }
 
     public Optional<Film> getFilm(Long id) {
-        return filmStorage.getFilm(id);
+        return singleFlight.execute("film", id, () -> filmStorage.getFilm(id), film -> film.map(Film::copy));
     }
 
     public Collection<Film> findAll() {
         return filmStorage.getAllFilms();
     }
 
+    public CursorPage<Film> findPage(Long after, int limit) {
+        CursorPage.check(after, limit);
+        return CursorPage.of(new ArrayList<>(filmStorage.getFilms(after, limit + 1)), limit, Film::getId);
+    }
+
+    public void exportAll(Consumer<Film> consumer) {
+        filmStorage.exportFilms(consumer);
+    }
+
     public Collection<Film> getPopularFilms(int count) {
-        if (count <= 0) throw new IllegalArgumentException("Count must be positive");
-        return filmStorage.getPopularFilms(count);
+        if (count <= 0) throw new ValidationException("Count must be positive");
+        // порядок берётся из рейтинга в памяти, из хранилища загружаются только сами фильмы;
+        // после лайка список может один раз прийти из кэша прежним, пока он обновляется в фоне
+        return popularCache.get(count, size -> singleFlight.execute("popular", size,
+                () -> filmStorage.getFilmsByIds(leaderboard.top(size))));
+    }
+
+    public Optional<FilmSummary> getFilmSummary(Long id) {
+        return filmStorage.getFilmSummary(id);
+    }
+
+    public Collection<FilmSummary> findAllSummaries() {
+        return filmStorage.getAllFilmSummaries();
+    }
+
+    public CursorPage<FilmSummary> findSummaryPage(Long after, int limit) {
+        CursorPage.check(after, limit);
+        return CursorPage.of(new ArrayList<>(filmStorage.getFilmSummaries(after, limit + 1)), limit,
+                FilmSummary::getId);
+    }
+
+    public Collection<FilmSummary> getPopularFilmSummaries(int count) {
+        if (count <= 0) throw new ValidationException("Count must be positive");
+        return singleFlight.execute("popular-summary", count,
+                () -> filmStorage.getFilmSummariesByIds(leaderboard.top(count)));
+    }
+
+    public CursorPage<Long> findLikesPage(Long filmId, Long after, int limit) {
+        CursorPage.check(after, limit);
+        if (!filmStorage.filmExists(filmId)) throw new NotFoundException("Film not found");
+        return CursorPage.of(new ArrayList<>(filmStorage.getLikes(filmId, after, limit + 1)), limit,
+                userId -> userId);
     }
 
     public Film update(@Validated(UpdateValidationGroup.class) Film film) {
         Film updatedFilm = filmStorage.updateFilm(film);
+        popularCache.markStale();
         log.info("Film updated: {}", updatedFilm);
         return updatedFilm;
     }
 
     public void removeLike(Long filmId, Long userId) {
         validateFilmAndUserExist(filmId, userId);
-        filmStorage.removeLike(filmId, userId)
-                .orElseThrow(() -> new LikeException("Like not found"));
+        updateLikes(filmId, () -> filmStorage.removeLike(filmId, userId)
+                .orElseThrow(() -> new LikeException("Like not found")));
         log.debug("Like removed from film {} by user {}", filmId, userId);
     }
 
+    private void updateLikes(Long filmId, Supplier<LikeResult> update) {
+        Lock lock = likeLocks[Math.floorMod(Long.hashCode(filmId), LIKE_LOCK_STRIPES)];
+        lock.lock();
+        try {
+            LikeResult result = update.get();
+            if (!result.changed()) return;
+            leaderboard.set(filmId, result.likesCount());
+            popularCache.markStale();
+        } finally {
+            lock.unlock();
+        }
+    }
+
     private void validateFilmAndUserExist(Long filmId, Long userId) {
-        if (filmStorage.getFilm(filmId).isEmpty()) throw new NotFoundException("Film not found");
-        if (userStorage.getUser(userId).isEmpty()) throw new NotFoundException("User not found");
+        if (!filmStorage.filmExists(filmId)) throw new NotFoundException("Film not found");
+        if (!userStorage.userExists(userId)) throw new NotFoundException("User not found");
     }
 }
@@ -3,26 +3,26 @@ package ru.yandex.practicum.filmorate.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.repository.GenreStorage;
+import ru.yandex.practicum.filmorate.repository.cache.ReferenceDataCache;
 
 import java.util.Collection;
 import java.util.Optional;
 
 @Service
 public class GenreService {
-    private final GenreStorage genreStorage;
+    private final ReferenceDataCache referenceData;
 
     @Autowired
-    public GenreService(GenreStorage genreStorage) {
-        this.genreStorage = genreStorage;
+    public GenreService(ReferenceDataCache referenceData) {
+        this.referenceData = referenceData;
     }
 
 
     public Optional<Genre> getGenre(Long id) {
-        return genreStorage.getGenre(id);
+        return referenceData.getGenre(id);
     }
 
     public Collection<Genre> findAll() {
-        return genreStorage.getAllGenres();
+        return referenceData.getAllGenres();
     }
 }
@@ -2,25 +2,25 @@ package ru.yandex.practicum.filmorate.service;
 
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.MpaRating;
-import ru.yandex.practicum.filmorate.repository.MpaRatingStorage;
+import ru.yandex.practicum.filmorate.repository.cache.ReferenceDataCache;
 
 import java.util.Collection;
 import java.util.Optional;
 
 @Service
 public class MpaRatingService {
-    private final MpaRatingStorage mpaRatingStorage;
+    private final ReferenceDataCache referenceData;
 
-    public MpaRatingService(MpaRatingStorage mpaRatingStorage) {
-        this.mpaRatingStorage = mpaRatingStorage;
+    public MpaRatingService(ReferenceDataCache referenceData) {
+        this.referenceData = referenceData;
     }
 
 
     public Optional<MpaRating> getMpaRating(Long id) {
-        return mpaRatingStorage.getMpaRating(id);
+        return referenceData.getMpaRating(id);
     }
 
     public Collection<MpaRating> findAll() {
-        return mpaRatingStorage.getAllMpaRatings();
+        return referenceData.getAllMpaRatings();
     }
 }
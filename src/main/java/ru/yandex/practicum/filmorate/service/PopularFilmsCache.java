@@ -0,0 +1,211 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Кэш списка популярных фильмов с обновлением в фоне (stale-while-revalidate).
+ *
+ * <p>Размер запроса округляется вверх до ближайшей корзины ({@code filmorate.popular-cache.buckets}),
+ * в кэше хранится список размера корзины, из которого отдаются первые {@code count} фильмов. Списки больше
+ * последней корзины не кэшируются.</p>
+ *
+ * <p>Список младше {@code fresh-for} отдаётся как есть. Более старый список тоже отдаётся сразу, но один раз
+ * на корзину запускается его обновление в виртуальном потоке. Список старше {@code max-stale} не отдаётся:
+ * он загружается заново в потоке запроса, так же как при первом обращении. Ошибка фонового обновления
+ * пишется в лог, прежний список продолжает отдаваться до {@code max-stale}. Загрузка, закончившаяся позже
+ * более новой, не заменяет её список.</p>
+ *
+ * <p>Изменения фильмов и лайков не сбрасывают корзины, а помечают их списки устаревшими ({@link #markStale()}):
+ * следующее обращение отдаёт прежний список и запускает обновление в фоне, поэтому при частых лайках
+ * чтения не промахиваются, а на корзину выполняется не больше одного обновления одновременно. В других
+ * экземплярах приложения изменение становится видно через {@code fresh-for}. Полный сброс
+ * ({@link #invalidate()}) нужен только после пересборки рейтинга; списки, загрузка которых началась
+ * до сброса, в кэш не попадают.</p>
+ *
+ * <p>Возраст каждого отданного списка пишется в таймер {@value #STALENESS_TIMER}, исход обращения - в счётчик
+ * {@value #REQUESTS_COUNTER} с тегом {@code result}: {@code fresh}, {@code stale}, {@code miss},
+ * {@code expired}, {@code bypass}. Кэш отключается свойством {@code filmorate.popular-cache.enabled=false}</p>
+ */
+@Component
+@Slf4j
+public class PopularFilmsCache {
+    public static final String STALENESS_TIMER = "filmorate.popular_cache.staleness";
+    public static final String REQUESTS_COUNTER = "filmorate.popular_cache.requests";
+
+    private final boolean enabled;
+    private final List<Integer> buckets;
+    private final long freshForNanos;
+    private final long maxStaleNanos;
+    private final Executor refreshExecutor;
+    private final LongSupplier nanoTime;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<Integer> refreshing = ConcurrentHashMap.newKeySet();
+    // номер сброса кэша: список, загрузка которого началась до сброса, не сохраняется
+    private final AtomicLong generation = new AtomicLong();
+    // время последнего изменения: списки, загрузка которых началась раньше, обновляются в фоне
+    private final AtomicLong changedAt;
+    private final Timer staleness;
+    private final Map<String, Counter> requests = new HashMap<>();
+
+    @Autowired
+    public PopularFilmsCache(@Value("${filmorate.popular-cache.enabled:true}") boolean enabled,
+                             @Value("${filmorate.popular-cache.buckets:10,50,100,500,1000}") List<Integer> buckets,
+                             @Value("${filmorate.popular-cache.fresh-for:5s}") Duration freshFor,
+                             @Value("${filmorate.popular-cache.max-stale:30s}") Duration maxStale,
+                             MeterRegistry meterRegistry) {
+        this(enabled, buckets, freshFor, maxStale, meterRegistry,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("popular-refresh-", 0).factory()),
+                System::nanoTime);
+    }
+
+    public PopularFilmsCache(boolean enabled,
+                             List<Integer> buckets,
+                             Duration freshFor,
+                             Duration maxStale,
+                             MeterRegistry meterRegistry,
+                             Executor refreshExecutor,
+                             LongSupplier nanoTime) {
+        if (maxStale.compareTo(freshFor) < 0) {
+            throw new IllegalArgumentException("max-stale must not be shorter than fresh-for");
+        }
+
+        this.enabled = enabled;
+        this.buckets = buckets.stream().sorted().toList();
+        this.freshForNanos = freshFor.toNanos();
+        this.maxStaleNanos = maxStale.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        this.nanoTime = nanoTime;
+        this.changedAt = new AtomicLong(nanoTime.getAsLong());
+        for (String result : List.of("fresh", "stale", "miss", "expired", "bypass")) {
+            requests.put(result, Counter.builder(REQUESTS_COUNTER)
+                    .description("Обращения к кэшу популярных фильмов")
+                    .tag("result", result)
+                    .register(meterRegistry));
+        }
+        this.staleness = Timer.builder(STALENESS_TIMER)
+                .description("Возраст отданного списка популярных фильмов")
+                .register(meterRegistry);
+    }
+
+
+    /**
+     * Выключенный кэш: каждый список загружается заново
+     */
+    public static PopularFilmsCache disabled() {
+        return new PopularFilmsCache(false, List.of(), Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry(),
+                Runnable::run, System::nanoTime);
+    }
+
+    /**
+     * Возвращает первые {@code count} популярных фильмов
+     *
+     * @param loader загружает список заданного размера
+     */
+    public Collection<Film> get(int count, IntFunction<Collection<Film>> loader) {
+        Integer bucket = enabled ? bucket(count) : null;
+        if (bucket == null) {
+            if (enabled) count("bypass");
+            return loader.apply(count);
+        }
+
+        Entry entry = entries.get(bucket);
+        long now = nanoTime.getAsLong();
+        if (entry == null || now - entry.loadedAt() > maxStaleNanos) {
+            count(entry == null ? "miss" : "expired");
+            entry = load(bucket, loader);
+        } else if (now - entry.loadedAt() > freshForNanos || entry.loadedAt() - changedAt.get() < 0) {
+            count("stale");
+            refreshAsync(bucket, loader);
+        } else {
+            count("fresh");
+        }
+
+        staleness.record(Math.max(0, nanoTime.getAsLong() - entry.loadedAt()), TimeUnit.NANOSECONDS);
+        List<Film> films = entry.films();
+        return films.subList(0, Math.min(count, films.size()));
+    }
+
+    /**
+     * Помечает списки всех корзин устаревшими после изменения фильмов или лайков. Следующее обращение
+     * к корзине отдаст прежний список (не старше {@code max-stale}) и обновит его в фоне
+     */
+    public void markStale() {
+        changedAt.accumulateAndGet(nanoTime.getAsLong(), (current, now) -> now - current > 0 ? now : current);
+    }
+
+    /**
+     * Сбрасывает все корзины: следующие обращения загрузят списки заново
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    private Integer bucket(int count) {
+        for (Integer bucket : buckets) {
+            if (count <= bucket) return bucket;
+        }
+        return null;
+    }
+
+    private Entry load(int bucket, IntFunction<Collection<Film>> loader) {
+        // возраст считается от начала загрузки: список не новее момента, когда его начали читать
+        long loadGeneration = generation.get();
+        long startedAt = nanoTime.getAsLong();
+        Entry entry = new Entry(List.copyOf(loader.apply(bucket)), startedAt);
+        // медленная загрузка не заменяет более новый список и не возвращает список, сброшенный во время чтения
+        entries.compute(bucket, (key, current) -> {
+            if (generation.get() != loadGeneration) return current;
+            return current == null || current.loadedAt() < entry.loadedAt() ? entry : current;
+        });
+        return entry;
+    }
+
+    private void refreshAsync(int bucket, IntFunction<Collection<Film>> loader) {
+        if (!refreshing.add(bucket)) return;
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(bucket, loader);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to refresh popular films for bucket {}: {}", bucket, e.getMessage());
+                } finally {
+                    refreshing.remove(bucket);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(bucket);
+            log.warn("Failed to schedule popular films refresh for bucket {}: {}", bucket, e.getMessage());
+        }
+    }
+
+    private void count(String result) {
+        requests.get(result).increment();
+    }
+
+    private record Entry(List<Film> films, long loadedAt) {
+    }
+}
@@ -0,0 +1,182 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.FilmStorage;
+
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Рейтинг популярности фильмов, который хранится в памяти приложения.
+ *
+ * <p>Фильмы упорядочены по числу лайков (по убыванию), при равенстве - по идентификатору (по убыванию),
+ * так же как в запросе популярных фильмов к БД. Рейтинг заполняется из хранилища при старте приложения
+ * и далее обновляется абсолютным числом лайков, которое хранилище вернуло при создании фильма и
+ * добавлении/удалении лайка, поэтому первые {@code count} позиций возвращаются за O(count) без обращения к БД.</p>
+ *
+ * <p>Пересборка читает хранилище без блокировки и подменяет рейтинг целиком. Значения, пришедшие
+ * во время чтения, могут быть новее прочитанного снимка, поэтому они накладываются на новый рейтинг
+ * перед подменой.</p>
+ *
+ * <p>Рейтинг учитывает только изменения, прошедшие через этот экземпляр приложения. Если данные
+ * меняются в обход него, рейтинг нужно пересобрать методом {@link #rebuild()}</p>
+ */
+@Component
+@Slf4j
+public class PopularFilmsLeaderboard {
+    private static final Comparator<Entry> BY_LIKES_DESC_THEN_ID_DESC = Comparator
+            .comparingLong(Entry::likes).reversed()
+            .thenComparing(Comparator.comparingLong(Entry::filmId).reversed());
+
+    private final FilmStorage filmStorage;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // пересборки выполняются по одной
+    private final Lock rebuildLock = new ReentrantLock();
+
+    private NavigableSet<Entry> ranking = new TreeSet<>(BY_LIKES_DESC_THEN_ID_DESC);
+    private Map<Long, Long> likesByFilm = new HashMap<>();
+    // значения, пришедшие во время пересборки; null, если пересборка не идёт
+    private Map<Long, Long> setDuringRebuild;
+    private boolean ready;
+
+    public PopularFilmsLeaderboard(FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * Полностью пересобирает рейтинг по данным хранилища
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                setDuringRebuild = new HashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Map<Long, Long> likesCounts;
+            try {
+                likesCounts = new HashMap<>(filmStorage.getLikesCounts());
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    setDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            NavigableSet<Entry> newRanking = new TreeSet<>(BY_LIKES_DESC_THEN_ID_DESC);
+            likesCounts.forEach((filmId, likes) -> newRanking.add(new Entry(likes, filmId)));
+
+            lock.writeLock().lock();
+            try {
+                setDuringRebuild.forEach((filmId, likes) -> put(newRanking, likesCounts, filmId, likes));
+                ranking = newRanking;
+                likesByFilm = likesCounts;
+                setDuringRebuild = null;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Popular films leaderboard rebuilt: {} films", likesCounts.size());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает идентификаторы {@code count} самых популярных фильмов
+     */
+    public List<Long> top(int count) {
+        ensureReady();
+
+        lock.readLock().lock();
+        try {
+            List<Long> filmIds = new ArrayList<>(Math.min(count, ranking.size()));
+            Iterator<Entry> iterator = ranking.iterator();
+            while (filmIds.size() < count && iterator.hasNext()) {
+                filmIds.add(iterator.next().filmId());
+            }
+            return filmIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает число лайков фильма, учтённое в рейтинге; 0 - для фильма, которого в рейтинге нет
+     */
+    public long likesCount(Long filmId) {
+        ensureReady();
+
+        lock.readLock().lock();
+        try {
+            return likesByFilm.getOrDefault(filmId, 0L);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Устанавливает число лайков фильма. Значение абсолютное, поэтому повторный вызов
+     * или вызов во время пересборки не приводит к двойному учёту лайка. Вызовы для одного фильма
+     * должны быть упорядочены так же, как изменения в хранилище: более раннее значение, установленное
+     * последним, остаётся в рейтинге до пересборки
+     */
+    public void set(Long filmId, long likes) {
+        lock.writeLock().lock();
+        try {
+            if (setDuringRebuild != null) setDuringRebuild.put(filmId, likes);
+            // рейтинг ещё не собран: изменение уже есть в хранилище и будет учтено при первой сборке
+            if (ready) put(ranking, likesByFilm, filmId, likes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void put(NavigableSet<Entry> ranking, Map<Long, Long> likesByFilm, Long filmId, long likes) {
+        Long oldLikes = likesByFilm.put(filmId, likes);
+        if (oldLikes != null) ranking.remove(new Entry(oldLikes, filmId));
+        ranking.add(new Entry(likes, filmId));
+    }
+
+    private void ensureReady() {
+        if (isReady()) return;
+
+        rebuildLock.lock();
+        try {
+            // рейтинг мог собрать другой поток, пока этот ждал
+            if (!isReady()) rebuild();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record Entry(long likes, long filmId) {
+    }
+}
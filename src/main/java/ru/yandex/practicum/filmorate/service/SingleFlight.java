@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Объединение одинаковых одновременных чтений (single-flight): пока выполняется вызов с ключом
+ * {@code (операция, аргумент)}, остальные вызовы с тем же ключом не идут в хранилище, а ждут его результат
+ * или исключение. Завершённый вызов сразу забывается, поэтому результаты не кэшируются: следующий вызов
+ * после завершения выполняется заново.
+ *
+ * <p>Вызов выполняется в потоке первого запроса. Ожидающие ждут не дольше таймаута своей операции
+ * ({@code filmorate.single-flight.timeouts}, например {@code film=1s, popular=3s}, для остальных
+ * операций {@code filmorate.single-flight.timeout}) и затем получают {@link ServiceUnavailableException};
+ * сам вызов при этом не прерывается.</p>
+ *
+ * <p>Результат разделяется между запросами, поэтому его нельзя изменять; изменяемые модели передаются
+ * с функцией копирования, и тогда каждый ожидающий получает свою копию. Число вызовов по операциям
+ * публикуется счётчиком {@value #CALLS_COUNTER} с тегом {@code result}: {@code leader} - вызов выполнен,
+ * {@code shared} - получен результат чужого вызова, {@code timeout} - ожидание прервано таймаутом.
+ * Объединение отключается свойством {@code filmorate.single-flight.enabled=false}</p>
+ */
+@Component
+public class SingleFlight {
+    public static final String CALLS_COUNTER = "filmorate.single_flight.calls";
+
+    private final boolean enabled;
+    private final Duration defaultTimeout;
+    private final Map<String, Duration> timeouts = new HashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Map<FlightKey, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public SingleFlight(@Value("${filmorate.single-flight.enabled:true}") boolean enabled,
+                        @Value("${filmorate.single-flight.timeout:2s}") Duration defaultTimeout,
+                        @Value("${filmorate.single-flight.timeouts:}") List<String> timeouts,
+                        MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.defaultTimeout = defaultTimeout;
+        this.meterRegistry = meterRegistry;
+
+        for (String timeout : timeouts) {
+            if (timeout.isBlank()) continue;
+
+            String[] parts = timeout.split("=", 2);
+            if (parts.length != 2) throw new IllegalArgumentException("Expected operation=timeout: " + timeout);
+            this.timeouts.put(parts[0].strip(), DurationStyle.detectAndParse(parts[1].strip()));
+        }
+    }
+
+
+    /**
+     * Объединение выключено: каждый вызов выполняется сам
+     */
+    public static SingleFlight disabled() {
+        return new SingleFlight(false, Duration.ZERO, List.of(), new SimpleMeterRegistry());
+    }
+
+    /**
+     * Выполняет {@code call} или, если такой же вызов уже выполняется, ждёт его результат
+     *
+     * @param operation имя операции: задаёт таймаут ожидания и тег метрик
+     * @param key       аргументы вызова, должны корректно реализовывать {@code equals} и {@code hashCode}
+     */
+    public <T> T execute(String operation, Object key, Supplier<T> call) {
+        return execute(operation, key, call, UnaryOperator.identity());
+    }
+
+    /**
+     * То же, что {@link #execute(String, Object, Supplier)}, но ожидающие получают не общий результат,
+     * а его копию, сделанную {@code copy}: выполнивший вызов запрос получает сам результат
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object key, Supplier<T> call, UnaryOperator<T> copy) {
+        if (!enabled) return call.get();
+
+        FlightKey flightKey = new FlightKey(operation, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = flights.putIfAbsent(flightKey, flight);
+        if (inFlight != null) return copy.apply((T) await(operation, inFlight));
+
+        counters(operation).leader().increment();
+        try {
+            T result = call.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(flightKey, flight);
+        }
+    }
+
+    /**
+     * Число выполняющихся сейчас вызовов
+     */
+    public int getInFlight() {
+        return flights.size();
+    }
+
+    private Object await(String operation, CompletableFuture<Object> inFlight) {
+        Duration timeout = timeouts.getOrDefault(operation, defaultTimeout);
+        try {
+            Object result = inFlight.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            counters(operation).shared().increment();
+            return result;
+        } catch (TimeoutException e) {
+            counters(operation).timeout().increment();
+            throw new ServiceUnavailableException(String.format(
+                    "Timed out after %d ms waiting for in-flight %s request", timeout.toMillis(), operation));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight " + operation + " request", e);
+        } catch (ExecutionException e) {
+            // ожидающие получают то же исключение, что и выполнявший вызов запрос
+            counters(operation).shared().increment();
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Counters counters(String operation) {
+        return counters.computeIfAbsent(operation, ignored -> new Counters(
+                counter(operation, "leader"),
+                counter(operation, "shared"),
+                counter(operation, "timeout")));
+    }
+
+    private Counter counter(String operation, String result) {
+        return Counter.builder(CALLS_COUNTER)
+                .description("Вызовы хранилища через объединение одинаковых чтений")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record FlightKey(String operation, Object key) {
+    }
+
+    private record Counters(Counter leader, Counter shared, Counter timeout) {
+    }
+}
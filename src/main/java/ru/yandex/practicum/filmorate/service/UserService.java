@@ -8,22 +8,28 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.RequestBody;
 import ru.yandex.practicum.filmorate.exception.FriendshipException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.repository.UserStorage;
 import ru.yandex.practicum.filmorate.validation.UpdateValidationGroup;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @Validated
 public class UserService {
     private final UserStorage userStorage;
+    private final SingleFlight singleFlight;
 
     @Autowired
-    public UserService(UserStorage userStorage) {
+    public UserService(UserStorage userStorage, SingleFlight singleFlight) {
         this.userStorage = userStorage;
+        this.singleFlight = singleFlight;
     }
 
 
@@ -34,7 +40,7 @@ public class UserService {
     }
 
     public User getUser(Long userId) {
-        return userStorage.getUser(userId)
+        return singleFlight.execute("user", userId, () -> userStorage.getUser(userId), user -> user.map(User::copy))
                 .orElseThrow(() -> new NotFoundException("User not found"));
     }
 
@@ -42,6 +48,15 @@ public class UserService {
         return userStorage.getAllUsers();
     }
 
+    public CursorPage<User> findPage(Long after, int limit) {
+        CursorPage.check(after, limit);
+        return CursorPage.of(new ArrayList<>(userStorage.getUsers(after, limit + 1)), limit, User::getId);
+    }
+
+    public void exportAll(Consumer<User> consumer) {
+        userStorage.exportUsers(consumer);
+    }
+
     public User update(@Validated(UpdateValidationGroup.class) @RequestBody User user) {
         Optional<User> updatedUser = userStorage.updateUser(user);
         if (updatedUser.isEmpty())
@@ -68,7 +83,11 @@ public class UserService {
     }
 
     public Collection<User> getFriends(Long userId) {
-        return userStorage.getFriends(userId)
+        return singleFlight.execute("friends", userId, () -> userStorage.getFriends(userId), UserService::copyFriends)
                 .orElseThrow(() -> new NotFoundException("User not found"));
     }
+
+    private static Optional<Collection<User>> copyFriends(Optional<Collection<User>> friends) {
+        return friends.map(users -> users.stream().map(User::copy).collect(Collectors.toCollection(ArrayList::new)));
+    }
 }
@@ -0,0 +1,291 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Множество примитивных {@code long} на открытой адресации с линейным пробированием.
+ *
+ * <p>Значения хранятся прямо в массиве {@code long[]} без упаковки в {@link Long} и без узлов,
+ * поэтому элемент занимает 8-16 байт против ~50 байт в {@link HashSet}. Используется для лайков
+ * фильмов и друзей пользователей, где множества могут содержать сотни тысяч идентификаторов.</p>
+ *
+ * <p>Класс реализует {@link Set}{@code <Long>}: существующий код и сериализация в JSON работают
+ * с ним как с обычным множеством, а горячие пути используют примитивные методы
+ * {@link #add(long)}, {@link #contains(long)}, {@link #remove(long)} и {@link #forEachLong(LongConsumer)}.
+ * Порядок обхода не гарантируется, в JSON значения пишутся по возрастанию - так же, как их отдают
+ * запросы с {@code ARRAY_AGG(... ORDER BY ...)} и как {@link HashSet} обходил небольшие id. Класс не потокобезопасен</p>
+ */
+@JsonSerialize(using = LongHashSet.SortedJsonSerializer.class)
+public class LongHashSet extends AbstractSet<Long> {
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    // пустая ячейка массива; само значение 0 хранится отдельным флагом
+    private static final long EMPTY = 0L;
+    // 2^64 / золотое сечение: умножение перемешивает биты id, старшие биты произведения дают номер ячейки
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    // 64 - log2(ёмкости): сдвиг, оставляющий от произведения номер ячейки
+    private int shift;
+    private boolean containsEmptyKey;
+    private int size;
+    private int resizeThreshold;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongHashSet(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public LongHashSet(Collection<Long> values) {
+        if (values instanceof LongHashSet other) {
+            // копия без перехеширования и упаковки значений
+            keys = other.keys.clone();
+            shift = other.shift;
+            containsEmptyKey = other.containsEmptyKey;
+            size = other.size;
+            resizeThreshold = other.resizeThreshold;
+            return;
+        }
+
+        allocate(capacityFor(values.size()));
+        addAll(values);
+    }
+
+
+    /**
+     * Возвращает {@code values}, если это уже {@link LongHashSet}, иначе - копию в {@link LongHashSet}.
+     * Для {@code null} возвращает пустое множество
+     */
+    public static LongHashSet from(Collection<Long> values) {
+        if (values instanceof LongHashSet longSet) return longSet;
+        return values != null ? new LongHashSet(values) : new LongHashSet();
+    }
+
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsEmptyKey) return false;
+            containsEmptyKey = true;
+            size++;
+            return true;
+        }
+
+        int mask = keys.length - 1;
+        int index = slot(value);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == value) return false;
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = value;
+        if (++size > resizeThreshold) allocateAndRehash(keys.length << 1);
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) return containsEmptyKey;
+
+        int mask = keys.length - 1;
+        int index = slot(value);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == value) return true;
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!containsEmptyKey) return false;
+            containsEmptyKey = false;
+            size--;
+            return true;
+        }
+
+        int mask = keys.length - 1;
+        int index = slot(value);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == value) {
+                keys[index] = EMPTY;
+                size--;
+                shiftBack(index, mask);
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public void forEachLong(LongConsumer action) {
+        if (containsEmptyKey) action.accept(EMPTY);
+        for (long key : keys) {
+            if (key != EMPTY) action.accept(key);
+        }
+    }
+
+    public long[] toSortedLongArray() {
+        long[] values = toLongArray();
+        Arrays.sort(values);
+        return values;
+    }
+
+    public long[] toLongArray() {
+        long[] values = new long[size];
+        int[] position = {0};
+        forEachLong(value -> values[position[0]++] = value);
+        return values;
+    }
+
+    @Override
+    public boolean add(Long value) {
+        return add(value.longValue());
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return value instanceof Long longValue && contains(longValue.longValue());
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        return value instanceof Long longValue && remove(longValue.longValue());
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Long> filter) {
+        // удаление со сдвигом ломает обход массива, поэтому удаляемые значения сначала собираются
+        long[] toRemove = Arrays.stream(toLongArray())
+                .filter(filter::test)
+                .toArray();
+        for (long value : toRemove) remove(value);
+        return toRemove.length > 0;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> values) {
+        return removeIf(values::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> values) {
+        return removeIf(value -> !values.contains(value));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        containsEmptyKey = false;
+        size = 0;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<>() {
+            private int index = containsEmptyKey ? -1 : nextIndex(0);
+
+            @Override
+            public boolean hasNext() {
+                return index < keys.length;
+            }
+
+            @Override
+            public Long next() {
+                if (!hasNext()) throw new NoSuchElementException();
+
+                long value = index < 0 ? EMPTY : keys[index];
+                index = nextIndex(index + 1);
+                return value;
+            }
+
+            private int nextIndex(int from) {
+                int i = from;
+                while (i < keys.length && keys[i] == EMPTY) i++;
+                return i;
+            }
+        };
+    }
+
+    /**
+     * Сдвигает назад элементы цепочки пробирования после удалённой ячейки, чтобы поиск не обрывался на пустой ячейке
+     */
+    private void shiftBack(int removedIndex, int mask) {
+        int gap = removedIndex;
+        int index = (gap + 1) & mask;
+
+        while (keys[index] != EMPTY) {
+            int home = slot(keys[index]);
+            // элемент можно перенести в дыру, если его исходная ячейка не лежит между дырой и текущей позицией
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                keys[index] = EMPTY;
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void allocateAndRehash(int capacity) {
+        long[] oldKeys = keys;
+        allocate(capacity);
+
+        int mask = keys.length - 1;
+        for (long key : oldKeys) {
+            if (key == EMPTY) continue;
+
+            int index = slot(key);
+            while (keys[index] != EMPTY) index = (index + 1) & mask;
+            keys[index] = key;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) capacity <<= 1;
+        return capacity;
+    }
+
+    /**
+     * Возвращает исходную ячейку значения. Мультипликативное (фибоначчиево) хеширование разносит
+     * последовательные id по всему массиву, поэтому плотные диапазоны id не образуют длинных цепочек пробирования
+     */
+    private int slot(long value) {
+        return (int) ((value * HASH_MULTIPLIER) >>> shift);
+    }
+
+    /**
+     * Пишет множество JSON-массивом чисел по возрастанию
+     */
+    public static class SortedJsonSerializer extends StdSerializer<LongHashSet> {
+        public SortedJsonSerializer() {
+            super(LongHashSet.class);
+        }
+
+        @Override
+        public void serialize(LongHashSet set, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            long[] values = set.toSortedLongArray();
+            generator.writeArray(values, 0, values.length);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+-- liquibase formatted sql
+
+-- changeset smirnovs:003-films-likes-count
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count BIGINT NOT NULL DEFAULT 0;
+
+UPDATE films f
+SET likes_count = (
+    SELECT COUNT(*)
+    FROM film_likes fl
+    WHERE fl.film_id = f.id
+);
+
+CREATE INDEX IF NOT EXISTS idx_films_likes_count ON films(likes_count DESC, id DESC);
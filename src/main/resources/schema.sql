@@ -21,6 +21,7 @@ CREATE TABLE IF NOT EXISTS films (
     release_date DATE,
     duration BIGINT NOT NULL,
     mpa_rating_id INTEGER REFERENCES mpa_ratings(id),
+    likes_count BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT duration_positive CHECK (duration > 0)
 );
 
@@ -49,6 +50,7 @@ CREATE TABLE IF NOT EXISTS film_likes (
 );
 
 CREATE INDEX IF NOT EXISTS idx_films_mpa_rating ON films(mpa_rating_id);
+CREATE INDEX IF NOT EXISTS idx_films_likes_count ON films(likes_count DESC, id DESC);
 CREATE INDEX IF NOT EXISTS idx_film_genres_film ON film_genres(film_id);
 CREATE INDEX IF NOT EXISTS idx_film_genres_genre ON film_genres(genre_id);
 CREATE INDEX IF NOT EXISTS idx_user_friends_user ON user_friends(user_id);
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Precorrelation;
+import ru.yandex.practicum.filmorate.logging.AsyncHttpLogWriter;
+import ru.yandex.practicum.filmorate.logging.HttpLogSettings;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncHttpLogWriterTest {
+
+    @Test
+    public void testEntriesAreWrittenInOrderBeforeClose() throws Exception {
+        RecordingWriter delegate = new RecordingWriter(null);
+        AsyncHttpLogWriter writer = new AsyncHttpLogWriter(delegate, settings(true, 1.0), 100);
+
+        IntStream.range(0, 50).forEach(i -> writer.write((Precorrelation) null, "request " + i));
+        writer.close();
+
+        assertEquals(IntStream.range(0, 50).mapToObj(i -> "request " + i).toList(), delegate.messages);
+        assertEquals(0, writer.getDropped());
+    }
+
+    @Test
+    public void testEntriesAreDroppedWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingWriter delegate = new RecordingWriter(release);
+        AsyncHttpLogWriter writer = new AsyncHttpLogWriter(delegate, settings(true, 1.0), 2);
+
+        // первая запись занимает поток вывода, две помещаются в очередь, остальные отбрасываются
+        writer.write((Correlation) null, "first");
+        while (delegate.started.getCount() > 0) Thread.onSpinWait();
+        IntStream.range(0, 10).forEach(i -> writer.write((Correlation) null, "response " + i));
+
+        assertEquals(8, writer.getDropped());
+        release.countDown();
+        writer.close();
+        assertEquals(List.of("first", "response 0", "response 1"), delegate.messages);
+    }
+
+    @Test
+    public void testInactiveWhenDisabled() {
+        HttpLogSettings settings = settings(false, 1.0);
+        AsyncHttpLogWriter writer = new AsyncHttpLogWriter(new RecordingWriter(null), settings, 10);
+
+        assertFalse(writer.isActive());
+        settings.setConfig(new HttpLogSettings.Config(true, 1.0, List.of()));
+        assertTrue(writer.isActive());
+    }
+
+    @Test
+    public void testSettings() {
+        HttpLogSettings settings = new HttpLogSettings(true, 1.0, List.of("/films/popular", "/users/*/friends/**"));
+
+        assertTrue(settings.sample());
+        assertTrue(settings.isBodyExcluded("/films/popular"));
+        assertTrue(settings.isBodyExcluded("/users/1/friends/common/2"));
+        assertFalse(settings.isBodyExcluded("/films/1"));
+
+        settings.setConfig(new HttpLogSettings.Config(true, 0.0, List.of()));
+        assertFalse(settings.sample());
+        assertFalse(settings.isBodyExcluded("/films/popular"));
+
+        assertThrows(IllegalArgumentException.class, () -> new HttpLogSettings.Config(true, 1.5, List.of()));
+    }
+
+    private static HttpLogSettings settings(boolean enabled, double sampleRate) {
+        return new HttpLogSettings(enabled, sampleRate, List.of());
+    }
+
+    private static class RecordingWriter implements HttpLogWriter {
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release;
+
+        private RecordingWriter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public boolean isActive() {
+            return true;
+        }
+
+        @Override
+        public void write(Precorrelation precorrelation, String request) {
+            record(request);
+        }
+
+        @Override
+        public void write(Correlation correlation, String response) {
+            record(response);
+        }
+
+        private void record(String message) {
+            started.countDown();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            messages.add(message);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import ru.yandex.practicum.filmorate.repository.bulkhead.BulkheadDataSource;
+import ru.yandex.practicum.filmorate.repository.bulkhead.DbBulkhead;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DbBulkheadTest {
+    private final DbBulkhead bulkhead = new DbBulkhead(2, Duration.ofMillis(50));
+    private final BulkheadDataSource dataSource = new BulkheadDataSource(
+            new SimpleDriverDataSource(new org.h2.Driver(), "jdbc:h2:mem:bulkhead_test", "sa", ""),
+            bulkhead);
+
+    @Test
+    public void testConnectionsBeyondPermitsAreRejected() throws Exception {
+        try (Connection first = dataSource.getConnection();
+             Connection second = dataSource.getConnection()) {
+            assertEquals(2, bulkhead.getActive());
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+            assertEquals(1, bulkhead.getRejected());
+        }
+
+        assertEquals(0, bulkhead.getActive());
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals(1, bulkhead.getActive());
+        }
+    }
+
+    @Test
+    public void testRepeatedCloseReleasesPermitOnce() throws Exception {
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+
+        assertEquals(0, bulkhead.getActive());
+        try (Connection first = dataSource.getConnection();
+             Connection second = dataSource.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        }
+    }
+
+    @Test
+    public void testWaitingRequestGetsReleasedPermit() throws Exception {
+        DbBulkhead slowBulkhead = new DbBulkhead(1, Duration.ofSeconds(5));
+        BulkheadDataSource slowDataSource = new BulkheadDataSource(
+                new SimpleDriverDataSource(new org.h2.Driver(), "jdbc:h2:mem:bulkhead_test", "sa", ""),
+                slowBulkhead);
+
+        Connection held = slowDataSource.getConnection();
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try (Connection connection = slowDataSource.getConnection()) {
+                assertEquals(1, slowBulkhead.getActive());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        while (slowBulkhead.getWaiting() == 0) Thread.onSpinWait();
+        held.close();
+        waiter.join();
+
+        assertEquals(0, slowBulkhead.getActive());
+        assertEquals(0, slowBulkhead.getRejected());
+    }
+
+    @Test
+    public void testWaitIsTimedForAcquiredAndRejectedRequests() throws Exception {
+        Timer waitTimer = Timer.builder(DbBulkhead.WAIT_TIMER).register(new SimpleMeterRegistry());
+        bulkhead.setWaitTimer(waitTimer);
+
+        try (Connection first = dataSource.getConnection();
+             Connection second = dataSource.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        }
+
+        assertEquals(3, waitTimer.count());
+        assertTrue(waitTimer.max(TimeUnit.MILLISECONDS) >= 50, "rejected request must wait for max-wait");
+    }
+}
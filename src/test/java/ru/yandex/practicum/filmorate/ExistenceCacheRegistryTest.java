@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import ru.yandex.practicum.filmorate.repository.EntityType;
+import ru.yandex.practicum.filmorate.repository.cache.ExistenceCacheRegistry;
+import ru.yandex.practicum.filmorate.repository.impl.GenreDbStorage;
+import ru.yandex.practicum.filmorate.util.BulkDataLoader;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.yandex.practicum.filmorate.repository.cache.EntityExistenceCache.Presence.*;
+
+public class ExistenceCacheRegistryTest {
+    private final SimpleDriverDataSource target = new SimpleDriverDataSource(new org.h2.Driver(),
+            "jdbc:h2:mem:existence_registry_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "");
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicBoolean failing = new AtomicBoolean();
+    private final Queue<Runnable> loads = new ArrayDeque<>();
+
+    // загрузки не выполняются, пока тест не запустит их из очереди
+    private final ExistenceCacheRegistry registry = new ExistenceCacheRegistry(new DelegatingDataSource(target) {
+        @Override
+        public Connection getConnection() throws SQLException {
+            connections.incrementAndGet();
+            if (failing.get()) throw new SQLException("database unavailable");
+            return super.getConnection();
+        }
+    }, true, loads::add);
+
+    @BeforeEach
+    public void setUp() {
+        BulkDataLoader.migrate(target);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        new JdbcTemplate(target).execute("DROP ALL OBJECTS");
+    }
+
+
+    @Test
+    public void testLookupDoesNotWaitForLoad() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(UNKNOWN, registry.lookup(EntityType.GENRE, 1L));
+        }
+
+        assertEquals(0, connections.get(), "lookup must not take a connection itself");
+        assertEquals(1, loads.size(), "only one load per type may be in progress");
+
+        loads.poll().run();
+        assertEquals(PRESENT, registry.lookup(EntityType.GENRE, 1L));
+        assertEquals(ABSENT, registry.lookup(EntityType.GENRE, 0L));
+        assertTrue(loads.isEmpty());
+    }
+
+    @Test
+    public void testIdAboveLoadedMaximumIsCheckedInDatabase() {
+        registry.lookup(EntityType.GENRE, 1L);
+        loads.poll().run();
+        // строка выше загруженного максимума, добавленная в БД в обход этого экземпляра
+        JdbcTemplate jdbc = new JdbcTemplate(target);
+        jdbc.update("INSERT INTO genres (id, name) VALUES (100, 'Нуар')");
+
+        assertEquals(UNKNOWN, registry.lookup(EntityType.GENRE, 100L));
+        assertTrue(new GenreDbStorage(jdbc, registry).getGenre(100L).isPresent());
+        assertEquals(PRESENT, registry.lookup(EntityType.GENRE, 100L));
+        assertEquals(ABSENT, registry.lookup(EntityType.GENRE, 0L));
+    }
+
+    @Test
+    public void testFailedLoadIsNotRetriedByEveryLookup() {
+        failing.set(true);
+        registry.lookup(EntityType.GENRE, 1L);
+        loads.poll().run();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(UNKNOWN, registry.lookup(EntityType.GENRE, 1L));
+        }
+        assertTrue(loads.isEmpty(), "failed load must not be retried before the retry delay");
+        assertEquals(1, connections.get());
+        assertFalse(registry.getStats().get(EntityType.GENRE).loaded());
+    }
+
+    @Test
+    public void testClearedCacheIsReloadedInBackground() {
+        registry.lookup(EntityType.MPA_RATING, 1L);
+        loads.poll().run();
+        registry.clear();
+
+        assertEquals(UNKNOWN, registry.lookup(EntityType.MPA_RATING, 1L));
+        loads.poll().run();
+        assertEquals(PRESENT, registry.lookup(EntityType.MPA_RATING, 1L));
+    }
+}
@@ -0,0 +1,215 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.repository.cache.FilmCache;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FilmCacheTest {
+    private final FilmCache cache = new FilmCache(true, 100, Duration.ofMinutes(5));
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<Long, Optional<Film>> loader = id -> {
+        loads.incrementAndGet();
+        return Optional.of(film(id, 10L));
+    };
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    public void testRepeatedReadsAreServedFromCache() {
+        Film first = cache.get(1L, loader).orElseThrow();
+        Film second = cache.get(1L, loader).orElseThrow();
+
+        assertEquals(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testChangesToReturnedFilmDoNotReachCache() {
+        Film loaded = cache.get(1L, loader).orElseThrow();
+        loaded.setName("Changed");
+        loaded.getLikes().add(20L);
+        loaded.getGenres().add(new Genre());
+
+        Film cached = cache.get(1L, loader).orElseThrow();
+        cached.getLikes().clear();
+        cached.setLikes(null);
+
+        Film reread = cache.get(1L, loader).orElseThrow();
+        assertEquals(film(1L, 10L), reread);
+        assertTrue(reread.getGenres().isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testChangesToReturnedMpaAndGenresDoNotReachCache() {
+        Function<Long, Optional<Film>> withReferences = id -> {
+            Film film = film(id, 10L);
+            film.setMpa(new MpaRating(1L, "G", "General audiences"));
+            Genre genre = new Genre();
+            genre.setId(1L);
+            genre.setName("Comedy");
+            film.getGenres().add(genre);
+            return Optional.of(film);
+        };
+
+        Film loaded = cache.get(1L, withReferences).orElseThrow();
+        loaded.getMpa().setName("Changed");
+        loaded.getGenres().forEach(genre -> genre.setName("Changed"));
+
+        Film reread = cache.get(1L, withReferences).orElseThrow();
+        assertEquals(withReferences.apply(1L).orElseThrow(), reread);
+        assertEquals("G", reread.getMpa().getName());
+    }
+
+    @Test
+    public void testMissingFilmIsNotCached() {
+        assertTrue(cache.get(1L, id -> Optional.empty()).isEmpty());
+        assertTrue(cache.get(1L, loader).isPresent());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testLikesArePatchedInCopy() {
+        Film cached = cache.get(1L, loader).orElseThrow();
+
+        cache.onLikeAdded(1L, 20L);
+        Film liked = cache.get(1L, loader).orElseThrow();
+        cache.onLikeRemoved(1L, 10L);
+        Film unliked = cache.get(1L, loader).orElseThrow();
+
+        assertEquals(Set.of(10L), cached.getLikes(), "cached instance must not change");
+        assertEquals(Set.of(10L, 20L), liked.getLikes());
+        assertEquals(Set.of(20L), unliked.getLikes());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testInvalidatedFilmIsReloaded() {
+        cache.get(1L, loader);
+        cache.invalidate(1L);
+        cache.get(1L, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testChangesInsideTransactionApplyAfterCommit() {
+        cache.get(1L, loader);
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        cache.onLikeAdded(1L, 20L);
+        cache.invalidate(2L);
+        // внутри транзакции чтение идёт мимо кэша
+        cache.get(3L, loader);
+        List<TransactionSynchronization> synchronizations =
+                new ArrayList<>(TransactionSynchronizationManager.getSynchronizations());
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+
+        assertEquals(Set.of(10L), cache.get(1L, loader).orElseThrow().getLikes());
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertEquals(Set.of(10L, 20L), cache.get(1L, loader).orElseThrow().getLikes());
+        cache.get(3L, loader);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<Long, Optional<Film>> slowLoader = id -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return Optional.of(film(id, 10L));
+        };
+
+        List<Thread> readers = new ArrayList<>();
+        List<Film> results = new ArrayList<>();
+        Thread owner = Thread.ofVirtual().start(() -> cache.get(1L, slowLoader));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            readers.add(Thread.ofVirtual().start(() -> {
+                Film film = cache.get(1L, slowLoader).orElseThrow();
+                synchronized (results) {
+                    results.add(film);
+                }
+            }));
+        }
+        release.countDown();
+        owner.join();
+        for (Thread reader : readers) reader.join();
+
+        assertEquals(1, loads.get());
+        assertEquals(10, results.size());
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() {
+        IllegalStateException failure = new IllegalStateException("database unavailable");
+
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> cache.get(1L, id -> {
+            throw failure;
+        })));
+        assertTrue(cache.get(1L, loader).isPresent());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testDisabledCacheAlwaysLoads() {
+        FilmCache disabled = FilmCache.disabled();
+
+        disabled.get(1L, loader);
+        disabled.onLikeAdded(1L, 20L);
+        Film film = disabled.get(1L, loader).orElseThrow();
+
+        assertFalse(disabled.isEnabled());
+        assertEquals(Set.of(10L), film.getLikes());
+        assertEquals(2, loads.get());
+    }
+
+    private static Film film(Long id, Long... likes) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName("Film " + id);
+        film.setLikes(new LongHashSet(List.of(likes)));
+        return film;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
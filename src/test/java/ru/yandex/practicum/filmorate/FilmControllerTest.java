@@ -3,16 +3,26 @@ package ru.yandex.practicum.filmorate;
 import jakarta.validation.groups.Default;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
 import ru.yandex.practicum.filmorate.controller.FilmController;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.service.PopularFilmsLeaderboard;
+import ru.yandex.practicum.filmorate.service.SingleFlight;
 import ru.yandex.practicum.filmorate.repository.impl.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.repository.impl.InMemoryUserStorage;
 import ru.yandex.practicum.filmorate.validation.UpdateValidationGroup;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,12 +30,17 @@ import static org.junit.jupiter.api.Assertions.*;
 public class FilmControllerTest extends BaseTest {
 
     private FilmController controller;
+    private InMemoryUserStorage userStorage;
+    private PopularFilmsLeaderboard leaderboard;
     private Film film;
 
     @BeforeEach
     public void setUp() {
         InMemoryFilmStorage storage = new InMemoryFilmStorage();
-        FilmService service = new FilmService(storage, new InMemoryUserStorage());
+        userStorage = new InMemoryUserStorage();
+        leaderboard = new PopularFilmsLeaderboard(storage);
+        FilmService service = new FilmService(storage, userStorage, leaderboard, SingleFlight.disabled(),
+                PopularFilmsCache.disabled());
         controller = new FilmController(service);
 
         film = new Film();
@@ -76,6 +91,89 @@ public class FilmControllerTest extends BaseTest {
         assertTrue(names.stream().allMatch(name -> name.equals(film.getName())));
     }
 
+    @Test
+    void testGetFilmsPage() {
+        createFilms(5);
+
+        ResponseEntity<Collection<Film>> firstPage = controller.findPage(2, null);
+        ResponseEntity<Collection<Film>> secondPage = controller.findPage(2, 2L);
+        ResponseEntity<Collection<Film>> lastPage = controller.findPage(2, 4L);
+
+        assertEquals(List.of(1L, 2L), firstPage.getBody().stream().map(Film::getId).toList());
+        assertEquals("2", firstPage.getHeaders().getFirst(CursorPage.NEXT_CURSOR_HEADER));
+        assertEquals(List.of(3L, 4L), secondPage.getBody().stream().map(Film::getId).toList());
+        assertEquals("4", secondPage.getHeaders().getFirst(CursorPage.NEXT_CURSOR_HEADER));
+        assertEquals(List.of(5L), lastPage.getBody().stream().map(Film::getId).toList());
+        assertNull(lastPage.getHeaders().getFirst(CursorPage.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void testGetFilmsPageInvalidLimitOrCursor() {
+        assertThrows(ValidationException.class, () -> controller.findPage(0, null));
+        assertThrows(ValidationException.class, () -> controller.findPage(CursorPage.MAX_LIMIT + 1, null));
+        assertThrows(ValidationException.class, () -> controller.findPage(10, -1L));
+    }
+
+    @Test
+    void testGetPopularFilmsFollowsLikes() {
+        List<Long> filmIds = createFilms(3);
+        User first = userStorage.createUser(new User(null, "first@gmail.com", "first", null, null, new HashSet<>()));
+        User second = userStorage.createUser(new User(null, "second@gmail.com", "second", null, null,
+                new HashSet<>()));
+
+        controller.addLike(filmIds.get(1), first.getId());
+        controller.addLike(filmIds.get(1), second.getId());
+        controller.addLike(filmIds.get(2), first.getId());
+
+        assertEquals(List.of(filmIds.get(1), filmIds.get(2), filmIds.get(0)), popularIds(10));
+        assertEquals(List.of(filmIds.get(1)), popularIds(1));
+
+        controller.removeLike(filmIds.get(1), first.getId());
+        controller.removeLike(filmIds.get(1), second.getId());
+
+        assertEquals(List.of(filmIds.get(2), filmIds.get(1), filmIds.get(0)), popularIds(10),
+                "films with equal likes must be ordered by id descending");
+
+        leaderboard.rebuild();
+        assertEquals(List.of(filmIds.get(2), filmIds.get(1), filmIds.get(0)), popularIds(10),
+                "rebuilt leaderboard must match incremental one");
+    }
+
+    @Test
+    void testSummaryViewReturnsLikesCount() {
+        List<Long> filmIds = createFilms(3);
+        List<Long> userIds = createUsers(3);
+        userIds.forEach(userId -> controller.addLike(filmIds.get(1), userId));
+
+        FilmSummary summary = controller.getSummaryById(filmIds.get(1));
+        ResponseEntity<Collection<FilmSummary>> page = controller.findSummaryPage(2, null);
+
+        assertEquals(3L, summary.getLikesCount());
+        assertEquals("Film 1", summary.getName());
+        assertEquals(List.of(0L, 3L, 0L), controller.findAllSummaries().stream()
+                .map(FilmSummary::getLikesCount).toList());
+        assertEquals(List.of(1L, 2L), page.getBody().stream().map(FilmSummary::getId).toList());
+        assertEquals("2", page.getHeaders().getFirst(CursorPage.NEXT_CURSOR_HEADER));
+        assertEquals(filmIds.get(1), controller.getPopularFilmSummaries(1).iterator().next().getId());
+        assertThrows(NotFoundException.class, () -> controller.getSummaryById(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testGetLikesPage() {
+        Long filmId = createFilms(1).getFirst();
+        List<Long> userIds = createUsers(3);
+        userIds.reversed().forEach(userId -> controller.addLike(filmId, userId));
+
+        ResponseEntity<Collection<Long>> firstPage = controller.getLikes(filmId, 2, null);
+        ResponseEntity<Collection<Long>> lastPage = controller.getLikes(filmId, 2, userIds.get(1));
+
+        assertEquals(userIds.subList(0, 2), new ArrayList<>(firstPage.getBody()));
+        assertEquals(userIds.get(1).toString(), firstPage.getHeaders().getFirst(CursorPage.NEXT_CURSOR_HEADER));
+        assertEquals(userIds.subList(2, 3), new ArrayList<>(lastPage.getBody()));
+        assertNull(lastPage.getHeaders().getFirst(CursorPage.NEXT_CURSOR_HEADER));
+        assertThrows(NotFoundException.class, () -> controller.getLikes(Long.MAX_VALUE, 2, null));
+    }
+
     @Test
     void testUpdateFilmNotFound() {
         film.setId(Long.MAX_VALUE);
@@ -156,4 +254,27 @@ public class FilmControllerTest extends BaseTest {
         assertFalse(violations.isEmpty(), "Violations empty");
         assertTrue(violations.contains("Id cannot be empty"));
     }
+
+
+    private List<Long> createFilms(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(controller.create(new Film(null, "Film " + i, "Description", LocalDate.of(2014, 11, 7), 169L,
+                    null, new HashSet<>(), new HashSet<>())).getId());
+        }
+        return ids;
+    }
+
+    private List<Long> createUsers(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(userStorage.createUser(new User(null, "user" + i + "@gmail.com", "user" + i, null, null,
+                    new HashSet<>())).getId());
+        }
+        return ids;
+    }
+
+    private List<Long> popularIds(int count) {
+        return controller.getPopularFilms(count).stream().map(Film::getId).toList();
+    }
 }
@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.repository.cache.IdBitmapExistenceCache;
+
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.yandex.practicum.filmorate.repository.cache.EntityExistenceCache.Presence.*;
+
+public class IdBitmapExistenceCacheTest {
+
+    @Test
+    public void testUnknownBeforeLoad() {
+        IdBitmapExistenceCache cache = new IdBitmapExistenceCache();
+
+        assertFalse(cache.isLoaded());
+        assertEquals(UNKNOWN, cache.lookup(1L));
+    }
+
+    @Test
+    public void testLookupAfterLoad() {
+        IdBitmapExistenceCache cache = new IdBitmapExistenceCache();
+        cache.load(consumer -> LongStream.of(1, 2, 5).forEach(consumer));
+
+        assertTrue(cache.isLoaded());
+        assertEquals(PRESENT, cache.lookup(5L));
+        assertEquals(ABSENT, cache.lookup(3L), "gap below the loaded maximum must be absent");
+        assertEquals(UNKNOWN, cache.lookup(6L), "id above the loaded maximum must be checked in the database");
+        assertEquals(UNKNOWN, cache.lookup(-1L));
+        assertEquals(UNKNOWN, cache.lookup(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testMarkPresentSurvivesLoad() {
+        IdBitmapExistenceCache cache = new IdBitmapExistenceCache();
+        cache.markPresent(10L);
+        cache.load(consumer -> LongStream.of(1, 2).forEach(consumer));
+
+        assertEquals(PRESENT, cache.lookup(10L));
+
+        cache.markPresent(11L);
+        assertEquals(PRESENT, cache.lookup(11L));
+    }
+
+    @Test
+    public void testClear() {
+        IdBitmapExistenceCache cache = new IdBitmapExistenceCache();
+        cache.load(consumer -> consumer.accept(1L));
+        cache.clear();
+
+        assertFalse(cache.isLoaded());
+        assertEquals(UNKNOWN, cache.lookup(1L));
+    }
+}
@@ -0,0 +1,168 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.repository.impl.InMemoryUserStorage;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.util.TestDataGenerator.getRandomUser;
+
+/**
+ * Нагрузочная проверка потокобезопасности хранилищ в памяти: операции выполняются одновременно
+ * из нескольких потоков, после чего проверяется, что итоговое состояние совпадает с последовательным
+ */
+public class InMemoryStorageConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 500;
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+
+    @BeforeEach
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+    }
+
+
+    @Test
+    public void testConcurrentCreateAssignsUniqueIds() throws Exception {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        runConcurrently(thread -> ids.add(userStorage.createUser(getRandomUser()).getId()));
+
+        int expected = THREADS * OPERATIONS_PER_THREAD;
+        assertEquals(expected, ids.size(), "ids must be unique");
+        assertEquals(expected, userStorage.getAllUsers().size(), "users lost");
+        assertEquals(expected, userStorage.getUsers(null, expected).size(), "page must contain all users");
+    }
+
+    @Test
+    public void testConcurrentLikesAreNotLost() throws Exception {
+        Film film = filmStorage.createFilm(new Film());
+        AtomicInteger userIds = new AtomicInteger();
+        AtomicInteger added = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            long userId = userIds.incrementAndGet();
+            if (filmStorage.addLike(film.getId(), userId).orElseThrow().changed()) added.incrementAndGet();
+            // повторный лайк того же пользователя не должен засчитываться
+            filmStorage.addLike(film.getId(), userId);
+        });
+
+        int expected = THREADS * OPERATIONS_PER_THREAD;
+        assertEquals(expected, added.get(), "each distinct like must be added exactly once");
+        assertEquals(expected, filmStorage.getFilm(film.getId()).orElseThrow().getLikes().size());
+        assertEquals(expected, filmStorage.getLikesCounts().get(film.getId()));
+    }
+
+    @Test
+    public void testConcurrentUpdateKeepsLikes() throws Exception {
+        Film film = filmStorage.createFilm(new Film());
+        AtomicInteger userIds = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            if (thread % 2 == 0) {
+                filmStorage.addLike(film.getId(), (long) userIds.incrementAndGet());
+            } else {
+                Film update = new Film();
+                update.setId(film.getId());
+                update.setName("name " + thread);
+                filmStorage.updateFilm(update);
+            }
+        });
+
+        assertEquals(userIds.get(), filmStorage.getFilm(film.getId()).orElseThrow().getLikes().size(),
+                "likes added during updates must not be lost");
+    }
+
+    @Test
+    public void testConcurrentAddOfSameFriendshipSucceedsOnce() throws Exception {
+        User user = userStorage.createUser(getRandomUser());
+        User friend = userStorage.createUser(getRandomUser());
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            try {
+                userStorage.addFriend(user.getId(), friend.getId());
+                succeeded.incrementAndGet();
+            } catch (ConflictException e) {
+                conflicts.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, succeeded.get(), "friendship must be added exactly once");
+        assertEquals(THREADS * OPERATIONS_PER_THREAD - 1, conflicts.get());
+        assertEquals(Set.of(friend.getId()), userStorage.getUser(user.getId()).orElseThrow().getFriends());
+        assertEquals(Set.of(user.getId()), userStorage.getUser(friend.getId()).orElseThrow().getFriends());
+    }
+
+    @Test
+    public void testConcurrentFriendshipChangesStaySymmetric() throws Exception {
+        List<Long> ids = IntStream.range(0, 50)
+                .mapToObj(i -> userStorage.createUser(getRandomUser()).getId())
+                .toList();
+
+        runConcurrently(thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Long userId = ids.get(random.nextInt(ids.size()));
+            Long friendId = ids.get(random.nextInt(ids.size()));
+            if (userId.equals(friendId)) return;
+
+            try {
+                if (random.nextBoolean()) {
+                    userStorage.addFriend(userId, friendId);
+                } else {
+                    userStorage.removeFriend(userId, friendId);
+                }
+            } catch (ConflictException ignored) {
+                // дружба уже существует
+            }
+        });
+
+        ids.forEach(userId -> userStorage.getUser(userId).orElseThrow().getFriends().forEach(friendId ->
+                assertTrue(userStorage.getUser(friendId).orElseThrow().getFriends().contains(userId),
+                        String.format("friendship %d -> %d is not mutual", userId, friendId))));
+    }
+
+    /**
+     * Запускает {@code action} {@code OPERATIONS_PER_THREAD} раз в каждом из {@code THREADS} потоков,
+     * стартующих одновременно. В {@code action} передаётся номер потока
+     */
+    private void runConcurrently(IntAction action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                int threadNumber = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) action.run(threadNumber);
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) future.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface IntAction {
+        void run(int thread);
+    }
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongHashSetTest {
+
+    @Test
+    public void testBehavesLikeHashSet() {
+        Random random = new Random(42);
+        Set<Long> expected = new HashSet<>();
+        LongHashSet actual = new LongHashSet();
+
+        for (int i = 0; i < 200_000; i++) {
+            long value = random.nextInt(5_000) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), actual.remove(value), "remove " + value);
+            } else {
+                assertEquals(expected.add(value), actual.add(value), "add " + value);
+            }
+            assertEquals(expected.size(), actual.size());
+        }
+
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        expected.forEach(value -> assertTrue(actual.contains(value.longValue())));
+    }
+
+    @Test
+    public void testZeroValue() {
+        LongHashSet set = new LongHashSet();
+
+        assertFalse(set.contains(0L));
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+        assertEquals(List.of(0L), new ArrayList<>(set));
+        assertTrue(set.remove(0L));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void testRetainAllAndCopy() {
+        LongHashSet set = new LongHashSet(List.of(1L, 2L, 3L, 4L));
+        LongHashSet copy = new LongHashSet(set);
+
+        set.retainAll(Set.of(2L, 4L, 6L));
+
+        assertEquals(Set.of(2L, 4L), set);
+        assertEquals(Set.of(1L, 2L, 3L, 4L), copy, "copy must not share storage");
+    }
+
+    @Test
+    public void testDenseAndCollidingIds() {
+        int dense = 200_000;
+        LongHashSet set = new LongHashSet();
+        for (long id = 1; id <= dense; id++) set.add(id);
+        // id, у которых совпадают младшие биты с уже занятым плотным диапазоном
+        long stride = 1L << 20;
+        List<Long> colliding = LongStream.rangeClosed(1, 1_000).map(i -> i * stride + 7).boxed().toList();
+
+        // при хеше, близком к тождественному, каждый промах просматривал бы весь плотный диапазон
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (long id = 1; id <= dense; id++) assertFalse(set.contains(stride + id), "missing " + (stride + id));
+            colliding.forEach(id -> assertTrue(set.add(id.longValue()), "add " + id));
+            colliding.forEach(id -> assertTrue(set.contains(id.longValue()), "contains " + id));
+            for (long id = 1; id <= dense; id += 2) assertTrue(set.remove(id), "remove " + id);
+        });
+
+        assertEquals(dense / 2 + colliding.size(), set.size());
+        for (long id = 1; id <= dense; id++) assertEquals(id % 2 == 0, set.contains(id), "contains " + id);
+        colliding.forEach(id -> assertTrue(set.contains(id.longValue()), "contains " + id));
+    }
+
+    @Test
+    public void testJsonMatchesHashSet() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        List<Long> smallIds = List.of(5L, 1L, 9L, 3L, 12L);
+        List<Long> ids = new Random(7).longs(1_000, 1, 1_000_000).boxed().toList();
+
+        assertEquals(mapper.writeValueAsString(new HashSet<>(smallIds)),
+                mapper.writeValueAsString(new LongHashSet(smallIds)));
+
+        String json = mapper.writeValueAsString(new LongHashSet(ids));
+        assertEquals(new HashSet<>(ids), Set.of(mapper.readValue(json, Long[].class)));
+        // порядок совпадает с ARRAY_AGG(... ORDER BY ...), в том числе внутри модели
+        assertEquals(mapper.writeValueAsString(new TreeSet<>(ids)), json);
+        Film film = new Film();
+        film.setLikes(new LongHashSet(ids));
+        assertTrue(mapper.writeValueAsString(film).contains("\"likes\":" + json));
+    }
+}
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.repository.parallel.ParallelLoader;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelLoaderTest {
+    private final ParallelLoader loader = new ParallelLoader(true, 2);
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    public void testItemsRunConcurrently() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        loader.forEach(List.of(1, 2), item -> {
+            threads.add(Thread.currentThread());
+            bothStarted.countDown();
+            await(bothStarted);
+        });
+
+        assertEquals(2, threads.size());
+        assertTrue(threads.stream().allMatch(Thread::isVirtual));
+    }
+
+    @Test
+    public void testParallelismIsLimited() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        loader.forEach(List.of(1, 2, 3, 4, 5, 6), item -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(20);
+            running.decrementAndGet();
+        });
+
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void testFailureCancelsOtherItemsAndIsRethrown() {
+        IllegalStateException failure = new IllegalStateException("query failed");
+        CountDownLatch sleeping = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () ->
+                loader.forEach(List.of(1, 2), item -> {
+                    if (item == 1) {
+                        await(sleeping);
+                        throw failure;
+                    }
+                    sleeping.countDown();
+                    try {
+                        Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                }));
+
+        assertSame(failure, thrown);
+        // к возврату из forEach отменённая задача уже завершена
+        assertEquals(0, interrupted.getCount());
+    }
+
+    @Test
+    public void testItemsRunSequentiallyInsideTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        loader.forEach(List.of(1, 2, 3), item -> threads.add(Thread.currentThread()));
+
+        assertEquals(Set.of(Thread.currentThread()), threads);
+    }
+
+    @Test
+    public void testDisabledLoaderRunsInCallerThread() {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        ParallelLoader.sequential().forEach(List.of(1, 2, 3), item -> threads.add(Thread.currentThread()));
+
+        assertEquals(Set.of(Thread.currentThread()), threads);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PopularFilmsCacheTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong();
+    private final Queue<Runnable> refreshes = new ArrayDeque<>();
+    private final PopularFilmsCache cache = new PopularFilmsCache(true, List.of(50, 10), Duration.ofSeconds(5),
+            Duration.ofSeconds(30), meterRegistry, refreshes::add, now::get);
+
+    // каждая загрузка возвращает фильмы с id, начинающимися с номера загрузки * 1000
+    private final AtomicInteger loads = new AtomicInteger();
+    private final IntFunction<Collection<Film>> loader = size -> {
+        long generation = loads.incrementAndGet() * 1000L;
+        return LongStream.range(generation, generation + size).mapToObj(PopularFilmsCacheTest::film).toList();
+    };
+
+    @Test
+    public void testCountIsServedFromItsBucket() {
+        assertEquals(List.of(1000L, 1001L, 1002L), ids(cache.get(3, loader)));
+        assertEquals(10, cache.get(10, loader).size());
+        assertEquals(1, loads.get());
+
+        assertEquals(11, cache.get(11, loader).size());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testCountAboveLastBucketIsNotCached() {
+        cache.get(51, loader);
+        cache.get(51, loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(2, count("bypass"));
+    }
+
+    @Test
+    public void testStaleListIsServedAndRefreshedOnce() {
+        cache.get(5, loader);
+        advance(6);
+
+        assertEquals(1000L, ids(cache.get(5, loader)).getFirst());
+        assertEquals(1000L, ids(cache.get(5, loader)).getFirst());
+        assertEquals(1, refreshes.size(), "only one refresh per bucket may be in progress");
+
+        refreshes.poll().run();
+        assertEquals(2000L, ids(cache.get(5, loader)).getFirst());
+        assertEquals(2, loads.get());
+        assertEquals(2, count("stale"));
+        assertEquals(1, count("fresh"));
+    }
+
+    @Test
+    public void testListOlderThanMaxStaleIsReloadedSynchronously() {
+        cache.get(5, loader);
+        advance(31);
+
+        assertEquals(2000L, ids(cache.get(5, loader)).getFirst());
+        assertTrue(refreshes.isEmpty());
+        assertEquals(1, count("expired"));
+    }
+
+    @Test
+    public void testFailedRefreshKeepsServingUntilMaxStale() {
+        cache.get(5, loader);
+        advance(6);
+        IntFunction<Collection<Film>> failing = size -> {
+            throw new IllegalStateException("database unavailable");
+        };
+
+        cache.get(5, failing);
+        refreshes.poll().run();
+        assertEquals(1000L, ids(cache.get(5, failing)).getFirst());
+
+        advance(30);
+        assertThrows(IllegalStateException.class, () -> cache.get(5, failing));
+    }
+
+    @Test
+    public void testChangeServesPreviousListAndRefreshesInBackground() {
+        cache.get(5, loader);
+        cache.get(20, loader);
+        advance(1);
+        cache.markStale();
+        cache.markStale();
+
+        assertEquals(1000L, ids(cache.get(5, loader)).getFirst(), "change must not turn reads into misses");
+        assertEquals(2000L, ids(cache.get(20, loader)).getFirst());
+        assertEquals(2, refreshes.size());
+        refreshes.forEach(Runnable::run);
+        refreshes.clear();
+
+        assertEquals(3000L, ids(cache.get(5, loader)).getFirst());
+        assertEquals(4000L, ids(cache.get(20, loader)).getFirst());
+        assertTrue(refreshes.isEmpty(), "refreshed lists must be fresh again");
+        assertEquals(2, count("miss"));
+    }
+
+    @Test
+    public void testInvalidateDropsListsAndDiscardsLoadsStartedBefore() {
+        cache.get(5, loader);
+        cache.get(20, loader);
+        cache.invalidate();
+
+        assertEquals(3000L, ids(cache.get(5, loader)).getFirst());
+        // фильм изменился, пока список читался: прочитанный список отдаётся, но не кэшируется
+        IntFunction<Collection<Film>> invalidatedWhileLoading = size -> {
+            Collection<Film> films = loader.apply(size);
+            cache.invalidate();
+            return films;
+        };
+        assertEquals(4000L, ids(cache.get(20, invalidatedWhileLoading)).getFirst());
+        assertEquals(5000L, ids(cache.get(20, loader)).getFirst());
+    }
+
+    @Test
+    public void testSlowRefreshDoesNotReplaceNewerList() {
+        cache.get(5, loader);
+        advance(6);
+        // пока фоновое обновление читает список, он устаревает и загружается заново в потоке запроса
+        IntFunction<Collection<Film>> slowLoader = size -> {
+            Collection<Film> films = loader.apply(size);
+            advance(30);
+            assertEquals(3000L, ids(cache.get(5, loader)).getFirst());
+            return films;
+        };
+
+        cache.get(5, slowLoader);
+        refreshes.poll().run();
+
+        assertEquals(3000L, ids(cache.get(5, loader)).getFirst());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testStalenessOfServedListsIsRecorded() {
+        cache.get(5, loader);
+        advance(6);
+        cache.get(5, loader);
+
+        var timer = meterRegistry.get(PopularFilmsCache.STALENESS_TIMER).timer();
+        assertEquals(2, timer.count());
+        assertEquals(6, timer.max(TimeUnit.SECONDS), 0.001);
+    }
+
+    @Test
+    public void testDisabledCacheAlwaysLoads() {
+        PopularFilmsCache disabled = PopularFilmsCache.disabled();
+
+        disabled.get(5, loader);
+        disabled.get(5, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    private void advance(long seconds) {
+        now.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    private double count(String result) {
+        return meterRegistry.get(PopularFilmsCache.REQUESTS_COUNTER).tag("result", result).counter().count();
+    }
+
+    private static List<Long> ids(Collection<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+
+    private static Film film(long id) {
+        Film film = new Film();
+        film.setId(id);
+        return film;
+    }
+}
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.repository.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.service.PopularFilmsLeaderboard;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PopularFilmsLeaderboardTest {
+    private final CountDownLatch reading = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile Map<Long, Long> likesCounts = Map.of(1L, 1L, 2L, 1L);
+
+    // чтение рейтинга останавливается, пока тест меняет лайки
+    private final PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard(new InMemoryFilmStorage() {
+        @Override
+        public Map<Long, Long> getLikesCounts() {
+            Map<Long, Long> snapshot = likesCounts;
+            reading.countDown();
+            try {
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return snapshot;
+        }
+    });
+
+    @Test
+    public void testLikeAlreadyInSnapshotIsNotCountedTwice() throws Exception {
+        Thread rebuild = Thread.ofVirtual().start(leaderboard::rebuild);
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+        // лайк фильма 1 уже попал в снимок, значение из хранилища приходит во время чтения
+        leaderboard.set(1L, 1);
+        release.countDown();
+        rebuild.join();
+
+        assertEquals(List.of(2L, 1L), leaderboard.top(10), "films with equal likes must be ordered by id desc");
+    }
+
+    @Test
+    public void testValueSetDuringRebuildIsNotLost() throws Exception {
+        Thread rebuild = Thread.ofVirtual().start(leaderboard::rebuild);
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+        // снимок прочитан до двух новых лайков фильма 1
+        leaderboard.set(1L, 3);
+        release.countDown();
+        rebuild.join();
+
+        assertEquals(List.of(1L, 2L), leaderboard.top(10));
+    }
+
+    @Test
+    public void testSetBeforeFirstRebuildIsReadFromStorage() {
+        release.countDown();
+        likesCounts = Map.of(1L, 2L, 2L, 1L);
+        leaderboard.set(2L, 5);
+
+        assertEquals(List.of(1L, 2L), leaderboard.top(10));
+    }
+}
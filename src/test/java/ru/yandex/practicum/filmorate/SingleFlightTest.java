@@ -0,0 +1,189 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.service.SingleFlight;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightTest {
+    private static final int CLIENTS = 100;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight singleFlight = new SingleFlight(true, Duration.ofSeconds(5),
+            List.of("slow=50ms"), meterRegistry);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    public void testConcurrentIdenticalCallsShareOneExecution() throws Exception {
+        CountDownLatch arrived = new CountDownLatch(CLIENTS);
+        Object shared = new Object();
+        Queue<Object> results = new ConcurrentLinkedQueue<>();
+
+        runConcurrently(CLIENTS, arrived, () -> results.add(singleFlight.execute("film", 1L, () -> {
+            calls.incrementAndGet();
+            await(arrived);
+            sleep(50);
+            return shared;
+        })));
+
+        assertEquals(1, calls.get());
+        assertEquals(CLIENTS, results.size());
+        assertTrue(results.stream().allMatch(result -> result == shared));
+        assertEquals(1, count("film", "leader"));
+        assertEquals(CLIENTS - 1, count("film", "shared"));
+        assertEquals(0, singleFlight.getInFlight());
+    }
+
+    @Test
+    public void testWaitersGetCopiesOfSharedResult() throws Exception {
+        CountDownLatch arrived = new CountDownLatch(CLIENTS);
+        Set<List<Long>> results = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+        runConcurrently(CLIENTS, arrived, () -> results.add(singleFlight.execute("film", 1L, () -> {
+            calls.incrementAndGet();
+            await(arrived);
+            sleep(50);
+            return new ArrayList<>(List.of(1L, 2L));
+        }, ArrayList::new)));
+
+        assertEquals(1, calls.get());
+        assertEquals(CLIENTS, results.size());
+        assertTrue(results.stream().allMatch(result -> result.equals(List.of(1L, 2L))));
+    }
+
+    @Test
+    public void testDifferentKeysAreNotCoalesced() throws Exception {
+        CountDownLatch arrived = new CountDownLatch(4);
+        AtomicInteger next = new AtomicInteger();
+
+        runConcurrently(4, arrived, () -> {
+            long key = next.getAndIncrement() % 2;
+            singleFlight.execute("film", key, () -> {
+                calls.incrementAndGet();
+                await(arrived);
+                sleep(50);
+                return key;
+            });
+        });
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testFailureIsSharedAndNotRemembered() throws Exception {
+        CountDownLatch arrived = new CountDownLatch(CLIENTS);
+        NotFoundException failure = new NotFoundException("Film not found");
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+
+        runConcurrently(CLIENTS, arrived, () -> {
+            try {
+                singleFlight.execute("film", 1L, () -> {
+                    calls.incrementAndGet();
+                    await(arrived);
+                    sleep(50);
+                    throw failure;
+                });
+            } catch (NotFoundException e) {
+                errors.add(e);
+            }
+        });
+
+        assertEquals(1, calls.get());
+        assertEquals(CLIENTS, errors.size());
+        assertTrue(errors.stream().allMatch(error -> error == failure));
+        // после завершения вызов выполняется заново
+        assertEquals("film", singleFlight.execute("film", 1L, () -> "film"));
+    }
+
+    @Test
+    public void testWaiterTimesOutWithOperationTimeout() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread leader = Thread.ofVirtual().start(() -> singleFlight.execute("slow", 1L, () -> {
+            started.countDown();
+            await(release);
+            return "slow";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Supplier<String> unexpected = () -> {
+            throw new AssertionError("call must not run while another one is in flight");
+        };
+        assertThrows(ServiceUnavailableException.class, () -> singleFlight.execute("slow", 1L, unexpected));
+        assertEquals(1, count("slow", "timeout"));
+
+        release.countDown();
+        leader.join();
+        assertSame("fresh", singleFlight.execute("slow", 1L, () -> "fresh"));
+    }
+
+    @Test
+    public void testDisabledSingleFlightRunsEveryCall() {
+        SingleFlight disabled = SingleFlight.disabled();
+
+        disabled.execute("film", 1L, calls::incrementAndGet);
+        disabled.execute("film", 1L, calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+    }
+
+    private double count(String operation, String result) {
+        return meterRegistry.get(SingleFlight.CALLS_COUNTER)
+                .tag("operation", operation)
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+
+    private static void runConcurrently(int clients, CountDownLatch arrived, Runnable client) throws Exception {
+        List<Thread> threads = new ArrayList<>(clients);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < clients; i++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                arrived.countDown();
+                try {
+                    client.run();
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.join();
+        assertTrue(failures.isEmpty(), () -> "Unexpected failures: " + failures);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -3,15 +3,19 @@ package ru.yandex.practicum.filmorate;
 import jakarta.validation.groups.Default;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
 import ru.yandex.practicum.filmorate.controller.UserController;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.SingleFlight;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.repository.impl.InMemoryUserStorage;
 import ru.yandex.practicum.filmorate.validation.UpdateValidationGroup;
 
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,7 +28,7 @@ public class UserControllerTest extends BaseTest {
     @BeforeEach
     public void setUp() {
         InMemoryUserStorage storage = new InMemoryUserStorage();
-        UserService service = new UserService(storage);
+        UserService service = new UserService(storage, SingleFlight.disabled());
         controller = new UserController(service);
 
         user = new User();
@@ -76,6 +80,22 @@ public class UserControllerTest extends BaseTest {
         assertTrue(names.stream().allMatch(name -> name.equals(user.getName())));
     }
 
+    @Test
+    void testGetUsersPage() {
+        for (int i = 0; i < 3; i++) {
+            controller.create(new User(null, "user" + i + "@gmail.com", "login" + i, "Name", user.getBirthday(),
+                    new HashSet<>()));
+        }
+
+        ResponseEntity<Collection<User>> firstPage = controller.findPage(2, null);
+        ResponseEntity<Collection<User>> lastPage = controller.findPage(2, 2L);
+
+        assertEquals(List.of(1L, 2L), firstPage.getBody().stream().map(User::getId).toList());
+        assertEquals("2", firstPage.getHeaders().getFirst(CursorPage.NEXT_CURSOR_HEADER));
+        assertEquals(List.of(3L), lastPage.getBody().stream().map(User::getId).toList());
+        assertNull(lastPage.getHeaders().getFirst(CursorPage.NEXT_CURSOR_HEADER));
+    }
+
     @Test
     void testUpdateUserNotFound() {
         user.setId(Long.MAX_VALUE);
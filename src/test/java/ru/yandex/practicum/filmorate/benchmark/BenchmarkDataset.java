@@ -0,0 +1,235 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.FilmStorage;
+import ru.yandex.practicum.filmorate.repository.UserStorage;
+import ru.yandex.practicum.filmorate.repository.cache.ExistenceCacheRegistry;
+import ru.yandex.practicum.filmorate.repository.cache.FilmCache;
+import ru.yandex.practicum.filmorate.repository.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.repository.impl.*;
+import ru.yandex.practicum.filmorate.repository.parallel.ParallelLoader;
+import ru.yandex.practicum.filmorate.rowmapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.rowmapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.util.BulkDataLoader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static ru.yandex.practicum.filmorate.util.TestDataGenerator.*;
+
+/**
+ * Хранилища для бенчмарков, заполненные данными {@link ru.yandex.practicum.filmorate.util.TestDataGenerator}.
+ *
+ * <p>{@code jdbc} - хранилища в БД поверх встроенной H2 в режиме PostgreSQL, схема создаётся
+ * миграциями Liquibase приложения. {@code memory} - хранилища в памяти.</p>
+ *
+ * <p>На каждого из {@code size} пользователей приходится {@code LIKES_PER_USER} лайков случайных фильмов
+ * и {@code FRIENDS_PER_USER} друзей. В БД лайки и дружба вставляются пакетами, а {@code likes_count}
+ * пересчитывается одним запросом, чтобы подготовка больших наборов не занимала минуты.</p>
+ *
+ * <p>Фильмы набора получают до {@code MAX_GENRES_PER_FILM} жанров из миграции. Для обновления фильмов
+ * с большим числом жанров в БД дополнительно создаются жанры до {@code MANY_GENRES}</p>
+ */
+final class BenchmarkDataset implements AutoCloseable {
+    static final String JDBC = "jdbc";
+    static final String MEMORY = "memory";
+
+    static final int LIKES_PER_USER = 10;
+    static final int FRIENDS_PER_USER = 5;
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static final int BATCH_SIZE = 1_000;
+    // жанры из миграции 002-init-data
+    private static final int GENRES = 6;
+    private static final int MAX_GENRES_PER_FILM = 3;
+    static final int MANY_GENRES = 40;
+
+    private static final String INSERT_GENRE_QUERY = """
+            INSERT INTO genres (name) VALUES (?);
+            """;
+
+    private static final String INSERT_LIKE_QUERY = """
+            INSERT INTO film_likes (film_id, user_id) VALUES (?, ?);
+            """;
+
+    private static final String INSERT_FRIENDSHIP_QUERY = """
+            INSERT INTO user_friends (user_id, friend_id) VALUES (?, ?);
+            """;
+
+    private static final String RECOUNT_LIKES_QUERY = """
+            UPDATE films f
+            SET likes_count = (
+                SELECT COUNT(*)
+                FROM film_likes fl
+                WHERE fl.film_id = f.id
+            );
+            """;
+
+    final FilmStorage filmStorage;
+    final UserStorage userStorage;
+    final List<Long> filmIds = new ArrayList<>();
+    final List<Long> userIds = new ArrayList<>();
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbc;
+
+    private BenchmarkDataset(FilmStorage filmStorage, UserStorage userStorage, HikariDataSource dataSource) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.dataSource = dataSource;
+        this.jdbc = dataSource != null ? new JdbcTemplate(dataSource) : null;
+    }
+
+
+    /**
+     * Создаёт хранилища {@code storage} ({@link #JDBC} или {@link #MEMORY}) с {@code size} пользователями
+     * и {@code size} фильмами
+     */
+    static BenchmarkDataset create(String storage, int size) {
+        BenchmarkDataset dataset = switch (storage) {
+            case JDBC -> createJdbc();
+            case MEMORY -> new BenchmarkDataset(new InMemoryFilmStorage(), new InMemoryUserStorage(), null);
+            default -> throw new IllegalArgumentException("Unknown storage: " + storage);
+        };
+
+        dataset.fill(size, new Random(size));
+        return dataset;
+    }
+
+    Long randomFilmId(Random random) {
+        return filmIds.get(random.nextInt(filmIds.size()));
+    }
+
+    Long randomUserId(Random random) {
+        return userIds.get(random.nextInt(userIds.size()));
+    }
+
+    /**
+     * Создаёт фильм с жанрами {@code genreIds} (не больше {@code MANY_GENRES})
+     */
+    Film createFilm(Collection<Long> genreIds) {
+        return filmStorage.createFilm(film(genreIds));
+    }
+
+    /**
+     * Копия фильма с другим набором жанров для обновления
+     */
+    static Film withGenres(Film film, Collection<Long> genreIds) {
+        Film update = film(genreIds);
+        update.setId(film.getId());
+        update.setName(film.getName());
+        update.setDescription(film.getDescription());
+        update.setReleaseDate(film.getReleaseDate());
+        update.setDuration(film.getDuration());
+        update.setMpa(film.getMpa());
+        return update;
+    }
+
+    @Override
+    public void close() {
+        if (dataSource != null) dataSource.close();
+    }
+
+    private static BenchmarkDataset createJdbc() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:benchmark_%d;DB_CLOSE_DELAY=-1;MODE=PostgreSQL"
+                .formatted(DATABASES.incrementAndGet()));
+        dataSource.setUsername("sa");
+        BulkDataLoader.migrate(dataSource);
+
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.batchUpdate(INSERT_GENRE_QUERY, IntStream.rangeClosed(GENRES + 1, MANY_GENRES)
+                .mapToObj(genreId -> new Object[]{"Жанр " + genreId})
+                .toList());
+        ExistenceCacheRegistry existenceCache = new ExistenceCacheRegistry(dataSource, true);
+        ReferenceDataCache referenceData = new ReferenceDataCache(
+                new GenreDbStorage(jdbc, existenceCache),
+                new MpaRatingDbStorage(jdbc, existenceCache));
+        referenceData.refresh();
+
+        return new BenchmarkDataset(
+                new FilmDbStorage(jdbc, existenceCache, referenceData, new FilmRowMapper(referenceData),
+                        ParallelLoader.sequential(), FilmCache.disabled()),
+                new UserDbStorage(jdbc, existenceCache, new UserRowMapper(), ParallelLoader.sequential()),
+                dataSource);
+    }
+
+    private void fill(int size, Random random) {
+        for (int i = 0; i < size; i++) {
+            userIds.add(userStorage.createUser(uniqueUser(i)).getId());
+            filmIds.add(filmStorage.createFilm(randomFilm(random)).getId());
+        }
+
+        List<Object[]> likes = new ArrayList<>();
+        List<Object[]> friendships = new ArrayList<>();
+        for (Long userId : userIds) {
+            random.ints(0, filmIds.size()).distinct().limit(LIKES_PER_USER)
+                    .forEach(i -> likes.add(new Object[]{filmIds.get(i), userId}));
+            random.ints(0, userIds.size()).distinct().limit(FRIENDS_PER_USER)
+                    .mapToObj(userIds::get)
+                    .filter(friendId -> !friendId.equals(userId))
+                    .forEach(friendId -> friendships.add(new Object[]{userId, friendId}));
+        }
+
+        if (jdbc != null) {
+            batchInsert(INSERT_LIKE_QUERY, likes);
+            batchInsert(INSERT_FRIENDSHIP_QUERY, friendships);
+            jdbc.update(RECOUNT_LIKES_QUERY);
+        } else {
+            likes.forEach(like -> filmStorage.addLike((Long) like[0], (Long) like[1]));
+            friendships.forEach(friendship -> addFriend((Long) friendship[0], (Long) friendship[1]));
+        }
+    }
+
+    private void batchInsert(String query, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbc.batchUpdate(query, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+
+    private void addFriend(Long userId, Long friendId) {
+        try {
+            userStorage.addFriend(userId, friendId);
+        } catch (ConflictException ignored) {
+            // в памяти дружба взаимна, обратная пара уже добавлена
+        }
+    }
+
+    // email и login уникальны в схеме, поэтому к случайным значениям добавляется номер пользователя
+    private static User uniqueUser(int index) {
+        User user = getRandomUser();
+        user.setEmail(index + "." + user.getEmail());
+        user.setLogin(user.getLogin() + "_" + index);
+        return user;
+    }
+
+    private static Film randomFilm(Random random) {
+        return film(random.ints(1, GENRES + 1).distinct().limit(1 + random.nextInt(MAX_GENRES_PER_FILM))
+                .mapToObj(genreId -> (long) genreId)
+                .toList());
+    }
+
+    private static Film film(Collection<Long> genreIds) {
+        Film film = new Film();
+        genreIds.forEach(genreId -> {
+            Genre genre = new Genre();
+            genre.setId(genreId);
+            film.getGenres().add(genre);
+        });
+        film.setName(getRandomFilmName());
+        film.setDescription(getRandomDescription());
+        film.setReleaseDate(getRandomReleaseDate());
+        film.setDuration(getRandomDuration());
+        film.setMpa(getRandomMpa());
+        return film;
+    }
+}
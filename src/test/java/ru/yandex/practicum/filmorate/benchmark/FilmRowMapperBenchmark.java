@@ -0,0 +1,245 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.Builder;
+import lombok.Data;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.RowMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.repository.GenreStorage;
+import ru.yandex.practicum.filmorate.repository.MpaRatingStorage;
+import ru.yandex.practicum.filmorate.repository.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.rowmapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Сравнение сборки фильмов из строки запроса: прежний путь {@code ResultSet -> FilmDto -> Film} с поиском
+ * колонок по имени и прямая сборка модели {@link FilmRowMapper} с номерами колонок, определёнными один раз.
+ *
+ * <p>Строки отдаёт {@link SimpleResultSet} в памяти, поэтому в замер не попадает работа драйвера БД.
+ * Выделение памяти на строку показывает профилировщик {@code -prof gc} ({@code gc.alloc.rate.norm},
+ * делённое на {@code rows})</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilmRowMapperBenchmark {
+    private static final int GENRES = 6;
+    private static final int MPA_RATINGS = 5;
+
+    @Param({"1000"})
+    private int rows;
+
+    @Param({"0", "10"})
+    private int likesPerFilm;
+
+    private ReferenceDataCache referenceData;
+    private FilmRowMapper filmRowMapper;
+    private SimpleResultSet resultSet;
+
+    @Setup
+    public void setUp() {
+        referenceData = new ReferenceDataCache(new GenreStub(), new MpaRatingStub());
+        referenceData.refresh();
+        filmRowMapper = new FilmRowMapper(referenceData);
+        resultSet = createResultSet();
+    }
+
+
+    @Benchmark
+    public void dtoPipeline(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            blackhole.consume(toFilm(mapFilmDto(resultSet)));
+        }
+    }
+
+    @Benchmark
+    public void directMapping(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        RowMapper<Film> mapper = filmRowMapper.films();
+        int rowNum = 0;
+        while (resultSet.next()) {
+            blackhole.consume(mapper.mapRow(resultSet, rowNum++));
+        }
+    }
+
+    //--- Прежний путь: ResultSet -> FilmDto -> Film -------------------------------------------------------------------
+    private FilmDto mapFilmDto(ResultSet rs) throws SQLException {
+        Set<GenreDto> genres = new LinkedHashSet<>();
+        LongHashSet likes = new LongHashSet();
+
+        for (Object genreId : readArray(rs, "genre_ids")) {
+            Genre genre = referenceData.getGenre(((Number) genreId).longValue()).orElseThrow();
+            genres.add(GenreDto.builder().id(genre.getId()).name(genre.getName()).build());
+        }
+        for (Object userId : readArray(rs, "like_ids")) likes.add(((Number) userId).longValue());
+
+        MpaRating mpa = referenceData.getMpaRating(rs.getLong("mpa_rating_id")).orElseThrow();
+
+        return FilmDto.builder()
+                .id(rs.getLong("id"))
+                .name(rs.getString("name"))
+                .description(rs.getString("description"))
+                .releaseDate(rs.getDate("release_date").toLocalDate())
+                .duration(rs.getLong("duration"))
+                .mpa(MpaRatingDto.builder()
+                        .id(mpa.getId())
+                        .name(mpa.getName())
+                        .description(mpa.getDescription())
+                        .build())
+                .genres(genres)
+                .likes(likes)
+                .build();
+    }
+
+    private static Film toFilm(FilmDto filmDto) {
+        Film film = new Film();
+
+        film.setId(filmDto.getId());
+        film.setName(filmDto.getName());
+        film.setDescription(filmDto.getDescription());
+        film.setReleaseDate(filmDto.getReleaseDate());
+        film.setDuration(filmDto.getDuration());
+        film.setMpa(toMpaRating(filmDto.getMpa()));
+        film.setGenres(filmDto.getGenres().stream()
+                .map(FilmRowMapperBenchmark::toGenre)
+                .collect(Collectors.toSet()));
+        film.setLikes(LongHashSet.from(filmDto.getLikes()));
+
+        return film;
+    }
+
+    private static Genre toGenre(GenreDto genreDto) {
+        Genre genre = new Genre();
+
+        genre.setId(genreDto.getId());
+        genre.setName(genreDto.getName());
+
+        return genre;
+    }
+
+    private static MpaRating toMpaRating(MpaRatingDto mpaRatingDto) {
+        MpaRating mpaRating = new MpaRating();
+
+        mpaRating.setId(mpaRatingDto.getId());
+        mpaRating.setName(mpaRatingDto.getName());
+        mpaRating.setDescription(mpaRatingDto.getDescription());
+
+        return mpaRating;
+    }
+
+    private static Object[] readArray(ResultSet rs, String column) throws SQLException {
+        Array array = rs.getArray(column);
+        return array != null ? (Object[]) array.getArray() : new Object[0];
+    }
+
+    // копии удалённых FilmDto, GenreDto и MpaRatingDto, чтобы прежний путь выделял те же объекты
+    @Data
+    @Builder
+    private static class FilmDto {
+        private Long id;
+        private String name;
+        private String description;
+        private LocalDate releaseDate;
+        private Long duration;
+        private MpaRatingDto mpa;
+        private Set<GenreDto> genres;
+        private Set<Long> likes;
+    }
+
+    @Data
+    @Builder
+    private static class GenreDto {
+        private Long id;
+        private String name;
+    }
+
+    @Data
+    @Builder
+    private static class MpaRatingDto {
+        private Long id;
+        private String name;
+        private String description;
+    }
+
+    //--- Данные -------------------------------------------------------------------------------------------------------
+    private SimpleResultSet createResultSet() {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.setAutoClose(false);
+        rs.addColumn("ID", Types.BIGINT, 19, 0);
+        rs.addColumn("NAME", Types.VARCHAR, 100, 0);
+        rs.addColumn("DESCRIPTION", Types.VARCHAR, 200, 0);
+        rs.addColumn("RELEASE_DATE", Types.DATE, 10, 0);
+        rs.addColumn("DURATION", Types.BIGINT, 19, 0);
+        rs.addColumn("MPA_RATING_ID", Types.INTEGER, 10, 0);
+        rs.addColumn("LIKES_COUNT", Types.BIGINT, 19, 0);
+        rs.addColumn("GENRE_IDS", Types.ARRAY, 0, 0);
+        rs.addColumn("LIKE_IDS", Types.ARRAY, 0, 0);
+
+        Random random = new Random(42);
+        for (long id = 1; id <= rows; id++) {
+            Object[] genreIds = LongStream.rangeClosed(1, 1 + random.nextInt(3))
+                    .mapToObj(i -> (Object) (1 + random.nextInt(GENRES)))
+                    .distinct()
+                    .toArray();
+            Object[] likeIds = likesPerFilm == 0 ? null : random.longs(likesPerFilm, 1, 1_000_000).boxed().toArray();
+
+            rs.addRow(id, "Film " + id, "Description of film " + id,
+                    Date.valueOf(LocalDate.of(1990, 1, 1).plusDays(random.nextInt(10_000))),
+                    60L + random.nextInt(120), 1 + random.nextInt(MPA_RATINGS), (long) likesPerFilm,
+                    genreIds, likeIds);
+        }
+        return rs;
+    }
+
+    private static final class GenreStub implements GenreStorage {
+        @Override
+        public Optional<Genre> getGenre(Long id) {
+            return getAllGenres().stream().filter(genre -> genre.getId().equals(id)).findFirst();
+        }
+
+        @Override
+        public Collection<Genre> getAllGenres() {
+            List<Genre> genres = new ArrayList<>();
+            for (long id = 1; id <= GENRES; id++) {
+                Genre genre = new Genre();
+                genre.setId(id);
+                genre.setName("Genre " + id);
+                genres.add(genre);
+            }
+            return genres;
+        }
+    }
+
+    private static final class MpaRatingStub implements MpaRatingStorage {
+        @Override
+        public Optional<MpaRating> getMpaRating(Long id) {
+            return getAllMpaRatings().stream().filter(mpa -> mpa.getId().equals(id)).findFirst();
+        }
+
+        @Override
+        public Collection<MpaRating> getAllMpaRatings() {
+            return LongStream.rangeClosed(1, MPA_RATINGS)
+                    .mapToObj(id -> new MpaRating(id, "MPA " + id, "Rating " + id))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.mapper.entity.FilmSummaryMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация страницы фильмов в JSON тем же {@link ObjectMapper}, что строит Spring MVC:
+ * полные фильмы со списками лайков против сокращённого представления с числом лайков
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilmSerializationBenchmark {
+    @Param({"100"})
+    private int pageSize;
+
+    @Param({"1000", "10000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private BenchmarkDataset dataset;
+    private List<Film> films;
+    private List<FilmSummary> summaries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.create(BenchmarkDataset.MEMORY, size);
+        // самые популярные фильмы: у них больше всего лайков
+        films = new ArrayList<>(dataset.filmStorage.getPopularFilms(pageSize));
+        summaries = films.stream()
+                .map(FilmSummaryMapper::toFilmSummary)
+                .toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+
+    @Benchmark
+    public byte[] films() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(films);
+    }
+
+    @Benchmark
+    public byte[] filmSummaries() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+}
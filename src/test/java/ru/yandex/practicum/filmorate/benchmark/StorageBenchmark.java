@@ -0,0 +1,172 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.PopularFilmsLeaderboard;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Горячие пути хранилищ фильмов и пользователей: {@code FilmDbStorage}/{@code UserDbStorage} поверх
+ * встроенной H2 и {@code InMemoryFilmStorage}/{@code InMemoryUserStorage} на одинаковых наборах данных
+ * размера {@code size} (см. {@link BenchmarkDataset})
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+    private static final int PAGE_SIZE = 100;
+    private static final int POPULAR_COUNT = 10;
+
+    @Param({BenchmarkDataset.JDBC, BenchmarkDataset.MEMORY})
+    private String storage;
+
+    @Param({"1000", "10000"})
+    private int size;
+
+    private BenchmarkDataset dataset;
+    private PopularFilmsLeaderboard leaderboard;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.create(storage, size);
+        leaderboard = new PopularFilmsLeaderboard(dataset.filmStorage);
+        leaderboard.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+
+    /**
+     * Случайные идентификаторы для каждого потока бенчмарка
+     */
+    @State(Scope.Thread)
+    public static class Ids {
+        private final Random random = new Random(42);
+    }
+
+    /**
+     * Фильм с половиной из {@code BenchmarkDataset.MANY_GENRES} жанров и два обновления, которые применяются
+     * по очереди: {@code unchanged} - жанры не меняются, {@code oneGenre} - один жанр заменяется другим,
+     * {@code replaced} - все жанры заменяются непересекающимся набором. {@code InMemoryFilmStorage} при обновлении
+     * жанры не меняет, поэтому для {@code memory} варианты не отличаются
+     */
+    @State(Scope.Thread)
+    public static class GenreUpdate {
+        @Param({"unchanged", "oneGenre", "replaced"})
+        private String change;
+
+        private Film original;
+        private Film changed;
+        private boolean applyChanged;
+
+        @Setup(Level.Trial)
+        public void setUp(StorageBenchmark benchmark) {
+            int half = BenchmarkDataset.MANY_GENRES / 2;
+            List<Long> genreIds = LongStream.rangeClosed(1, BenchmarkDataset.MANY_GENRES).boxed().toList();
+            List<Long> changedGenreIds = switch (change) {
+                case "unchanged" -> genreIds.subList(0, half);
+                case "oneGenre" -> genreIds.subList(1, half + 1);
+                case "replaced" -> genreIds.subList(half, 2 * half);
+                default -> throw new IllegalArgumentException("Unknown genre change: " + change);
+            };
+
+            original = benchmark.dataset.createFilm(genreIds.subList(0, half));
+            changed = BenchmarkDataset.withGenres(original, changedGenreIds);
+        }
+
+        private Film next() {
+            applyChanged = !applyChanged;
+            return applyChanged ? changed : original;
+        }
+    }
+
+    //--- Фильмы -------------------------------------------------------------------------------------------------------
+    @Benchmark
+    public Optional<Film> getFilm(Ids ids) {
+        return dataset.filmStorage.getFilm(dataset.randomFilmId(ids.random));
+    }
+
+    @Benchmark
+    public Collection<Film> getFilmsPage(Ids ids) {
+        return dataset.filmStorage.getFilms(dataset.randomFilmId(ids.random) - PAGE_SIZE, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Collection<FilmSummary> getFilmSummariesPage(Ids ids) {
+        return dataset.filmStorage.getFilmSummaries(dataset.randomFilmId(ids.random) - PAGE_SIZE, PAGE_SIZE);
+    }
+
+    /**
+     * Путь {@code FilmService.getPopularFilms} без кэша списка: порядок из рейтинга в памяти,
+     * фильмы загружаются по id
+     */
+    @Benchmark
+    public Collection<Film> getPopularFilms() {
+        return dataset.filmStorage.getFilmsByIds(leaderboard.top(POPULAR_COUNT));
+    }
+
+    @Benchmark
+    public Collection<Film> getFilmsByIds(Ids ids) {
+        List<Long> filmIds = ids.random.ints(POPULAR_COUNT, 0, dataset.filmIds.size())
+                .mapToObj(dataset.filmIds::get)
+                .toList();
+        return dataset.filmStorage.getFilmsByIds(filmIds);
+    }
+
+    /**
+     * Лайк и его снятие: состояние хранилища после операции не меняется
+     */
+    @Benchmark
+    public boolean addAndRemoveLike(Ids ids) {
+        Long filmId = dataset.randomFilmId(ids.random);
+        Long userId = dataset.randomUserId(ids.random);
+
+        boolean added = dataset.filmStorage.addLike(filmId, userId).orElseThrow().changed();
+        if (added) dataset.filmStorage.removeLike(filmId, userId);
+        return added;
+    }
+
+    /**
+     * Обновление фильма с большим числом жанров: записываются только изменившиеся жанры
+     */
+    @Benchmark
+    public Film updateFilmGenres(GenreUpdate update) {
+        return dataset.filmStorage.updateFilm(update.next());
+    }
+
+    //--- Пользователи -------------------------------------------------------------------------------------------------
+    @Benchmark
+    public Optional<User> getUser(Ids ids) {
+        return dataset.userStorage.getUser(dataset.randomUserId(ids.random));
+    }
+
+    @Benchmark
+    public Collection<User> getUsersPage(Ids ids) {
+        return dataset.userStorage.getUsers(dataset.randomUserId(ids.random) - PAGE_SIZE, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Optional<Collection<User>> getFriends(Ids ids) {
+        return dataset.userStorage.getFriends(dataset.randomUserId(ids.random));
+    }
+
+    @Benchmark
+    public Optional<Collection<User>> getCommonFriends(Ids ids) {
+        return dataset.userStorage.getCommonFriends(dataset.randomUserId(ids.random),
+                dataset.randomUserId(ids.random));
+    }
+}
@@ -1,6 +1,9 @@
 package ru.yandex.practicum.filmorate.integration;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
@@ -9,8 +12,18 @@ import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.MpaRating;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.cache.ExistenceCacheRegistry;
+import ru.yandex.practicum.filmorate.repository.cache.FilmCache;
+import ru.yandex.practicum.filmorate.repository.cache.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.repository.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.repository.impl.GenreDbStorage;
+import ru.yandex.practicum.filmorate.repository.impl.MpaRatingDbStorage;
 import ru.yandex.practicum.filmorate.repository.impl.UserDbStorage;
+import ru.yandex.practicum.filmorate.repository.parallel.ParallelLoader;
+import ru.yandex.practicum.filmorate.repository.stats.QueryStats;
+import ru.yandex.practicum.filmorate.repository.stats.QueryStatsDataSourcePostProcessor;
+import ru.yandex.practicum.filmorate.rowmapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.rowmapper.UserRowMapper;
 
 import java.time.LocalDate;
 import java.util.Set;
@@ -19,7 +32,23 @@ import static ru.yandex.practicum.filmorate.util.TestDataGenerator.*;
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@Import({UserDbStorage.class, FilmDbStorage.class})
+// QueryStatsDataSourcePostProcessor создаётся раньше прочих бинов, свойства для него нужно разрешать заранее
+@ImportAutoConfiguration(PropertyPlaceholderAutoConfiguration.class)
+@Import({
+        UserDbStorage.class,
+        FilmDbStorage.class,
+        GenreDbStorage.class,
+        MpaRatingDbStorage.class,
+        FilmRowMapper.class,
+        UserRowMapper.class,
+        ExistenceCacheRegistry.class,
+        FilmCache.class,
+        ReferenceDataCache.class,
+        ParallelLoader.class,
+        QueryStats.class,
+        QueryStatsDataSourcePostProcessor.class,
+        SimpleMeterRegistry.class
+})
 @ActiveProfiles("test")
 public abstract class BaseDbStorageTest {
 
@@ -29,6 +58,15 @@ public abstract class BaseDbStorageTest {
     @Autowired
     protected FilmDbStorage filmStorage;
 
+    @Autowired
+    protected QueryStats queryStats;
+
+    @Autowired
+    protected ExistenceCacheRegistry existenceCache;
+
+    @Autowired
+    protected ReferenceDataCache referenceData;
+
     protected User user;
     protected Film film;
 
@@ -0,0 +1,184 @@
+package ru.yandex.practicum.filmorate.integration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.cache.ExistenceCacheRegistry;
+import ru.yandex.practicum.filmorate.repository.cache.FilmCache;
+import ru.yandex.practicum.filmorate.repository.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.repository.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.repository.impl.GenreDbStorage;
+import ru.yandex.practicum.filmorate.repository.impl.MpaRatingDbStorage;
+import ru.yandex.practicum.filmorate.repository.impl.UserDbStorage;
+import ru.yandex.practicum.filmorate.repository.parallel.ParallelLoader;
+import ru.yandex.practicum.filmorate.rowmapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.rowmapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.util.BulkDataLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static ru.yandex.practicum.filmorate.util.TestDataGenerator.getRandomUser;
+
+/**
+ * Загрузка выполняет DDL (сдвиг счётчиков идентификаторов), который в H2 фиксирует транзакцию,
+ * поэтому тест работает с отдельной БД, а не с откатываемой базой {@link BaseDbStorageTest}
+ */
+class BulkDataLoaderTest {
+    private static final int USERS = 300;
+    private static final int FILMS = 50;
+    private static final long LIKES = 3_000;
+    private static final long FRIENDS = 1_000;
+
+    private SimpleDriverDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    public void setUp() {
+        dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:bulk_loader_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "");
+        BulkDataLoader.migrate(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbc.execute("DROP ALL OBJECTS");
+    }
+
+
+    @Test
+    public void testLoadInsertsRequestedRows() {
+        BulkDataLoader.Result result = new BulkDataLoader(dataSource, 42).load(USERS, FILMS, LIKES, FRIENDS);
+
+        assertThat(count("users")).isEqualTo(USERS);
+        assertThat(count("films")).isEqualTo(FILMS);
+        assertThat(count("film_likes")).isEqualTo(result.likes());
+        assertThat(count("user_friends")).isEqualTo(result.friends());
+        assertThat(result.likes()).isBetween(LIKES * 9 / 10, LIKES * 11 / 10);
+        assertThat(result.friends()).isBetween(FRIENDS * 9 / 10, FRIENDS * 11 / 10);
+        assertThat(jdbc.queryForObject("SELECT COUNT(DISTINCT film_id) FROM film_genres", Long.class))
+                .isEqualTo(FILMS);
+    }
+
+    @Test
+    public void testLoadCountsLikesPerFilm() {
+        new BulkDataLoader(dataSource, 42).load(USERS, FILMS, LIKES, FRIENDS);
+
+        Long mismatches = jdbc.queryForObject("""
+                SELECT COUNT(*)
+                FROM films f
+                WHERE f.likes_count <> (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.id)
+                """, Long.class);
+        assertThat(mismatches).isZero();
+    }
+
+    @Test
+    public void testLikesAreSkewed() {
+        new BulkDataLoader(dataSource, 42).load(USERS, FILMS, LIKES, FRIENDS);
+
+        List<Long> likesCounts = jdbc.queryForList("SELECT likes_count FROM films ORDER BY likes_count DESC",
+                Long.class);
+        // десятая часть фильмов получает заметно больше лайков, чем при равномерном выборе
+        long topLikes = likesCounts.subList(0, FILMS / 10).stream().mapToLong(Long::longValue).sum();
+        assertThat(topLikes).isGreaterThan(LIKES / 5);
+    }
+
+    @Test
+    public void testLoadIsReproducible() {
+        new BulkDataLoader(dataSource, 7).load(USERS, FILMS, LIKES, FRIENDS);
+        List<Long> firstLikes = jdbc.queryForList("SELECT likes_count FROM films ORDER BY id", Long.class);
+        jdbc.execute("DROP ALL OBJECTS");
+        BulkDataLoader.migrate(dataSource);
+
+        new BulkDataLoader(dataSource, 7).load(USERS, FILMS, LIKES, FRIENDS);
+        List<Long> secondLikes = jdbc.queryForList("SELECT likes_count FROM films ORDER BY id", Long.class);
+
+        assertThat(secondLikes).isEqualTo(firstLikes);
+    }
+
+    @Test
+    public void testLoadRestoresConstraintsAndIndexes() {
+        new BulkDataLoader(dataSource, 42).load(USERS, FILMS, LIKES, FRIENDS);
+
+        assertThat(jdbc.queryForObject("""
+                SELECT COUNT(*)
+                FROM information_schema.table_constraints
+                WHERE table_name IN ('FILM_LIKES', 'USER_FRIENDS') AND constraint_type = 'FOREIGN KEY'
+                """, Long.class)).isEqualTo(4);
+        assertThat(jdbc.queryForList("""
+                SELECT LOWER(index_name)
+                FROM information_schema.indexes
+                WHERE table_name IN ('FILM_LIKES', 'USER_FRIENDS')
+                """, String.class))
+                .contains("idx_film_likes_film", "idx_film_likes_user",
+                        "idx_user_friends_user", "idx_user_friends_friend");
+        assertThatThrownBy(() -> jdbc.update("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)",
+                Long.MAX_VALUE, 1L))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    public void testStoragesWorkOnLoadedData() {
+        BulkDataLoader.Result result = new BulkDataLoader(dataSource, 42).load(USERS, FILMS, LIKES, FRIENDS);
+
+        ExistenceCacheRegistry existenceCache = new ExistenceCacheRegistry(dataSource, true);
+        ReferenceDataCache referenceData = new ReferenceDataCache(
+                new GenreDbStorage(jdbc, existenceCache),
+                new MpaRatingDbStorage(jdbc, existenceCache));
+        referenceData.refresh();
+        FilmDbStorage filmStorage = new FilmDbStorage(jdbc, existenceCache, referenceData,
+                new FilmRowMapper(referenceData), ParallelLoader.sequential(), FilmCache.disabled());
+        UserDbStorage userStorage = new UserDbStorage(jdbc, existenceCache,
+                new UserRowMapper(), ParallelLoader.sequential());
+
+        Film film = filmStorage.getFilm(result.filmId(0)).orElseThrow();
+        assertThat(film.getGenres()).isNotEmpty();
+        assertThat(film.getMpa().getName()).isNotNull();
+        assertThat(userStorage.getUser(result.userId(USERS - 1))).isPresent();
+
+        // счётчики идентификаторов продолжаются после загруженных строк
+        User created = userStorage.createUser(getRandomUser());
+        assertThat(created.getId()).isEqualTo(result.userId(USERS));
+    }
+
+    @Test
+    public void testParallelLoadReturnsSameResultAsSequential() {
+        int size = 1_200;
+        BulkDataLoader.Result result = new BulkDataLoader(dataSource, 42).load(size, size, 20_000, 5_000);
+
+        ExistenceCacheRegistry existenceCache = new ExistenceCacheRegistry(dataSource, true);
+        ReferenceDataCache referenceData = new ReferenceDataCache(
+                new GenreDbStorage(jdbc, existenceCache),
+                new MpaRatingDbStorage(jdbc, existenceCache));
+        referenceData.refresh();
+        ParallelLoader parallelLoader = new ParallelLoader(true, 4);
+        List<Long> filmIds = new ArrayList<>();
+        for (int i = size - 1; i >= 0; i--) filmIds.add(result.filmId(i));
+
+        // порции по 500 id: три запроса, которые выполняются одновременно
+        FilmDbStorage sequentialFilms = new FilmDbStorage(jdbc, existenceCache, referenceData,
+                new FilmRowMapper(referenceData), ParallelLoader.sequential(), FilmCache.disabled());
+        FilmDbStorage parallelFilms = new FilmDbStorage(jdbc, existenceCache, referenceData,
+                new FilmRowMapper(referenceData), parallelLoader, FilmCache.disabled());
+        assertThat(parallelFilms.getFilmsByIds(filmIds))
+                .hasSize(size)
+                .isEqualTo(sequentialFilms.getFilmsByIds(filmIds));
+
+        UserDbStorage sequentialUsers = new UserDbStorage(jdbc, existenceCache,
+                new UserRowMapper(), ParallelLoader.sequential());
+        UserDbStorage parallelUsers = new UserDbStorage(jdbc, existenceCache, new UserRowMapper(), parallelLoader);
+        assertThat(parallelUsers.getAllUsers()).isEqualTo(sequentialUsers.getAllUsers());
+    }
+
+    private long count(String table) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+}
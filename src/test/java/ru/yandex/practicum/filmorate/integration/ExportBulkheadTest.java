@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.integration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import ru.yandex.practicum.filmorate.repository.bulkhead.BulkheadDataSource;
+import ru.yandex.practicum.filmorate.repository.bulkhead.DbBulkhead;
+import ru.yandex.practicum.filmorate.repository.cache.ExistenceCacheRegistry;
+import ru.yandex.practicum.filmorate.repository.cache.FilmCache;
+import ru.yandex.practicum.filmorate.repository.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.repository.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.repository.impl.GenreDbStorage;
+import ru.yandex.practicum.filmorate.repository.impl.MpaRatingDbStorage;
+import ru.yandex.practicum.filmorate.repository.impl.UserDbStorage;
+import ru.yandex.practicum.filmorate.repository.parallel.ParallelLoader;
+import ru.yandex.practicum.filmorate.rowmapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.rowmapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.util.BulkDataLoader;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Выгрузка пишет клиенту между запросами страниц, поэтому медленные клиенты не занимают разрешения
+ * {@link DbBulkhead} и не мешают обычным запросам
+ */
+class ExportBulkheadTest {
+    private static final int PERMITS = 2;
+    private static final int USERS = 1_200;
+    private static final int FILMS = 1_200;
+
+    private final DbBulkhead bulkhead = new DbBulkhead(PERMITS, Duration.ofMillis(200));
+    private JdbcTemplate jdbc;
+    private BulkDataLoader.Result data;
+    private FilmDbStorage filmStorage;
+    private UserDbStorage userStorage;
+
+    @BeforeEach
+    public void setUp() {
+        SimpleDriverDataSource target = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:export_bulkhead_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "");
+        BulkDataLoader.migrate(target);
+        data = new BulkDataLoader(target, 42).load(USERS, FILMS, 5_000, 2_000);
+
+        BulkheadDataSource dataSource = new BulkheadDataSource(target, bulkhead);
+        jdbc = new JdbcTemplate(dataSource);
+        ExistenceCacheRegistry existenceCache = new ExistenceCacheRegistry(dataSource, true);
+        existenceCache.loadAll();
+        ReferenceDataCache referenceData = new ReferenceDataCache(
+                new GenreDbStorage(jdbc, existenceCache),
+                new MpaRatingDbStorage(jdbc, existenceCache));
+        referenceData.refresh();
+        filmStorage = new FilmDbStorage(jdbc, existenceCache, referenceData,
+                new FilmRowMapper(referenceData), ParallelLoader.sequential(), FilmCache.disabled());
+        userStorage = new UserDbStorage(jdbc, existenceCache, new UserRowMapper(), ParallelLoader.sequential());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbc.execute("DROP ALL OBJECTS");
+    }
+
+
+    @Test
+    public void testSlowExportsDoNotHoldBulkheadPermits() throws Exception {
+        int exports = PERMITS + 1;
+        CountDownLatch blocked = new CountDownLatch(exports);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger exportedFilms = new AtomicInteger();
+        AtomicInteger exportedUsers = new AtomicInteger();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        // клиенты останавливаются на середине первой страницы, как при медленном чтении сокета
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < exports; i++) {
+            boolean films = i % 2 == 0;
+            threads.add(Thread.ofVirtual().start(() -> {
+                SlowClient client = new SlowClient(blocked, release);
+                try {
+                    if (films) {
+                        filmStorage.exportFilms(film -> client.accept());
+                        exportedFilms.addAndGet(client.received);
+                    } else {
+                        userStorage.exportUsers(user -> client.accept());
+                        exportedUsers.addAndGet(client.received);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(bulkhead.getActive()).isZero();
+        assertThat(filmStorage.getFilm(data.filmId(0))).isPresent();
+        assertThat(userStorage.getUser(data.userId(0))).isPresent();
+        assertThat(bulkhead.getRejected()).isZero();
+
+        release.countDown();
+        for (Thread thread : threads) thread.join();
+
+        assertThat(failures).isEmpty();
+        assertThat(exportedFilms.get()).isEqualTo(FILMS * 2);
+        assertThat(exportedUsers.get()).isEqualTo(USERS);
+    }
+
+    private static class SlowClient {
+        private final CountDownLatch blocked;
+        private final CountDownLatch release;
+        private int received;
+
+        SlowClient(CountDownLatch blocked, CountDownLatch release) {
+            this.blocked = blocked;
+            this.release = release;
+        }
+
+        void accept() {
+            if (++received != 100) return;
+
+            blocked.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
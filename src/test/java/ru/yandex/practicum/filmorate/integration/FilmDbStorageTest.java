@@ -2,12 +2,41 @@ package ru.yandex.practicum.filmorate.integration;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.EntityType;
+import ru.yandex.practicum.filmorate.repository.FilmStorage.LikeResult;
+import ru.yandex.practicum.filmorate.repository.cache.EntityExistenceCache.Presence;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.service.PopularFilmsLeaderboard;
+import ru.yandex.practicum.filmorate.service.SingleFlight;
+import ru.yandex.practicum.filmorate.util.QueryStatsAssertions.Counted;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.util.QueryStatsAssertions.counted;
+import static ru.yandex.practicum.filmorate.util.QueryStatsAssertions.statements;
+import static ru.yandex.practicum.filmorate.util.TestDataGenerator.*;
 
 public class FilmDbStorageTest extends BaseDbStorageTest {
 
+    @Autowired
+    private JdbcTemplate jdbc;
+
     @BeforeEach
     public void setUp() {
         super.setUp();
@@ -29,4 +58,266 @@ public class FilmDbStorageTest extends BaseDbStorageTest {
                     assertThat(f.getMpa()).isEqualTo(mpa);
                 });
     }
+
+    @Test
+    public void testGetAllFilmsLoadsGenresAndLikesInOneQuery() {
+        List<User> users = IntStream.range(0, 5)
+                .mapToObj(i -> userStorage.createUser(getRandomUser()))
+                .toList();
+        List<Film> films = IntStream.range(0, 30)
+                .mapToObj(i -> filmStorage.createFilm(getRandomFilm(Set.of(genre(1L), genre(i % 5 + 2L)))))
+                .toList();
+        films.forEach(f -> users.subList(0, (int) (f.getId() % users.size()))
+                .forEach(u -> filmStorage.addLike(f.getId(), u.getId())));
+
+        Counted<Collection<Film>> counted = counted(queryStats, filmStorage::getAllFilms);
+        Collection<Film> allFilms = counted.result();
+
+        assertEquals(1, counted.statements(), "films, genres and likes must be loaded in one query");
+        assertEquals(films.size(), allFilms.size(), "wrong number of films");
+        allFilms.forEach(f -> {
+            Set<Long> genreIds = f.getGenres().stream().map(Genre::getId).collect(Collectors.toSet());
+            assertTrue(genreIds.contains(1L), "genres not loaded");
+            assertTrue(f.getGenres().stream().allMatch(g -> g.getName() != null), "genre names not loaded");
+            assertEquals(f.getId() % users.size(), f.getLikes().size(), "wrong number of likes");
+        });
+    }
+
+    @Test
+    public void testGetPopularFilmsLoadsGenresAndLikesInOneQuery() {
+        User liker = userStorage.createUser(getRandomUser());
+        List<Film> films = new ArrayList<>();
+        IntStream.range(0, 10).forEach(i -> films.add(filmStorage.createFilm(getRandomFilm(Set.of(genre(2L))))));
+        filmStorage.addLike(films.get(3).getId(), liker.getId());
+
+        Counted<Collection<Film>> counted = counted(queryStats, () -> filmStorage.getPopularFilms(5));
+        List<Film> popularFilms = new ArrayList<>(counted.result());
+
+        assertEquals(1, counted.statements(), "films, genres and likes must be loaded in one query");
+        assertEquals(5, popularFilms.size(), "wrong number of films");
+        assertEquals(films.get(3).getId(), popularFilms.getFirst().getId(), "most liked film must be first");
+        assertEquals(Set.of(liker.getId()), popularFilms.getFirst().getLikes(), "likes not loaded");
+        popularFilms.forEach(f -> assertEquals(1, f.getGenres().size(), "genres not loaded"));
+    }
+
+
+    @Test
+    public void testGetFilmLoadsGenresAndLikesInOneQuery() {
+        Film createdFilm = filmStorage.createFilm(getRandomFilm(Set.of(genre(2L), genre(5L))));
+        User first = userStorage.createUser(getRandomUser());
+        User second = userStorage.createUser(getRandomUser());
+        filmStorage.addLike(createdFilm.getId(), first.getId());
+        filmStorage.addLike(createdFilm.getId(), second.getId());
+
+        Counted<Optional<Film>> counted = counted(queryStats, () -> filmStorage.getFilm(createdFilm.getId()));
+        Film loaded = counted.result().orElseThrow();
+
+        assertEquals(1, counted.statements(), "film, genres and likes must be loaded in one query");
+        assertEquals(Set.of(2L, 5L), loaded.getGenres().stream().map(Genre::getId).collect(Collectors.toSet()));
+        assertTrue(loaded.getGenres().stream().allMatch(g -> g.getName() != null), "genre names not loaded");
+        assertEquals(Set.of(first.getId(), second.getId()), loaded.getLikes());
+        assertNotNull(loaded.getMpa().getName(), "mpa name not loaded");
+    }
+
+    @Test
+    public void testGetMissingFilmReturnsEmpty() {
+        assertTrue(filmStorage.getFilm(Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testExportFilmsStreamsAllFilmsInIdOrder() {
+        User liker = userStorage.createUser(getRandomUser());
+        List<Long> ids = IntStream.range(0, 7)
+                .mapToObj(i -> filmStorage.createFilm(getRandomFilm(Set.of(genre(3L)))).getId())
+                .toList();
+        filmStorage.addLike(ids.getFirst(), liker.getId());
+
+        List<Film> exported = new ArrayList<>();
+        filmStorage.exportFilms(exported::add);
+
+        assertEquals(ids, exported.stream().map(Film::getId).toList(), "films must be exported in id order");
+        assertEquals(Set.of(liker.getId()), exported.getFirst().getLikes(), "likes not exported");
+        exported.forEach(f -> assertEquals(1, f.getGenres().size(), "genres not exported"));
+    }
+
+
+    @Test
+    public void testLikesCountFollowsAddAndRemoveLike() {
+        Film createdFilm = filmStorage.createFilm(film);
+        User first = userStorage.createUser(getRandomUser());
+        User second = userStorage.createUser(getRandomUser());
+
+        filmStorage.addLike(createdFilm.getId(), first.getId());
+        filmStorage.addLike(createdFilm.getId(), second.getId());
+        assertEquals(2L, getLikesCount(createdFilm.getId()), "likes_count not incremented");
+
+        filmStorage.removeLike(createdFilm.getId(), first.getId());
+        filmStorage.removeLike(createdFilm.getId(), first.getId());
+        assertEquals(1L, getLikesCount(createdFilm.getId()), "likes_count must only drop for removed likes");
+    }
+
+
+    @Test
+    public void testGetFilmsByIdsKeepsRequestedOrder() {
+        List<Long> ids = IntStream.range(0, 4)
+                .mapToObj(i -> filmStorage.createFilm(getRandomFilm(Set.of(genre(4L)))).getId())
+                .toList();
+        List<Long> requested = List.of(ids.get(2), ids.get(0), Long.MAX_VALUE, ids.get(3));
+
+        List<Film> films = new ArrayList<>(filmStorage.getFilmsByIds(requested));
+
+        assertEquals(List.of(ids.get(2), ids.get(0), ids.get(3)), films.stream().map(Film::getId).toList());
+        films.forEach(f -> assertEquals(1, f.getGenres().size(), "genres not loaded"));
+    }
+
+
+    @Test
+    public void testFilmExists() {
+        Film createdFilm = filmStorage.createFilm(film);
+
+        assertTrue(filmStorage.filmExists(createdFilm.getId()), "existing film not found");
+        assertFalse(filmStorage.filmExists(Long.MAX_VALUE), "missing film found");
+    }
+
+    @Test
+    public void testAddLikeChecksExistenceWithoutLoadingEntities() {
+        Film createdFilm = filmStorage.createFilm(film);
+        User liker = userStorage.createUser(getRandomUser());
+        FilmService service = new FilmService(filmStorage, userStorage, new PopularFilmsLeaderboard(filmStorage),
+                SingleFlight.disabled(), PopularFilmsCache.disabled());
+        // первичная загрузка кэша существования не относится к добавлению лайка
+        existenceCache.loadAll();
+
+        assertEquals(5, statements(queryStats, () -> service.addLike(createdFilm.getId(), liker.getId())),
+                "two existence checks, like insert, counter update and counter read expected");
+        assertThrows(NotFoundException.class, () -> service.addLike(Long.MAX_VALUE, liker.getId()));
+        assertThrows(NotFoundException.class, () -> service.addLike(createdFilm.getId(), Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testExistenceCacheAnswersForCommittedEntitiesWithoutQueries() {
+        // жанры и рейтинги зафиксированы миграциями, созданный в тестовой транзакции фильм - нет
+        Film createdFilm = filmStorage.createFilm(film);
+        existenceCache.loadAll();
+
+        int statements = statements(queryStats, () -> {
+            assertEquals(Presence.PRESENT, existenceCache.lookup(EntityType.GENRE, 1L));
+            assertEquals(Presence.PRESENT, existenceCache.lookup(EntityType.MPA_RATING, 1L));
+            assertEquals(Presence.ABSENT, existenceCache.lookup(EntityType.GENRE, 0L));
+            assertEquals(Presence.UNKNOWN, existenceCache.lookup(EntityType.FILM, createdFilm.getId()),
+                    "uncommitted film must not be cached");
+        });
+        assertEquals(0, statements, "existence cache must not query the database");
+    }
+
+    @Test
+    public void testCreateFilmValidatesGenresAndMpaFromReferenceData() {
+        referenceData.getAllGenres();
+
+        Counted<Film> counted = counted(queryStats,
+                () -> filmStorage.createFilm(getRandomFilm(Set.of(genre(1L), genre(2L)))));
+        Film createdFilm = counted.result();
+
+        assertEquals(2, counted.statements(), "only film insert and one genre batch expected");
+        assertThrows(NotFoundException.class, () -> filmStorage.createFilm(getRandomFilm(Set.of(genre(999L)))));
+
+        Film loadedFilm = filmStorage.getFilm(createdFilm.getId()).orElseThrow();
+        assertNotNull(loadedFilm.getMpa().getName(), "MPA name not resolved");
+        assertTrue(loadedFilm.getGenres().stream().allMatch(g -> g.getName() != null), "genre names not resolved");
+    }
+
+    @Test
+    public void testReferenceDataHandsOutCopies() {
+        String genreName = referenceData.getGenre(1L).orElseThrow().getName();
+        String mpaName = referenceData.getMpaRating(1L).orElseThrow().getName();
+
+        referenceData.getGenre(1L).orElseThrow().setName("Changed");
+        referenceData.getAllGenres().forEach(genre -> genre.setName("Changed"));
+        referenceData.getMpaRating(1L).orElseThrow().setName("Changed");
+        referenceData.getAllMpaRatings().forEach(mpa -> mpa.setName("Changed"));
+
+        assertEquals(genreName, referenceData.getGenre(1L).orElseThrow().getName());
+        assertEquals(genreName, referenceData.getAllGenres().iterator().next().getName());
+        assertEquals(mpaName, referenceData.getMpaRating(1L).orElseThrow().getName());
+        assertEquals(mpaName, referenceData.getAllMpaRatings().iterator().next().getName());
+    }
+
+    @Test
+    public void testUpdateFilmTouchesOnlyChangedGenres() {
+        Film createdFilm = filmStorage.createFilm(getRandomFilm(Set.of(genre(1L), genre(2L), genre(3L))));
+        existenceCache.loadAll();
+
+        assertEquals(3, statements(queryStats, () -> filmStorage.updateFilm(createdFilm)),
+                "unchanged genres must not be rewritten");
+
+        createdFilm.setGenres(Set.of(genre(2L), genre(3L), genre(4L), genre(5L)));
+        assertEquals(5, statements(queryStats, () -> filmStorage.updateFilm(createdFilm)),
+                "removed and added genres must be written in one batch each");
+        Set<Long> genreIds = filmStorage.getFilm(createdFilm.getId()).orElseThrow().getGenres().stream()
+                .map(Genre::getId)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(2L, 3L, 4L, 5L), genreIds, "wrong genres after update");
+    }
+
+    @Test
+    public void testFilmSummariesCarryLikesCountWithoutLoadingLikes() {
+        List<User> users = IntStream.range(0, 3)
+                .mapToObj(i -> userStorage.createUser(getRandomUser()))
+                .toList();
+        List<Long> ids = IntStream.range(0, 4)
+                .mapToObj(i -> filmStorage.createFilm(getRandomFilm(Set.of(genre(1L)))).getId())
+                .toList();
+        users.forEach(u -> filmStorage.addLike(ids.get(1), u.getId()));
+        filmStorage.addLike(ids.get(2), users.getFirst().getId());
+
+        Counted<Collection<FilmSummary>> counted = counted(queryStats,
+                () -> filmStorage.getFilmSummariesByIds(List.of(ids.get(1), ids.get(2), ids.get(0))));
+        List<FilmSummary> summaries = new ArrayList<>(counted.result());
+
+        assertEquals(1, counted.statements(), "films and genres must be loaded in one query");
+        assertEquals(List.of(3L, 1L, 0L), summaries.stream().map(FilmSummary::getLikesCount).toList());
+        summaries.forEach(f -> assertEquals(Set.of(1L), f.getGenres().stream()
+                .map(Genre::getId).collect(Collectors.toSet()), "genres not loaded"));
+        assertEquals(3L, filmStorage.getFilmSummary(ids.get(1)).orElseThrow().getLikesCount());
+        assertTrue(filmStorage.getFilmSummary(Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testGetLikesReturnsOrderedPages() {
+        Film createdFilm = filmStorage.createFilm(film);
+        List<Long> userIds = IntStream.range(0, 5)
+                .mapToObj(i -> userStorage.createUser(getRandomUser()).getId())
+                .toList();
+        userIds.reversed().forEach(userId -> filmStorage.addLike(createdFilm.getId(), userId));
+
+        assertEquals(userIds.subList(0, 2), new ArrayList<>(filmStorage.getLikes(createdFilm.getId(), null, 2)));
+        assertEquals(userIds.subList(2, 5),
+                new ArrayList<>(filmStorage.getLikes(createdFilm.getId(), userIds.get(1), 10)));
+    }
+
+    @Test
+    public void testDuplicateLikeIsNotCounted() {
+        Film createdFilm = filmStorage.createFilm(film);
+        User liker = userStorage.createUser(getRandomUser());
+
+        assertEquals(Optional.of(LikeResult.changed(1)), filmStorage.addLike(createdFilm.getId(), liker.getId()));
+        assertEquals(Optional.of(LikeResult.UNCHANGED), filmStorage.addLike(createdFilm.getId(), liker.getId()));
+        assertEquals(1L, getLikesCount(createdFilm.getId()), "duplicate like must not be counted");
+    }
+
+
+    private Long getLikesCount(Long filmId) {
+        return jdbc.queryForObject("SELECT likes_count FROM films WHERE id = ?", Long.class, filmId);
+    }
+
+    private Film getRandomFilm(Set<Genre> genres) {
+        return new Film(null, getRandomFilmName(), getRandomDescription(), getRandomReleaseDate(),
+                getRandomDuration(), getRandomMpa(), genres, Set.of());
+    }
+
+    private Genre genre(Long id) {
+        Genre genre = new Genre();
+        genre.setId(id);
+        return genre;
+    }
 }
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.integration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import ru.yandex.practicum.filmorate.repository.cache.ExistenceCacheRegistry;
+import ru.yandex.practicum.filmorate.repository.cache.FilmCache;
+import ru.yandex.practicum.filmorate.repository.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.repository.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.repository.impl.GenreDbStorage;
+import ru.yandex.practicum.filmorate.repository.impl.MpaRatingDbStorage;
+import ru.yandex.practicum.filmorate.repository.impl.UserDbStorage;
+import ru.yandex.practicum.filmorate.repository.parallel.ParallelLoader;
+import ru.yandex.practicum.filmorate.rowmapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.rowmapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.service.PopularFilmsLeaderboard;
+import ru.yandex.practicum.filmorate.service.SingleFlight;
+import ru.yandex.practicum.filmorate.util.BulkDataLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Одновременные лайки и их удаление оставляют в рейтинге {@link PopularFilmsLeaderboard}
+ * то же число лайков, что и в БД
+ */
+class LikeLeaderboardConcurrencyTest {
+    private static final int USERS = 64;
+    private static final int FILMS = 3;
+    private static final int ROUNDS = 20;
+
+    private JdbcTemplate jdbc;
+    private BulkDataLoader.Result data;
+    private PopularFilmsLeaderboard leaderboard;
+    private FilmService service;
+
+    @BeforeEach
+    public void setUp() {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:like_leaderboard_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "");
+        BulkDataLoader.migrate(dataSource);
+        data = new BulkDataLoader(dataSource, 42).load(USERS, FILMS, 60, 0);
+
+        jdbc = new JdbcTemplate(dataSource);
+        ExistenceCacheRegistry existenceCache = new ExistenceCacheRegistry(dataSource, true);
+        existenceCache.loadAll();
+        ReferenceDataCache referenceData = new ReferenceDataCache(
+                new GenreDbStorage(jdbc, existenceCache),
+                new MpaRatingDbStorage(jdbc, existenceCache));
+        referenceData.refresh();
+        FilmDbStorage filmStorage = new FilmDbStorage(jdbc, existenceCache, referenceData,
+                new FilmRowMapper(referenceData), ParallelLoader.sequential(), FilmCache.disabled());
+        UserDbStorage userStorage = new UserDbStorage(jdbc, existenceCache,
+                new UserRowMapper(), ParallelLoader.sequential());
+
+        leaderboard = new PopularFilmsLeaderboard(filmStorage);
+        leaderboard.rebuild();
+        service = new FilmService(filmStorage, userStorage, leaderboard, SingleFlight.disabled(),
+                PopularFilmsCache.disabled());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbc.execute("DROP ALL OBJECTS");
+    }
+
+
+    @Test
+    public void testConcurrentLikesAndUnlikesKeepLeaderboardInSyncWithDb() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            long userId = data.userId(i);
+            SplittableRandom random = new SplittableRandom(i);
+            threads.add(Thread.ofVirtual().start(() -> {
+                try {
+                    assertThat(start.await(5, TimeUnit.SECONDS)).isTrue();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        long filmId = data.filmId(random.nextInt(FILMS));
+                        if (random.nextBoolean()) {
+                            service.addLike(filmId, userId);
+                        } else {
+                            service.removeLike(filmId, userId);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+
+        assertThat(failures).isEmpty();
+        for (int i = 0; i < FILMS; i++) {
+            long filmId = data.filmId(i);
+            Long likesCount = jdbc.queryForObject("SELECT likes_count FROM films WHERE id = ?", Long.class, filmId);
+            Long likes = jdbc.queryForObject("SELECT COUNT(*) FROM film_likes WHERE film_id = ?", Long.class, filmId);
+
+            assertThat(likesCount).isEqualTo(likes);
+            assertThat(leaderboard.likesCount(filmId)).as("leaderboard count of film %d", filmId)
+                    .isEqualTo(likesCount);
+        }
+    }
+}
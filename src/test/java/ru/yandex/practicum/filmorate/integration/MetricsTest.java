@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.integration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.bulkhead.DbBulkhead;
+import ru.yandex.practicum.filmorate.repository.stats.QueryStats;
+import ru.yandex.practicum.filmorate.repository.stats.StorageQueryStatsAspect;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.yandex.practicum.filmorate.util.TestDataGenerator.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class MetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+
+    @Test
+    public void testRequestsAreTimedPerEndpointStorageMethodAndStatement() throws Exception {
+        User user = userService.create(getRandomUser());
+        Film film = filmService.create(new Film(null, getRandomFilmName(), getRandomDescription(),
+                getRandomReleaseDate(), getRandomDuration(), getRandomMpa(), null, null));
+        filmService.addLike(film.getId(), user.getId());
+
+        mockMvc.perform(get("/films/{id}", film.getId())).andExpect(status().isOk());
+
+        assertThat(meterRegistry.get("http.server.requests").tag("uri", "/films/{id}").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get(StorageQueryStatsAspect.STORAGE_TIMER)
+                .tag("method", "FilmDbStorage.getFilm").timer().count())
+                .isPositive();
+        assertThat(meterRegistry.get(QueryStats.STATEMENT_TIMER)
+                .tag("storage", "FilmDbStorage.getFilm").tag("operation", "SELECT").timer().count())
+                .isPositive();
+        assertThat(meterRegistry.get(QueryStats.STATEMENT_TIMER)
+                .tag("storage", "FilmDbStorage.addLike").tag("operation", "INSERT").timer().count())
+                .isPositive();
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "existence.user").tag("result", "hit")
+                .functionCounter().count())
+                .isPositive();
+        assertThat(meterRegistry.get("hikaricp.connections.acquire").timer().count()).isPositive();
+        assertThat(meterRegistry.get(DbBulkhead.WAIT_TIMER).timer().count()).isPositive();
+
+        // повторное чтение фильма обслуживается кэшем фильмов
+        mockMvc.perform(get("/films/{id}", film.getId())).andExpect(status().isOk());
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "films").tag("result", "hit")
+                .functionCounter().count())
+                .isPositive();
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", "films").functionCounter()).isNotNull();
+    }
+
+    @Test
+    public void testPrometheusEndpointPublishesHistograms() throws Exception {
+        filmService.findAll();
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("filmorate_storage_seconds_bucket")))
+                .andExpect(content().string(containsString("filmorate_db_statement_seconds_bucket")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_bucket")))
+                .andExpect(content().string(containsString("filmorate_db_bulkhead_wait_seconds_bucket")))
+                .andExpect(content().string(containsString("cache_gets_total")));
+    }
+}
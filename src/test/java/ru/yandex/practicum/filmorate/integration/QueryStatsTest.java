@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.integration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.stats.QueryStats;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.yandex.practicum.filmorate.util.QueryStatsAssertions.queries;
+import static ru.yandex.practicum.filmorate.util.QueryStatsAssertions.queriesAtMost;
+import static ru.yandex.practicum.filmorate.util.TestDataGenerator.*;
+
+/**
+ * Число запросов к БД на HTTP-запрос не должно расти с числом фильмов, пользователей и лайков
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QueryStatsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private QueryStats queryStats;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private List<User> users;
+    private List<Film> films;
+
+    @BeforeEach
+    public void setUp() {
+        users = IntStream.range(0, 12)
+                .mapToObj(i -> userService.create(getRandomUser()))
+                .toList();
+        films = IntStream.range(0, 12)
+                .mapToObj(i -> filmService.create(randomFilm()))
+                .toList();
+        for (int i = 0; i < films.size(); i++) {
+            for (User user : users.subList(0, i)) filmService.addLike(films.get(i).getId(), user.getId());
+        }
+        for (User friend : users.subList(1, users.size())) {
+            userService.addFriend(users.getFirst().getId(), friend.getId());
+        }
+        queryStats.reset();
+    }
+
+
+    @Test
+    public void testFilmEndpointsDoNotQueryPerFilm() throws Exception {
+        mockMvc.perform(get("/films")).andExpect(status().isOk()).andExpect(queriesAtMost(1));
+        mockMvc.perform(get("/films").param("limit", "10")).andExpect(queriesAtMost(1));
+        mockMvc.perform(get("/films/{id}", films.getLast().getId())).andExpect(queriesAtMost(1));
+        mockMvc.perform(get("/films/popular").param("count", "10")).andExpect(queriesAtMost(2));
+    }
+
+    @Test
+    public void testUserEndpointsDoNotQueryPerUser() throws Exception {
+        mockMvc.perform(get("/users/{id}", users.getFirst().getId())).andExpect(queriesAtMost(2));
+        mockMvc.perform(get("/users/{id}/friends", users.getFirst().getId())).andExpect(queriesAtMost(2));
+        mockMvc.perform(get("/users/{id}/friends/common/{otherId}", users.get(1).getId(), users.get(2).getId()))
+                .andExpect(queriesAtMost(2));
+    }
+
+    @Test
+    public void testStatsAreCollectedPerEndpointAndStorageMethod() throws Exception {
+        mockMvc.perform(get("/films/{id}", films.getFirst().getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/films/{id}", films.getLast().getId())).andExpect(status().isOk());
+
+        QueryStats.Stats endpoint = queryStats.getStats().get("GET /films/{id}");
+        assertThat(endpoint).isNotNull();
+        assertThat(endpoint.calls()).isEqualTo(2);
+        assertThat(endpoint.statements()).isPositive();
+        assertThat(endpoint.rows()).isPositive();
+        assertThat(endpoint.repeatedStatements()).isZero();
+        assertThat(queryStats.getStats()).containsKey("FilmDbStorage.getFilm");
+
+        mockMvc.perform(get("/admin/query-stats"))
+                .andExpect(status().isOk())
+                .andExpect(result -> assertThat(result.getResponse().getContentAsString())
+                        .contains("GET /films/{id}", "FilmDbStorage.getFilm"));
+    }
+
+    @Test
+    public void testCachedFilmIsServedWithoutQueries() throws Exception {
+        Film film = films.getFirst();
+        mockMvc.perform(get("/films/{id}", film.getId())).andExpect(queries(1));
+        mockMvc.perform(get("/films/{id}", film.getId())).andExpect(queries(0));
+
+        filmService.addLike(film.getId(), users.getLast().getId());
+        mockMvc.perform(get("/films/{id}", film.getId()))
+                .andExpect(queries(0))
+                .andExpect(jsonPath("$.likes", hasItem(users.getLast().getId().intValue())));
+
+        film.setName("Renamed");
+        filmService.update(film);
+        mockMvc.perform(get("/films/{id}", film.getId()))
+                .andExpect(queries(1))
+                .andExpect(jsonPath("$.name").value("Renamed"));
+    }
+
+    @Test
+    public void testRepeatedStatementsAreReported() {
+        try (QueryStats.Scope ignored = queryStats.open("repeated")) {
+            for (Film film : films) {
+                jdbc.queryForObject("SELECT name FROM films WHERE id = ?", String.class, film.getId());
+            }
+        }
+
+        QueryStats.Stats stats = queryStats.getStats().get("repeated");
+        assertThat(stats.statements()).isEqualTo(films.size());
+        assertThat(stats.rows()).isEqualTo(films.size());
+        assertThat(stats.repeatedStatements()).isEqualTo(1);
+    }
+
+    private static Film randomFilm() {
+        return new Film(null, getRandomFilmName(), getRandomDescription(), getRandomReleaseDate(),
+                getRandomDuration(), getRandomMpa(), null, null);
+    }
+}
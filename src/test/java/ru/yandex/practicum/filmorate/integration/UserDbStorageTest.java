@@ -6,11 +6,13 @@ import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static ru.yandex.practicum.filmorate.util.TestDataGenerator.getRandomUser;
 
 class UserDbStorageTest extends BaseDbStorageTest {
@@ -52,6 +54,24 @@ class UserDbStorageTest extends BaseDbStorageTest {
                 });
     }
 
+    @Test
+    public void testGetUserLoadsFriends() {
+        User createdUser = userStorage.createUser(user);
+        User friend = userStorage.createUser(getRandomUser());
+        userStorage.addFriend(createdUser.getId(), friend.getId());
+
+        assertEquals(Set.of(friend.getId()), userStorage.getUser(createdUser.getId()).orElseThrow().getFriends());
+        assertTrue(userStorage.getUser(Long.MAX_VALUE).isEmpty(), "missing user found");
+    }
+
+    @Test
+    public void testUserExists() {
+        User createdUser = userStorage.createUser(user);
+
+        assertTrue(userStorage.userExists(createdUser.getId()), "existing user not found");
+        assertFalse(userStorage.userExists(Long.MAX_VALUE), "missing user found");
+    }
+
     @Test
     public void testGetAllUser() {
         IntStream.range(0, 3).forEach(i -> userStorage.createUser(getRandomUser()));
@@ -62,6 +82,33 @@ class UserDbStorageTest extends BaseDbStorageTest {
         assertEquals(3, allUsers.size(), "wrong number of users");
     }
 
+    @Test
+    public void testGetUsersPage() {
+        List<Long> ids = IntStream.range(0, 5)
+                .mapToObj(i -> userStorage.createUser(getRandomUser()).getId())
+                .toList();
+
+        List<Long> firstPage = userStorage.getUsers(null, 3).stream().map(User::getId).toList();
+        List<Long> secondPage = userStorage.getUsers(firstPage.getLast(), 3).stream().map(User::getId).toList();
+
+        assertEquals(ids.subList(0, 3), firstPage, "wrong first page");
+        assertEquals(ids.subList(3, 5), secondPage, "wrong second page");
+    }
+
+    @Test
+    public void testExportUsersStreamsAllUsersInIdOrder() {
+        List<Long> ids = IntStream.range(0, 4)
+                .mapToObj(i -> userStorage.createUser(getRandomUser()).getId())
+                .toList();
+        userStorage.addFriend(ids.get(0), ids.get(1));
+
+        List<User> exported = new ArrayList<>();
+        userStorage.exportUsers(exported::add);
+
+        assertEquals(ids, exported.stream().map(User::getId).toList(), "users must be exported in id order");
+        assertEquals(Set.of(ids.get(1)), exported.getFirst().getFriends(), "friends not exported");
+    }
+
     @Test
     public void testUpdateUser() {
         User createdUser = userStorage.createUser(user);
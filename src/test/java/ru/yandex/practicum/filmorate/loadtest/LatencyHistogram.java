@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Потокобезопасная гистограмма задержек в микросекундах с логарифмически-линейными интервалами.
+ *
+ * <p>Значения меньше {@code SUB_BUCKETS} хранятся точно, большие - в интервалах с относительной
+ * погрешностью не больше 1/64 (~1.6%). Память постоянна (~16 КБ) и не зависит от числа запросов,
+ * поэтому гистограмма подходит для длинных прогонов, где хранение всех замеров заняло бы гигабайты</p>
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS >> 1;
+    // значения больше ~19 часов (2^36 мкс) попадают в последний интервал
+    private static final int MAX_SHIFT = 30;
+    private static final int BUCKETS = SUB_BUCKETS + MAX_SHIFT * HALF_SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(bucketOf(value));
+        total.increment();
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    long count() {
+        return total.sum();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    /**
+     * Значение, не меньше которого {@code percentile} процентов замеров (верхняя граница интервала)
+     */
+    long percentile(double percentile) {
+        long count = count();
+        if (count == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= target) return Math.min(upperBoundOf(bucket), max());
+        }
+        return max();
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        // старшие SUB_BUCKET_BITS - 1 бит значения после сдвига лежат в [HALF_SUB_BUCKETS, SUB_BUCKETS)
+        int shift = Math.min(63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1), MAX_SHIFT);
+        long subBucket = Math.min(value >>> shift, SUB_BUCKETS - 1);
+        return (int) (SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + subBucket - HALF_SUB_BUCKETS);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+
+        int shift = (bucket - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = (bucket - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Параметры нагрузочного прогона. Задаются аргументами вида {@code ключ=значение}, например
+ * {@code users=100000 likes=1000000 concurrency=128 duration=120}.
+ *
+ * <ul>
+ *   <li>{@code users}, {@code films}, {@code likes}, {@code friends} - размер набора данных</li>
+ *   <li>{@code loader} - {@code bulk} (по умолчанию для приложения в этом же процессе) загружает данные в БД
+ *   до запуска приложения, {@code api} создаёт их запросами к API</li>
+ *   <li>{@code concurrency} - число одновременных клиентов (виртуальных потоков); список через запятую,
+ *   например {@code 1000,5000,10000}, прогоняет смесь для каждого значения. Данные создаются
+ *   с первым значением</li>
+ *   <li>{@code threads} - модель потоков приложения в этом же процессе: {@code platform} (пул Tomcat)
+ *   или {@code virtual}; список {@code platform,virtual} запускает приложение в каждой модели на одних
+ *   и тех же данных для сравнения. По умолчанию - как в {@code application.yaml}</li>
+ *   <li>{@code bulkhead} - число разрешений ограничителя обращений к БД, {@code 0} отключает его.
+ *   По умолчанию - как в {@code application.yaml}</li>
+ *   <li>{@code warmup}, {@code duration} - длительность прогрева и замера в секундах</li>
+ *   <li>{@code mix} - веса сценариев, например {@code getFilm=50,popularFilms=50}; не указанные сценарии
+ *   не выполняются. По умолчанию {@link LoadTestRunner#DEFAULT_MIX}</li>
+ *   <li>{@code baseUrl} - адрес уже запущенного приложения; если не задан, приложение запускается
+ *   в этом же процессе на случайном порту с файловой H2 в {@code dbDir}</li>
+ *   <li>{@code report} - файл JSON-отчёта</li>
+ * </ul>
+ */
+record LoadTestConfig(int users,
+                      int films,
+                      int likes,
+                      int friends,
+                      String loader,
+                      List<Integer> concurrency,
+                      List<String> threads,
+                      Integer bulkhead,
+                      Duration warmup,
+                      Duration duration,
+                      long seed,
+                      Map<String, Integer> mix,
+                      String baseUrl,
+                      Path dbDir,
+                      Path report) {
+    static final String API_LOADER = "api";
+    static final String BULK_LOADER = "bulk";
+    static final String PLATFORM_THREADS = "platform";
+    static final String VIRTUAL_THREADS = "virtual";
+
+    static LoadTestConfig parse(String[] args, Map<String, Integer> defaultMix) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) throw new IllegalArgumentException("Expected key=value argument: " + arg);
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        String loader = values.getOrDefault("loader", values.containsKey("baseUrl") ? API_LOADER : BULK_LOADER);
+        if (!loader.equals(API_LOADER) && !loader.equals(BULK_LOADER)) {
+            throw new IllegalArgumentException("Unknown loader: " + loader);
+        }
+
+        List<String> threads = values.containsKey("threads") ? split(values.get("threads")) : List.of();
+        for (String mode : threads) {
+            if (!mode.equals(PLATFORM_THREADS) && !mode.equals(VIRTUAL_THREADS)) {
+                throw new IllegalArgumentException("Unknown threads mode: " + mode);
+            }
+        }
+        if (!threads.isEmpty() && values.containsKey("baseUrl")) {
+            throw new IllegalArgumentException("Threads mode is only supported for the in-process application");
+        }
+
+        return new LoadTestConfig(
+                intValue(values, "users", 10_000),
+                intValue(values, "films", 1_000),
+                intValue(values, "likes", 100_000),
+                intValue(values, "friends", 20_000),
+                loader,
+                split(values.getOrDefault("concurrency", "64")).stream().map(Integer::parseInt).toList(),
+                threads,
+                values.containsKey("bulkhead") ? Integer.parseInt(values.get("bulkhead")) : null,
+                Duration.ofSeconds(intValue(values, "warmup", 10)),
+                Duration.ofSeconds(intValue(values, "duration", 60)),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                values.containsKey("mix") ? parseMix(values.get("mix")) : defaultMix,
+                values.get("baseUrl"),
+                Path.of(values.getOrDefault("dbDir", "target/loadtest")),
+                Path.of(values.getOrDefault("report", "target/loadtest-report.json"))
+        );
+    }
+
+    boolean bulkLoad() {
+        return BULK_LOADER.equals(loader);
+    }
+
+    private static int intValue(Map<String, String> values, String key, int defaultValue) {
+        return values.containsKey(key) ? Integer.parseInt(values.get(key)) : defaultValue;
+    }
+
+    private static List<String> split(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":|=");
+            weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,525 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.util.BulkDataLoader;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Нагрузочный прогон REST API: создаёт набор данных заданного размера, затем в течение
+ * {@code duration} секунд выполняет смесь запросов из {@code concurrency} виртуальных потоков и печатает
+ * пропускную способность и задержки p50/p99/p999 по каждому сценарию. Отчёт также сохраняется в JSON.
+ *
+ * <p>Данные создаются через API ({@code loader=api}) или, для приложения в этом же процессе, загружаются
+ * в БД до его запуска {@link BulkDataLoader} ({@code loader=bulk}) - так миллионы лайков готовы за минуты.</p>
+ *
+ * <p>Сценарии повторяют запросы {@code Filmorate-Test-Collection.json} (создание и обновление пользователей
+ * и фильмов, списки) и дополняют их чтением, лайками, популярными фильмами и друзьями.
+ * Запуск: {@code mvn -Ploadtest test -Dloadtest.args="users=100000 likes=1000000 concurrency=128"},
+ * параметры описаны в {@link LoadTestConfig}.</p>
+ *
+ * <p>Сравнение моделей потоков на 1-10 тысячах одновременных соединений:
+ * {@code threads=platform,virtual concurrency=1000,5000,10000} - приложение по очереди запускается
+ * в каждой модели на одних данных, в конце печатается сводная таблица</p>
+ */
+public final class LoadTestRunner {
+    static final Map<String, Integer> DEFAULT_MIX = defaultMix();
+
+    private static final int PAGE_SIZE = 50;
+    private static final int POPULAR_COUNT = 10;
+    private static final int GENRES = 6;
+    private static final int MPA_RATINGS = 5;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    // учётные данные БД из application.yaml: файл БД создаётся загрузчиком до запуска приложения
+    private static final String DB_USERNAME = "sa";
+    private static final String DB_PASSWORD = "passw0rd";
+
+    private final LoadTestConfig config;
+    private final HttpClient http;
+    private final ObjectMapper json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final Map<String, BiFunction<LoadTestRunner, Random, HttpRequest>> scenarios = scenarios();
+    private final AtomicInteger createdEntities = new AtomicInteger();
+    private final Map<String, Object> bulkLoad;
+    private final List<Map<String, Object>> runs = new ArrayList<>();
+
+    private String baseUrl;
+    private List<Map<String, Object>> seedSteps;
+    private long[] userIds;
+    private long[] filmIds;
+
+    private LoadTestRunner(LoadTestConfig config, HttpClient http, Map<String, Object> bulkLoad) {
+        this.config = config;
+        this.http = http;
+        this.bulkLoad = bulkLoad;
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args, DEFAULT_MIX);
+        if (config.baseUrl() != null && config.bulkLoad()) {
+            throw new IllegalArgumentException("Bulk loading is only supported for the in-process application");
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(REQUEST_TIMEOUT)
+                     .executor(executor)
+                     .build()) {
+            if (config.baseUrl() != null) {
+                LoadTestRunner runner = new LoadTestRunner(config, http, null);
+                runner.run(config.baseUrl(), null);
+                runner.saveReport();
+                return;
+            }
+
+            String databaseUrl = createDatabase(config);
+            LoadTestRunner runner = new LoadTestRunner(config, http,
+                    config.bulkLoad() ? bulkLoad(config, databaseUrl) : null);
+            List<String> threadModes = config.threads().isEmpty() ? Collections.singletonList(null) : config.threads();
+            for (String threads : threadModes) {
+                try (ConfigurableApplicationContext application = startApplication(config, databaseUrl, threads)) {
+                    runner.run("http://localhost:" + application.getEnvironment().getProperty("local.server.port"),
+                            threads);
+                }
+            }
+            runner.saveReport();
+        }
+    }
+
+    /**
+     * Прогоняет смесь для каждого значения {@code concurrency}. Данные создаются при первом вызове
+     */
+    private void run(String baseUrl, String threads) throws Exception {
+        this.baseUrl = baseUrl;
+        System.out.printf("%nLoad test against %s (threads: %s): %s%n", baseUrl,
+                threads != null ? threads : "default", config);
+        if (seedSteps == null) seedSteps = seed();
+
+        for (int concurrency : config.concurrency()) {
+            Map<String, Object> run = new LinkedHashMap<>();
+            run.put("threads", threads != null ? threads : "default");
+            run.put("concurrency", concurrency);
+            run.putAll(runMix(concurrency));
+            runs.add(run);
+        }
+    }
+
+    private void saveReport() throws IOException {
+        if (runs.size() > 1) printSummary();
+
+        Map<String, Object> configReport = new LinkedHashMap<>();
+        configReport.put("users", config.users());
+        configReport.put("films", config.films());
+        configReport.put("likes", config.likes());
+        configReport.put("friends", config.friends());
+        configReport.put("loader", config.loader());
+        configReport.put("concurrency", config.concurrency());
+        configReport.put("threads", config.threads());
+        configReport.put("bulkhead", config.bulkhead());
+        configReport.put("warmupSeconds", config.warmup().toSeconds());
+        configReport.put("durationSeconds", config.duration().toSeconds());
+        configReport.put("mix", config.mix());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", configReport);
+        report.put("seed", seedSteps);
+        report.put("runs", runs);
+
+        Files.createDirectories(config.report().toAbsolutePath().getParent());
+        json.writeValue(config.report().toFile(), report);
+        System.out.printf("Report saved to %s%n", config.report().toAbsolutePath());
+    }
+
+    private void printSummary() {
+        System.out.printf("%n%-10s %11s %10s %8s %10s %10s %10s %10s%n",
+                "threads", "concurrency", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms");
+        for (Map<String, Object> run : runs) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> total = (Map<String, Object>) run.get("total");
+            System.out.printf("%-10s %,11d %,10d %8d %,10.0f %10.2f %10.2f %10.2f%n",
+                    run.get("threads"), run.get("concurrency"), total.get("requests"), total.get("errors"),
+                    total.get("throughput"), total.get("p50Ms"), total.get("p99Ms"), total.get("p999Ms"));
+        }
+    }
+
+    //--- Подготовка данных --------------------------------------------------------------------------------------------
+    private List<Map<String, Object>> seed() throws Exception {
+        List<Map<String, Object>> steps = new ArrayList<>();
+        userIds = new long[config.users()];
+        filmIds = new long[config.films()];
+
+        if (bulkLoad != null) {
+            Arrays.setAll(userIds, i -> (long) bulkLoad.get("firstUserId") + i);
+            Arrays.setAll(filmIds, i -> (long) bulkLoad.get("firstFilmId") + i);
+            steps.add(bulkLoad);
+            return steps;
+        }
+
+        steps.add(seedStep("createUsers", config.users(), (i, random) -> {
+            userIds[i] = idOf(send(createUserRequest()));
+            return true;
+        }));
+        steps.add(seedStep("createFilms", config.films(), (i, random) -> {
+            filmIds[i] = idOf(send(createFilmRequest(random)));
+            return true;
+        }));
+        steps.add(seedStep("addFriends", config.friends(), (i, random) -> {
+            long userId = randomUserId(random);
+            long friendId = randomUserId(random);
+            return userId == friendId
+                    || isSuccess(send(put("/users/%d/friends/%d".formatted(userId, friendId))));
+        }));
+        steps.add(seedStep("addLikes", config.likes(), (i, random) ->
+                isSuccess(send(put("/films/%d/like/%d".formatted(randomFilmId(random), randomUserId(random)))))));
+
+        return steps;
+    }
+
+    private Map<String, Object> seedStep(String name, int count, SeedTask task) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+
+        runWorkers(config.concurrency().getFirst(), worker -> {
+            Random random = new Random(config.seed() * 31 + worker);
+            for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                if (!task.run(i, random)) errors.increment();
+            }
+        });
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-16s %,10d requests in %7.1f s (%,8.0f req/s), errors: %d%n",
+                name, count, seconds, count / seconds, errors.sum());
+
+        Map<String, Object> step = new LinkedHashMap<>();
+        step.put("step", name);
+        step.put("requests", count);
+        step.put("seconds", seconds);
+        step.put("throughput", count / seconds);
+        step.put("errors", errors.sum());
+        return step;
+    }
+
+    //--- Смесь запросов -----------------------------------------------------------------------------------------------
+    private Map<String, Object> runMix(int concurrency) throws Exception {
+        List<String> names = new ArrayList<>(config.mix().keySet());
+        names.forEach(name -> {
+            if (!scenarios.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown scenario %s, available: %s".formatted(name,
+                        scenarios.keySet()));
+            }
+        });
+
+        int[] cumulativeWeights = new int[names.size()];
+        int totalWeight = 0;
+        for (int i = 0; i < names.size(); i++) {
+            totalWeight += config.mix().get(names.get(i));
+            cumulativeWeights[i] = totalWeight;
+        }
+
+        LatencyHistogram[] latencies = new LatencyHistogram[names.size()];
+        LongAdder[] errors = new LongAdder[names.size()];
+        Arrays.setAll(latencies, i -> new LatencyHistogram());
+        Arrays.setAll(errors, i -> new LongAdder());
+        LatencyHistogram totalLatency = new LatencyHistogram();
+
+        long measureFrom = System.nanoTime() + config.warmup().toNanos();
+        long measureTo = measureFrom + config.duration().toNanos();
+        int weights = totalWeight;
+
+        System.out.printf("Running mix with %,d clients for %d s after %d s warmup...%n",
+                concurrency, config.duration().toSeconds(), config.warmup().toSeconds());
+        runWorkers(concurrency, worker -> {
+            Random random = new Random(config.seed() * 17 + worker);
+            for (long now = System.nanoTime(); now < measureTo; now = System.nanoTime()) {
+                int scenario = Arrays.binarySearch(cumulativeWeights, random.nextInt(weights) + 1);
+                if (scenario < 0) scenario = -scenario - 1;
+
+                HttpRequest request = scenarios.get(names.get(scenario)).apply(this, random);
+                // 4xx - ожидаемый ответ для случайных пар (например, снятие несуществующего лайка)
+                boolean success;
+                try {
+                    success = send(request).statusCode() < 500;
+                } catch (IOException e) {
+                    success = false;
+                }
+
+                if (now < measureFrom) continue;
+                long micros = (System.nanoTime() - now) / 1_000;
+                latencies[scenario].record(micros);
+                totalLatency.record(micros);
+                if (!success) errors[scenario].increment();
+            }
+        });
+
+        double seconds = config.duration().toNanos() / 1e9;
+        List<Map<String, Object>> results = new ArrayList<>();
+        System.out.printf("%n%-22s %10s %8s %10s %10s %10s %10s %10s%n",
+                "scenario", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (int i = 0; i < names.size(); i++) {
+            results.add(printResult(names.get(i), latencies[i], errors[i].sum(), seconds));
+        }
+        long totalErrors = Arrays.stream(errors).mapToLong(LongAdder::sum).sum();
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("total", printResult("total", totalLatency, totalErrors, seconds));
+        run.put("scenarios", results);
+        return run;
+    }
+
+    private static Map<String, Object> printResult(String name, LatencyHistogram histogram, long errors,
+                                                   double seconds) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scenario", name);
+        result.put("requests", histogram.count());
+        result.put("errors", errors);
+        result.put("throughput", histogram.count() / seconds);
+        result.put("p50Ms", histogram.percentile(50) / 1_000.0);
+        result.put("p99Ms", histogram.percentile(99) / 1_000.0);
+        result.put("p999Ms", histogram.percentile(99.9) / 1_000.0);
+        result.put("maxMs", histogram.max() / 1_000.0);
+
+        System.out.printf("%-22s %,10d %8d %,10.0f %10.2f %10.2f %10.2f %10.2f%n",
+                result.get("scenario"), result.get("requests"), result.get("errors"), result.get("throughput"),
+                result.get("p50Ms"), result.get("p99Ms"), result.get("p999Ms"), result.get("maxMs"));
+        return result;
+    }
+
+    /**
+     * Сценарии смеси по умолчанию и их веса
+     */
+    private static Map<String, Integer> defaultMix() {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        mix.put("getFilm", 25);
+        mix.put("getFilmsPage", 10);
+        mix.put("getFilmSummariesPage", 5);
+        mix.put("popularFilms", 15);
+        mix.put("getUser", 15);
+        mix.put("getFriends", 10);
+        mix.put("getCommonFriends", 5);
+        mix.put("addLike", 5);
+        mix.put("removeLike", 3);
+        mix.put("createUser", 3);
+        mix.put("updateFilm", 2);
+        mix.put("createFilm", 2);
+        return Collections.unmodifiableMap(mix);
+    }
+
+    private static Map<String, BiFunction<LoadTestRunner, Random, HttpRequest>> scenarios() {
+        Map<String, BiFunction<LoadTestRunner, Random, HttpRequest>> scenarios = new LinkedHashMap<>();
+        scenarios.put("getFilm", (runner, random) -> runner.get("/films/" + runner.randomFilmId(random)));
+        scenarios.put("getFilmsPage", (runner, random) ->
+                runner.get("/films?limit=%d&after=%d".formatted(PAGE_SIZE, runner.randomFilmId(random))));
+        scenarios.put("getFilmSummariesPage", (runner, random) ->
+                runner.get("/films?view=summary&limit=%d&after=%d".formatted(PAGE_SIZE, runner.randomFilmId(random))));
+        scenarios.put("popularFilms", (runner, random) -> runner.get("/films/popular?count=" + POPULAR_COUNT));
+        scenarios.put("getUser", (runner, random) -> runner.get("/users/" + runner.randomUserId(random)));
+        scenarios.put("getFriends", (runner, random) ->
+                runner.get("/users/%d/friends".formatted(runner.randomUserId(random))));
+        scenarios.put("getCommonFriends", (runner, random) -> runner.get("/users/%d/friends/common/%d"
+                .formatted(runner.randomUserId(random), runner.randomUserId(random))));
+        scenarios.put("addLike", (runner, random) -> runner.put("/films/%d/like/%d"
+                .formatted(runner.randomFilmId(random), runner.randomUserId(random))));
+        scenarios.put("removeLike", (runner, random) -> runner.delete("/films/%d/like/%d"
+                .formatted(runner.randomFilmId(random), runner.randomUserId(random))));
+        scenarios.put("createUser", (runner, random) -> runner.createUserRequest());
+        scenarios.put("updateFilm", (runner, random) -> runner.updateFilmRequest(random));
+        scenarios.put("createFilm", (runner, random) -> runner.createFilmRequest(random));
+        return scenarios;
+    }
+
+    //--- Запросы ------------------------------------------------------------------------------------------------------
+    private HttpRequest createUserRequest() {
+        int number = createdEntities.incrementAndGet();
+        String login = "load%d_%d".formatted(config.seed(), number);
+        return post("/users", Map.of(
+                "email", login + "@loadtest.dev",
+                "login", login,
+                "name", "Load test user " + number,
+                "birthday", LocalDate.of(1970, 1, 1).plusDays(number % 15_000).toString()));
+    }
+
+    private HttpRequest createFilmRequest(Random random) {
+        return post("/films", filmBody(random, null));
+    }
+
+    private HttpRequest updateFilmRequest(Random random) {
+        return request("/films").PUT(body(filmBody(random, randomFilmId(random)))).build();
+    }
+
+    private Map<String, Object> filmBody(Random random, Long id) {
+        Map<String, Object> film = new LinkedHashMap<>();
+        if (id != null) film.put("id", id);
+        film.put("name", "Load test film " + random.nextInt(1_000_000));
+        film.put("description", "Film created by the load test");
+        film.put("releaseDate", LocalDate.of(1950, 1, 1).plusDays(random.nextInt(25_000)).toString());
+        film.put("duration", 60 + random.nextInt(120));
+        film.put("mpa", Map.of("id", 1 + random.nextInt(MPA_RATINGS)));
+        film.put("genres", random.ints(1, GENRES + 1).distinct().limit(1 + random.nextInt(3))
+                .mapToObj(genreId -> Map.of("id", genreId))
+                .toList());
+        return film;
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest put(String path) {
+        return request(path).PUT(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private HttpRequest delete(String path) {
+        return request(path).DELETE().build();
+    }
+
+    private HttpRequest post(String path, Object body) {
+        return request(path).POST(body(body)).build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher body(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private long idOf(HttpResponse<String> response) throws IOException {
+        if (!isSuccess(response)) {
+            throw new IllegalStateException("Seeding request failed with %d: %s"
+                    .formatted(response.statusCode(), response.body()));
+        }
+        JsonNode node = json.readTree(response.body());
+        return node.get("id").asLong();
+    }
+
+    private static boolean isSuccess(HttpResponse<?> response) {
+        return response.statusCode() < 400;
+    }
+
+    private long randomUserId(Random random) {
+        return userIds[random.nextInt(userIds.length)];
+    }
+
+    private long randomFilmId(Random random) {
+        return filmIds[random.nextInt(filmIds.length)];
+    }
+
+    //--- Инфраструктура -----------------------------------------------------------------------------------------------
+    private void runWorkers(int concurrency, Worker worker) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                int workerNumber = i;
+                futures.add(executor.submit(() -> {
+                    worker.run(workerNumber);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        }
+    }
+
+    /**
+     * Удаляет файлы прошлого прогона в {@code dbDir} и возвращает адрес новой файловой H2
+     */
+    private static String createDatabase(LoadTestConfig config) throws IOException {
+        Path dbDir = config.dbDir().toAbsolutePath();
+        Files.createDirectories(dbDir);
+        try (var files = Files.list(dbDir)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().startsWith("filmorate.")).toList()) {
+                Files.delete(file);
+            }
+        }
+        return "jdbc:h2:file:%s;DB_CLOSE_DELAY=-1;MODE=PostgreSQL".formatted(dbDir.resolve("filmorate"));
+    }
+
+    private static Map<String, Object> bulkLoad(LoadTestConfig config, String databaseUrl) {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(), databaseUrl,
+                DB_USERNAME, DB_PASSWORD);
+        BulkDataLoader.migrate(dataSource);
+
+        long start = System.nanoTime();
+        BulkDataLoader.Result result = new BulkDataLoader(dataSource, config.seed())
+                .load(config.users(), config.films(), config.likes(), config.friends());
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-16s %,10d likes, %,d friendships in %7.1f s%n",
+                "bulkLoad", result.likes(), result.friends(), seconds);
+
+        Map<String, Object> step = new LinkedHashMap<>();
+        step.put("step", "bulkLoad");
+        step.put("firstUserId", result.firstUserId());
+        step.put("firstFilmId", result.firstFilmId());
+        step.put("likes", result.likes());
+        step.put("friends", result.friends());
+        step.put("seconds", seconds);
+        return step;
+    }
+
+    /**
+     * Запускает приложение в этом же процессе на случайном порту с БД {@code databaseUrl}.
+     * {@code threads} переключает модель потоков ({@code null} - как в {@code application.yaml}).
+     * Логи приложения пишутся в {@code dbDir/app.log}, чтобы не смешиваться с отчётом
+     */
+    private static ConfigurableApplicationContext startApplication(LoadTestConfig config, String databaseUrl,
+                                                                   String threads) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + databaseUrl,
+                "--spring.h2.console.enabled=false",
+                "--logging.file.name=" + config.dbDir().toAbsolutePath().resolve("app.log"),
+                "--logging.threshold.console=OFF"
+        ));
+        if (threads != null) {
+            args.add("--spring.threads.virtual.enabled=" + threads.equals(LoadTestConfig.VIRTUAL_THREADS));
+        }
+        if (config.bulkhead() != null) {
+            args.add("--filmorate.db-bulkhead.enabled=" + (config.bulkhead() > 0));
+            if (config.bulkhead() > 0) args.add("--filmorate.db-bulkhead.permits=" + config.bulkhead());
+        }
+        return new SpringApplicationBuilder(FilmorateApplication.class).run(args.toArray(String[]::new));
+    }
+
+    @FunctionalInterface
+    private interface Worker {
+        void run(int worker) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface SeedTask {
+        boolean run(int index, Random random) throws Exception;
+    }
+}
@@ -0,0 +1,465 @@
+package ru.yandex.practicum.filmorate.util;
+
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.slf4j.Slf4j;
+import net.datafaker.Faker;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static ru.yandex.practicum.filmorate.util.TestDataGenerator.*;
+
+/**
+ * Массовая загрузка воспроизводимого набора данных в H2: пользователи и фильмы из {@link TestDataGenerator},
+ * лайки и дружба со смещённым (ципфовским) распределением.
+ *
+ * <p>Строки сначала пишутся во временные CSV-файлы, затем каждая таблица заполняется запросами
+ * {@code INSERT ... SELECT FROM CSVREAD(...)} - без JDBC-вызова на строку. Основная цена вставки в H2 -
+ * случайные вставки в B-деревья индексов, поэтому строки связей отсортированы по первичному ключу,
+ * пользователи - по уникальным email и login, а внешние ключи и индексы таблиц связей на время загрузки
+ * удаляются и строятся заново по готовым данным. Таблицы связей разбиты на файлы
+ * по {@code ROWS_PER_FILE} строк, чтобы одна транзакция не держала в памяти миллионы строк.
+ * Идентификаторы назначаются подряд после текущего максимума, поэтому загрузка дополняет существующие
+ * данные, а {@code likes_count} новых фильмов считается при генерации.</p>
+ *
+ * <p>Активность пользователей (сколько лайков и друзей у пользователя) и популярность фильмов и пользователей
+ * (кому эти лайки и дружба достаются) распределены по Ципфу, ранги случайно перемешаны по идентификаторам.
+ * Один и тот же {@code seed} даёт одни и те же данные.</p>
+ *
+ * <p>Запуск отдельно от тестов: {@code mvn -Pbulkload test -Dbulkload.args="users=1000000 likes=10000000"},
+ * по умолчанию загрузка идёт в файловую БД приложения {@code ./data/filmorate}. Кэши запущенного приложения
+ * о загрузке не знают: загружать данные нужно до запуска или сбросить их через {@code /admin}</p>
+ */
+@Slf4j
+public final class BulkDataLoader {
+    public static final String DEFAULT_URL = "jdbc:h2:file:./data/filmorate;DB_CLOSE_DELAY=-1;MODE=PostgreSQL";
+
+    static final int ROWS_PER_FILE = 250_000;
+    // показатели распределений: чем больше, тем сильнее лайки и дружба сосредоточены у первых рангов
+    static final double ACTIVITY_SKEW = 0.6;
+    static final double POPULARITY_SKEW = 1.0;
+
+    // жанры и рейтинги из миграции 002-init-data
+    private static final int GENRES = 6;
+    private static final int MAX_GENRES_PER_FILM = 3;
+    // попыток выбрать ещё не выбранную цель по Ципфу до перехода на равномерный выбор
+    private static final int ZIPF_ATTEMPTS_PER_LINK = 4;
+
+    private static final String INSERT_USERS_QUERY = """
+            INSERT INTO users (id, email, login, name, birthday)
+            SELECT id, email, login, name, birthday
+            FROM CSVREAD('%s', NULL, 'charset=UTF-8');
+            """;
+
+    private static final String INSERT_FILMS_QUERY = """
+            INSERT INTO films (id, name, description, release_date, duration, mpa_rating_id, likes_count)
+            SELECT id, name, description, release_date, duration, mpa_rating_id, likes_count
+            FROM CSVREAD('%s', NULL, 'charset=UTF-8');
+            """;
+
+    private static final String INSERT_FILM_GENRES_QUERY = """
+            INSERT INTO film_genres (film_id, genre_id)
+            SELECT film_id, genre_id
+            FROM CSVREAD('%s', NULL, 'charset=UTF-8');
+            """;
+
+    private static final String INSERT_FRIENDSHIPS_QUERY = """
+            INSERT INTO user_friends (user_id, friend_id)
+            SELECT user_id, friend_id
+            FROM CSVREAD('%s', NULL, 'charset=UTF-8');
+            """;
+
+    private static final String INSERT_LIKES_QUERY = """
+            INSERT INTO film_likes (film_id, user_id)
+            SELECT film_id, user_id
+            FROM CSVREAD('%s', NULL, 'charset=UTF-8');
+            """;
+
+    // ссылки сгенерированных строк заведомо корректны, проверка внешних ключей на каждую строку - это
+    // случайное чтение индекса родительской таблицы, которое на миллионах строк занимает большую часть загрузки
+    private static final String REFERENTIAL_INTEGRITY_QUERY = "SET REFERENTIAL_INTEGRITY %s;";
+
+    // внешние ключи (колонка - родительская таблица) и индексы (имя - колонка) из миграции 001-create-tables
+    private static final List<LinkTable> LINK_TABLES = List.of(
+            new LinkTable("user_friends",
+                    Map.of("user_id", "users", "friend_id", "users"),
+                    Map.of("idx_user_friends_user", "user_id", "idx_user_friends_friend", "friend_id")),
+            new LinkTable("film_likes",
+                    Map.of("film_id", "films", "user_id", "users"),
+                    Map.of("idx_film_likes_film", "film_id", "idx_film_likes_user", "user_id"))
+    );
+
+    private static final String FOREIGN_KEYS_QUERY = """
+            SELECT constraint_name
+            FROM information_schema.table_constraints
+            WHERE table_schema = SCHEMA() AND table_name = UPPER(?) AND constraint_type = 'FOREIGN KEY';
+            """;
+
+    private static final String DROP_CONSTRAINT_QUERY = "ALTER TABLE %s DROP CONSTRAINT %s;";
+    private static final String DROP_INDEX_QUERY = "DROP INDEX IF EXISTS %s;";
+
+    // NOCHECK: строки не проверяются заново, индекс внешнего ключа строится сортировкой готовых данных
+    private static final String ADD_FOREIGN_KEY_QUERY = """
+            ALTER TABLE %1$s ADD CONSTRAINT IF NOT EXISTS fk_%1$s_%2$s
+            FOREIGN KEY (%2$s) REFERENCES %3$s(id) ON DELETE CASCADE NOCHECK;
+            """;
+
+    private static final String CREATE_INDEX_QUERY = "CREATE INDEX IF NOT EXISTS %s ON %s(%s);";
+
+    private static final String MAX_ID_QUERY = "SELECT COALESCE(MAX(id), 0) FROM %s;";
+    private static final String RESTART_ID_QUERY = "ALTER TABLE %s ALTER COLUMN id RESTART WITH %d;";
+
+    private final JdbcTemplate jdbc;
+    private final long seed;
+
+    public BulkDataLoader(DataSource dataSource, long seed) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.seed = seed;
+    }
+
+
+    /**
+     * Результат загрузки: идентификаторы новых пользователей и фильмов идут подряд
+     */
+    public record Result(long firstUserId, int users, long firstFilmId, int films, long likes, long friends) {
+        public long userId(int index) {
+            return firstUserId + index;
+        }
+
+        public long filmId(int index) {
+            return firstFilmId + index;
+        }
+    }
+
+    /**
+     * Создаёт {@code users} пользователей и {@code films} фильмов, около {@code likes} лайков
+     * и {@code friends} дружб. Лайков и друзей у одного пользователя не больше числа фильмов и пользователей,
+     * поэтому на очень плотных наборах итог может быть меньше запрошенного
+     */
+    public Result load(int users, int films, long likes, long friends) {
+        if (users < 2 || films < 1) {
+            throw new IllegalArgumentException("At least two users and one film are required");
+        }
+
+        long firstUserId = jdbc.queryForObject(MAX_ID_QUERY.formatted("users"), Long.class) + 1;
+        long firstFilmId = jdbc.queryForObject(MAX_ID_QUERY.formatted("films"), Long.class) + 1;
+
+        Path directory = null;
+        try {
+            directory = Files.createTempDirectory("filmorate-bulk");
+            SplittableRandom random = new SplittableRandom(seed);
+            Faker faker = new Faker(new Random(seed));
+
+            long start = System.nanoTime();
+            Path usersFile = writeUsers(directory, users, firstUserId, faker);
+            int[] filmLikes = new int[films];
+            Pairs likeRows = new Pairs();
+            generateLinks(users, films, likes, false, random.split(), (user, film) -> {
+                filmLikes[film]++;
+                likeRows.add(film, user);
+            });
+            List<Path> likeFiles = likeRows.writeSorted(directory, "likes", "film_id,user_id",
+                    firstFilmId, firstUserId);
+            Pairs friendRows = new Pairs();
+            generateLinks(users, users, friends, true, random.split(), friendRows::add);
+            List<Path> friendFiles = friendRows.writeSorted(directory, "friends", "user_id,friend_id",
+                    firstUserId, firstUserId);
+            Path filmsFile = writeFilms(directory, films, firstFilmId, filmLikes, faker);
+            Path genresFile = writeFilmGenres(directory, films, firstFilmId, random.split());
+            log.info("Generated {} users, {} films, {} likes, {} friendships in {} ms",
+                    users, films, likeRows.size, friendRows.size, millisSince(start));
+
+            jdbc.execute(REFERENTIAL_INTEGRITY_QUERY.formatted(false));
+            LINK_TABLES.forEach(this::dropConstraints);
+            try {
+                insert("users", INSERT_USERS_QUERY, List.of(usersFile));
+                insert("films", INSERT_FILMS_QUERY, List.of(filmsFile));
+                insert("film_genres", INSERT_FILM_GENRES_QUERY, List.of(genresFile));
+                insert("user_friends", INSERT_FRIENDSHIPS_QUERY, friendFiles);
+                insert("film_likes", INSERT_LIKES_QUERY, likeFiles);
+            } finally {
+                long indexStart = System.nanoTime();
+                LINK_TABLES.forEach(this::restoreConstraints);
+                jdbc.execute(REFERENTIAL_INTEGRITY_QUERY.formatted(true));
+                log.info("Rebuilt link constraints and indexes in {} ms", millisSince(indexStart));
+            }
+
+            jdbc.execute(RESTART_ID_QUERY.formatted("users", firstUserId + users));
+            jdbc.execute(RESTART_ID_QUERY.formatted("films", firstFilmId + films));
+            log.info("Bulk load finished in {} ms", millisSince(start));
+
+            return new Result(firstUserId, users, firstFilmId, films, likeRows.size, friendRows.size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write bulk load files", e);
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * Применяет миграции Liquibase приложения к {@code dataSource}
+     */
+    public static void migrate(DataSource dataSource) {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        try {
+            liquibase.afterPropertiesSet();
+        } catch (Exception e) {
+            throw new IllegalStateException("Database migration failed", e);
+        }
+    }
+
+    /**
+     * Аргументы {@code ключ=значение}: {@code url}, {@code users}, {@code films}, {@code likes},
+     * {@code friends}, {@code seed}
+     */
+    public static void main(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) throw new IllegalArgumentException("Expected key=value argument: " + arg);
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                values.getOrDefault("url", DEFAULT_URL), values.getOrDefault("username", "sa"),
+                values.getOrDefault("password", "passw0rd"));
+        migrate(dataSource);
+
+        Result result = new BulkDataLoader(dataSource, Long.parseLong(values.getOrDefault("seed", "42"))).load(
+                Integer.parseInt(values.getOrDefault("users", "1000000")),
+                Integer.parseInt(values.getOrDefault("films", "100000")),
+                Long.parseLong(values.getOrDefault("likes", "10000000")),
+                Long.parseLong(values.getOrDefault("friends", "5000000")));
+        System.out.println(result);
+    }
+
+    //--- Генерация ----------------------------------------------------------------------------------------------------
+    private static Path writeUsers(Path directory, int users, long firstId, Faker faker) throws IOException {
+        Path file = directory.resolve("users.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("id,email,login,name,birthday\n");
+            for (int i = 0; i < users; i++) {
+                // email и login уникальны в схеме, поэтому к случайным значениям добавляется идентификатор,
+                // дополненный нулями, чтобы строки шли в порядке уникальных индексов
+                User user = getRandomUser(faker);
+                long id = firstId + i;
+                writer.write(Long.toString(id));
+                writer.write(',');
+                writeQuoted(writer, "%012d.%s".formatted(id, user.getEmail()));
+                writer.write(',');
+                writeQuoted(writer, "u%012d_%s".formatted(id, user.getLogin()));
+                writer.write(',');
+                writeQuoted(writer, user.getName());
+                writer.write(',');
+                writer.write(user.getBirthday().toString());
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+
+    private static Path writeFilms(Path directory, int films, long firstId, int[] likes, Faker faker)
+            throws IOException {
+        Path file = directory.resolve("films.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("id,name,description,release_date,duration,mpa_rating_id,likes_count\n");
+            for (int i = 0; i < films; i++) {
+                Film film = new Film();
+                film.setName(getRandomFilmName(faker));
+                film.setDescription(getRandomDescription(faker));
+                film.setReleaseDate(getRandomReleaseDate(faker));
+                film.setDuration(getRandomDuration(faker));
+                film.setMpa(getRandomMpa(faker));
+
+                writer.write(Long.toString(firstId + i));
+                writer.write(',');
+                writeQuoted(writer, film.getName());
+                writer.write(',');
+                writeQuoted(writer, film.getDescription());
+                writer.write(',');
+                writer.write(film.getReleaseDate().toString());
+                writer.write(',');
+                writer.write(Long.toString(film.getDuration()));
+                writer.write(',');
+                writer.write(Long.toString(film.getMpa().getId()));
+                writer.write(',');
+                writer.write(Integer.toString(likes[i]));
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+
+    private static Path writeFilmGenres(Path directory, int films, long firstId, SplittableRandom random)
+            throws IOException {
+        Path file = directory.resolve("film_genres.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("film_id,genre_id\n");
+            for (int i = 0; i < films; i++) {
+                long filmId = firstId + i;
+                int[] genres = random.ints(1, GENRES + 1).distinct()
+                        .limit(1 + random.nextInt(MAX_GENRES_PER_FILM))
+                        .toArray();
+                for (int genreId : genres) {
+                    writer.write(filmId + "," + genreId + "\n");
+                }
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Связи владельцев с целями (пользователь - фильм для лайков, пользователь - пользователь для дружбы).
+     * Владелец ранга {@code r} получает долю {@code total}, пропорциональную весу ранга в распределении
+     * активности; цели выбираются по Ципфу популярности без повторов у одного владельца
+     */
+    private static void generateLinks(int owners, int targets, long total, boolean excludeSelf,
+                                      SplittableRandom random, LinkSink sink) {
+        ZipfDistribution activity = new ZipfDistribution(owners, ACTIVITY_SKEW);
+        ZipfDistribution popularity = new ZipfDistribution(targets, POPULARITY_SKEW);
+        int[] ownerByRank = shuffledIndexes(owners, random);
+        int[] targetByRank = shuffledIndexes(targets, random);
+        double linksPerWeight = total / activity.totalWeight();
+        int maxPerOwner = excludeSelf ? targets - 1 : targets;
+
+        for (int rank = 1; rank <= owners; rank++) {
+            int owner = ownerByRank[rank - 1];
+            double expected = linksPerWeight * activity.weight(rank);
+            long rounded = (long) expected + (random.nextDouble() < expected % 1 ? 1 : 0);
+            int quota = (int) Math.min(maxPerOwner, rounded);
+            if (quota == 0) continue;
+
+            LongHashSet chosen = new LongHashSet(quota);
+            for (int attempt = ZIPF_ATTEMPTS_PER_LINK * quota; chosen.size() < quota && attempt > 0; attempt--) {
+                int target = targetByRank[popularity.sample(random) - 1];
+                if ((!excludeSelf || target != owner) && chosen.add(target)) sink.accept(owner, target);
+            }
+            // хвост распределения почти не выпадает: оставшиеся цели выбираются равномерно
+            while (chosen.size() < quota) {
+                int target = random.nextInt(targets);
+                if ((!excludeSelf || target != owner) && chosen.add(target)) sink.accept(owner, target);
+            }
+        }
+    }
+
+    private static int[] shuffledIndexes(int size, SplittableRandom random) {
+        int[] indexes = new int[size];
+        for (int i = 0; i < size; i++) indexes[i] = i;
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = swap;
+        }
+        return indexes;
+    }
+
+    private static void writeQuoted(BufferedWriter writer, String value) throws IOException {
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    //--- Вставка ------------------------------------------------------------------------------------------------------
+    private void insert(String table, String query, List<Path> files) {
+        long start = System.nanoTime();
+        long rows = 0;
+        for (Path file : files) {
+            // CSVREAD читает файл при разборе запроса, поэтому путь подставляется литералом, а не параметром
+            rows += jdbc.update(query.formatted(file.toAbsolutePath().toString().replace("'", "''")));
+        }
+        log.info("Inserted {} rows into {} in {} ms", rows, table, millisSince(start));
+    }
+
+    private void dropConstraints(LinkTable table) {
+        jdbc.queryForList(FOREIGN_KEYS_QUERY, String.class, table.name()).forEach(constraint ->
+                jdbc.execute(DROP_CONSTRAINT_QUERY.formatted(table.name(), constraint)));
+        table.indexes().keySet().forEach(index -> jdbc.execute(DROP_INDEX_QUERY.formatted(index)));
+    }
+
+    private void restoreConstraints(LinkTable table) {
+        table.foreignKeys().forEach((column, parent) ->
+                jdbc.execute(ADD_FOREIGN_KEY_QUERY.formatted(table.name(), column, parent)));
+        table.indexes().forEach((index, column) ->
+                jdbc.execute(CREATE_INDEX_QUERY.formatted(index, table.name(), column)));
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static void deleteDirectory(Path directory) {
+        if (directory == null) return;
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete bulk load directory {}", directory, e);
+        }
+    }
+
+    private record LinkTable(String name, Map<String, String> foreignKeys, Map<String, String> indexes) {
+    }
+
+    @FunctionalInterface
+    private interface LinkSink {
+        void accept(int owner, int target);
+    }
+
+    /**
+     * Пары индексов строк, упакованные в {@code long}: сортировка массива упорядочивает их
+     * по первому, затем по второму индексу, то есть по первичному ключу таблицы связей
+     */
+    private static final class Pairs {
+        private long[] values = new long[1024];
+        private int size;
+
+        private void add(int first, int second) {
+            if (size == values.length) values = Arrays.copyOf(values, values.length * 2);
+            values[size++] = (long) first << 32 | second;
+        }
+
+        /**
+         * Пишет пары по возрастанию в файлы по {@code ROWS_PER_FILE} строк, добавляя к индексам
+         * идентификаторы первых строк
+         */
+        private List<Path> writeSorted(Path directory, String name, String header, long firstOffset,
+                                       long secondOffset) throws IOException {
+            Arrays.sort(values, 0, size);
+
+            List<Path> files = new ArrayList<>();
+            for (int from = 0; from < size; from += ROWS_PER_FILE) {
+                Path file = directory.resolve("%s-%d.csv".formatted(name, files.size()));
+                files.add(file);
+                try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                    writer.write(header);
+                    writer.write('\n');
+                    for (int i = from; i < Math.min(size, from + ROWS_PER_FILE); i++) {
+                        writer.write(Long.toString(firstOffset + (values[i] >>> 32)));
+                        writer.write(',');
+                        writer.write(Long.toString(secondOffset + (int) values[i]));
+                        writer.write('\n');
+                    }
+                }
+            }
+            values = null;
+            return files;
+        }
+    }
+}
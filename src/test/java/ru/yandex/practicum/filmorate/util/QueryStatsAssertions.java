@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+import ru.yandex.practicum.filmorate.controller.filter.QueryStatsFilter;
+import ru.yandex.practicum.filmorate.repository.stats.QueryStats;
+
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверки числа запросов к БД по заголовку {@value QueryStatsFilter#HEADER} для MockMvc-тестов:
+ * {@code mockMvc.perform(get("/films")).andExpect(queriesAtMost(3))}.
+ *
+ * <p>Заголовок включается свойством {@code filmorate.query-stats.response-header=true}
+ * (задано в профиле {@code test}).</p>
+ *
+ * <p>В тестах хранилищ запросы считаются в области {@link QueryStats}, открытой вокруг вызова:
+ * {@code assertEquals(1, counted(queryStats, filmStorage::getAllFilms).statements())}</p>
+ */
+public final class QueryStatsAssertions {
+    private static final Pattern STATEMENTS = Pattern.compile("statements=(\\d+)");
+    private static final String SCOPE = "test";
+
+    private QueryStatsAssertions() {
+    }
+
+
+    public static ResultMatcher queriesAtMost(int max) {
+        return result -> assertThat(statements(result))
+                .as("SQL statements for %s %s", result.getRequest().getMethod(), result.getRequest().getRequestURI())
+                .isLessThanOrEqualTo(max);
+    }
+
+    public static ResultMatcher queries(int expected) {
+        return result -> assertThat(statements(result))
+                .as("SQL statements for %s %s", result.getRequest().getMethod(), result.getRequest().getRequestURI())
+                .isEqualTo(expected);
+    }
+
+    /**
+     * Выполняет {@code action} в отдельной области {@link QueryStats} и возвращает его результат вместе
+     * с числом запросов к БД из текущего потока
+     */
+    public static <T> Counted<T> counted(QueryStats queryStats, Supplier<T> action) {
+        try (QueryStats.Scope scope = queryStats.open(SCOPE)) {
+            T result = action.get();
+            return new Counted<>(result, scope.getStatements());
+        }
+    }
+
+    /**
+     * Число запросов к БД, выполненных {@code action} в текущем потоке
+     */
+    public static int statements(QueryStats queryStats, Runnable action) {
+        return counted(queryStats, () -> {
+            action.run();
+            return null;
+        }).statements();
+    }
+
+    public static int statements(MvcResult result) {
+        String header = result.getResponse().getHeader(QueryStatsFilter.HEADER);
+        assertThat(header).as("%s header", QueryStatsFilter.HEADER).isNotNull();
+
+        Matcher matcher = STATEMENTS.matcher(header);
+        assertThat(matcher.find()).as("statements in %s", header).isTrue();
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    public record Counted<T>(T result, int statements) {
+    }
+}
@@ -5,8 +5,11 @@ import ru.yandex.practicum.filmorate.model.MpaRating;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.time.LocalDate;
-import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Случайные пользователи и фильмы для тестов. Методы без аргументов используют общий {@link Faker},
+ * перегрузки с {@link Faker} позволяют получить воспроизводимые данные: {@code new Faker(new Random(seed))}
+ */
 public final class TestDataGenerator {
     private static final Faker FAKER = new Faker();
 
@@ -19,62 +22,102 @@ public final class TestDataGenerator {
 
 
     public static String getRandomEmail() {
-        return FAKER.internet().emailAddress();
+        return getRandomEmail(FAKER);
+    }
+
+    public static String getRandomEmail(Faker faker) {
+        return faker.internet().emailAddress();
     }
 
     public static String getRandomLogin() {
-        return FAKER.name().firstName().toLowerCase() + FAKER.number().digits(3);
+        return getRandomLogin(FAKER);
+    }
+
+    public static String getRandomLogin(Faker faker) {
+        return faker.name().firstName().toLowerCase() + faker.number().digits(3);
     }
 
     public static String getRandomUserName() {
-        return FAKER.name().fullName();
+        return getRandomUserName(FAKER);
+    }
+
+    public static String getRandomUserName(Faker faker) {
+        return faker.name().fullName();
     }
 
     public static LocalDate getRandomPastDate() {
+        return getRandomPastDate(FAKER);
+    }
+
+    public static LocalDate getRandomPastDate(Faker faker) {
         LocalDate now = LocalDate.now();
 
         long minDay = now.minusYears(100).toEpochDay();
         long maxDay = now.minusDays(1).toEpochDay();
-        long randomDay = ThreadLocalRandom.current().nextLong(minDay, maxDay);
+        long randomDay = faker.random().nextLong(minDay, maxDay);
 
         return LocalDate.ofEpochDay(randomDay);
     }
 
     public static User getRandomUser() {
+        return getRandomUser(FAKER);
+    }
+
+    public static User getRandomUser(Faker faker) {
         User user = new User();
 
-        user.setEmail(getRandomEmail());
-        user.setLogin(getRandomLogin());
-        user.setName(getRandomUserName());
-        user.setBirthday(getRandomPastDate());
+        user.setEmail(getRandomEmail(faker));
+        user.setLogin(getRandomLogin(faker));
+        user.setName(getRandomUserName(faker));
+        user.setBirthday(getRandomPastDate(faker));
 
         return user;
     }
 
     public static String getRandomFilmName() {
-        return FAKER.text().text(1, 25);
+        return getRandomFilmName(FAKER);
+    }
+
+    public static String getRandomFilmName(Faker faker) {
+        return faker.text().text(1, 25);
     }
 
     public static String getRandomDescription() {
-        return FAKER.text().text(0, 200);
+        return getRandomDescription(FAKER);
+    }
+
+    public static String getRandomDescription(Faker faker) {
+        return faker.text().text(0, 200);
     }
 
     public static LocalDate getRandomReleaseDate() {
+        return getRandomReleaseDate(FAKER);
+    }
+
+    public static LocalDate getRandomReleaseDate(Faker faker) {
         LocalDate minDate = LocalDate.of(1895, 12, 28);
         LocalDate maxDate = LocalDate.now();
 
         long minDay = minDate.toEpochDay();
         long maxDay = maxDate.toEpochDay();
-        long randomDay = FAKER.random().nextLong(minDay, maxDay);
+        long randomDay = faker.random().nextLong(minDay, maxDay);
 
         return LocalDate.ofEpochDay(randomDay);
     }
 
     public static Long getRandomDuration() {
-        return FAKER.random().nextLong(1L, 10_000L);
+        return getRandomDuration(FAKER);
+    }
+
+    public static Long getRandomDuration(Faker faker) {
+        return faker.random().nextLong(1L, 10_000L);
     }
 
     public static MpaRating getRandomMpa() {
-        return new MpaRating(FAKER.random().nextLong(1L, 5L), null, null);
+        return getRandomMpa(FAKER);
+    }
+
+    public static MpaRating getRandomMpa(Faker faker) {
+        return new MpaRating(faker.random().nextLong(1L, 5L), null, null);
     }
 }
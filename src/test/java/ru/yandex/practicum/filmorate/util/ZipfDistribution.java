@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Распределение Ципфа на рангах {@code 1..n}: вероятность ранга {@code k} пропорциональна {@code 1 / k^exponent}.
+ *
+ * <p>Выборка методом rejection-inversion (W. Hörmann, G. Derflinger, 1996): память O(1) и в среднем
+ * меньше двух равномерных чисел на значение при любом {@code n}, поэтому распределение годится для миллионов
+ * рангов, где таблица накопленных вероятностей заняла бы десятки мегабайт</p>
+ */
+public final class ZipfDistribution {
+    private final int size;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralSize;
+    private final double threshold;
+
+    public ZipfDistribution(int size, double exponent) {
+        if (size < 1) throw new IllegalArgumentException("Size must be positive: " + size);
+        if (exponent <= 0) throw new IllegalArgumentException("Exponent must be positive: " + exponent);
+
+        this.size = size;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralSize = hIntegral(size + 0.5);
+        this.threshold = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+
+    /**
+     * Случайный ранг от {@code 1} до {@code size}, ранг {@code 1} самый вероятный
+     */
+    public int sample(RandomGenerator random) {
+        while (true) {
+            double u = hIntegralSize + random.nextDouble() * (hIntegralX1 - hIntegralSize);
+            double x = hIntegralInverse(u);
+            int k = (int) Math.max(1, Math.min(size, (long) (x + 0.5)));
+
+            if (k - x <= threshold || u >= hIntegral(k + 0.5) - h(k)) return k;
+        }
+    }
+
+    /**
+     * Вес ранга {@code k}: {@code 1 / k^exponent}
+     */
+    public double weight(int k) {
+        return h(k);
+    }
+
+    /**
+     * Сумма весов всех рангов (обобщённое гармоническое число)
+     */
+    public double totalWeight() {
+        double total = 0;
+        for (int k = size; k >= 1; k--) total += h(k);
+        return total;
+    }
+
+    // первообразная h(x) = x^-exponent
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return expm1OverX((1 - exponent) * logX) * logX;
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = Math.max(-1, x * (1 - exponent));
+        return Math.exp(log1pOverX(t) * x);
+    }
+
+    // log1p(x) / x и expm1(x) / x с рядами Тейлора около нуля, где деление теряет точность
+    private static double log1pOverX(double x) {
+        if (Math.abs(x) > 1e-8) return Math.log1p(x) / x;
+        return 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    private static double expm1OverX(double x) {
+        if (Math.abs(x) > 1e-8) return Math.expm1(x) / x;
+        return 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+    }
+}